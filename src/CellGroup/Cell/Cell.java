@@ -1,7 +1,9 @@
 package CellGroup.Cell;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Matthew Dickson
@@ -31,9 +33,14 @@ public abstract class Cell {
 
 	public static final int EMPTY = 0;
 	public static final double GUARANTEED_UPDATE = 1;
+	public static final int EXPECTED_STATES = 4;
 	
-    protected ArrayList<Cell> neighbors;
-    protected ArrayList<Integer> neighborState = new ArrayList<>();
+    private List<Cell> neighborCells;
+    private int[] neighborIndices;
+    private int neighborStart;
+    private int neighborEnd;
+    protected int[] neighborState = new int[EXPECTED_STATES];
+    protected int neighborStateTotal;
     protected int state;
     protected boolean shouldUpdate;
     protected boolean hasNotMoved;
@@ -75,8 +82,8 @@ public abstract class Cell {
      * hierarchy
      */
     public void pushStateToNeighbors(){
-        for(Cell cell : neighbors){
-            cell.listenForState(state);
+        for(int k = 0; k < getNeighborCount(); k++){
+            getNeighbor(k).listenForState(state);
         }
     }
 
@@ -86,7 +93,8 @@ public abstract class Cell {
      * @param state the state passed by the neighboring cells
      */
     public void listenForState(int state){
-        neighborState.add(state);
+        neighborState = countState(neighborState, state);
+        neighborStateTotal++;
     }
 
     /**
@@ -119,6 +127,36 @@ public abstract class Cell {
     public void setState(int s){
         state = s;
     }
+
+    /**
+     * Number of values besides its state this cell carries from one generation
+     * to the next, which a saved simulation must keep to resume exactly
+     *
+     * @return number of extra fields, none by default
+     */
+    public int getFieldCount(){
+        return 0;
+    }
+
+    /**
+     * Give back one of this cell's extra fields
+     *
+     * @param k which field, below getFieldCount()
+     * @return the field's value
+     */
+    public int getField(int k){
+        throw new IndexOutOfBoundsException("No field " + k);
+    }
+
+    /**
+     * Restore one of this cell's extra fields
+     *
+     * @param k which field, below getFieldCount()
+     * @param value the field's value
+     */
+    public void setField(int k, int value){
+        throw new IndexOutOfBoundsException("No field " + k);
+    }
     
 
     /**
@@ -136,7 +174,44 @@ public abstract class Cell {
      * @param myNeighbors Collection of  Cell object representing this cell's neighbors
      */
     public void setNeighbors(Collection<Cell> myNeighbors){
-        neighbors = new ArrayList<>(myNeighbors);
+        neighborCells = new ArrayList<>(myNeighbors);
+        neighborIndices = null;
+        neighborStart = 0;
+        neighborEnd = neighborCells.size();
+    }
+
+    /**
+     * Assign neighbors to this cell from a neighbor table shared by the whole group,
+     * without copying them
+     *
+     * @param cells every cell in the group
+     * @param indices shared array of neighbor indices
+     * @param start where this cell's neighbors start in indices
+     * @param end where this cell's neighbors end in indices (exclusive)
+     */
+    public void setNeighbors(List<Cell> cells, int[] indices, int start, int end){
+        neighborCells = cells;
+        neighborIndices = indices;
+        neighborStart = start;
+        neighborEnd = end;
+    }
+
+    /**
+     * @return how many neighbors this cell has
+     */
+    protected int getNeighborCount(){
+        return neighborEnd - neighborStart;
+    }
+
+    /**
+     * Get one of this cell's neighbors
+     *
+     * @param k which neighbor, from 0 to getNeighborCount() - 1
+     * @return the neighboring cell
+     */
+    protected Cell getNeighbor(int k){
+        if(neighborIndices == null) return neighborCells.get(k);
+        return neighborCells.get(neighborIndices[neighborStart + k]);
     }
     
     /**
@@ -145,8 +220,8 @@ public abstract class Cell {
      * @param newState
      */
     public void pushUpdateToNeighbors(int oldState, int newState){
-    	for(Cell c : neighbors){
-    		c.listenForUpdate(oldState, newState);
+    	for(int k = 0; k < getNeighborCount(); k++){
+    		getNeighbor(k).listenForUpdate(oldState, newState);
     	}
     }
     
@@ -158,8 +233,57 @@ public abstract class Cell {
      * @param newState state of the new neighbor cell
      */
     public void listenForUpdate(int oldState, int newState){
-     	neighborState.remove(Integer.valueOf(oldState));
-    	neighborState.add(newState);
+     	if(uncountState(neighborState, oldState)) neighborStateTotal--;
+    	neighborState = countState(neighborState, newState);
+    	neighborStateTotal++;
+    }
+
+    /**
+     * Get how many of this cell's neighbors have reported being in a state
+     *
+     * @param s the state to look for
+     * @return number of neighbors in that state
+     */
+    protected int countNeighbors(int s){
+        return getCount(neighborState, s);
+    }
+
+    /**
+     * Read one entry of a histogram of states
+     *
+     * @param counts number of cells in each state, indexed by state
+     * @param s the state to look for
+     * @return number of cells in that state
+     */
+    protected static int getCount(int[] counts, int s){
+        return s < counts.length ? counts[s] : 0;
+    }
+
+    /**
+     * Add one cell in the given state to a histogram of states. The histogram only
+     * grows (and so allocates) for states past EXPECTED_STATES.
+     *
+     * @param counts number of cells in each state, indexed by state
+     * @param s the state to add
+     * @return the histogram, which is a new array if it had to grow
+     */
+    protected static int[] countState(int[] counts, int s){
+        if(s >= counts.length) counts = Arrays.copyOf(counts, s + 1);
+        counts[s]++;
+        return counts;
+    }
+
+    /**
+     * Remove one cell in the given state from a histogram of states, if there is one
+     *
+     * @param counts number of cells in each state, indexed by state
+     * @param s the state to remove
+     * @return if a cell in that state was removed
+     */
+    protected static boolean uncountState(int[] counts, int s){
+        if(getCount(counts, s) == 0) return false;
+        counts[s]--;
+        return true;
     }
     
     /**
@@ -0,0 +1,24 @@
+package CellGroup.Cell;
+
+/**
+ * Stateless form of a cell's update rule. A kernel is given the current state of
+ * one cell and how many of its neighbors are in each state, and returns the state
+ * the cell will have next generation. Kernels hold only the simulation settings,
+ * so one instance is shared by every position in the grid.
+ * 
+ * Only simulations whose rule depends purely on the cell and its neighbors' states
+ * (no movement, no per-cell memory) can be written as a kernel. Engines may skip
+ * a cell when neither it nor any of its neighbors changed last generation, so a
+ * kernel must leave such a cell in its current state.
+ */
+public interface CellKernel {
+
+	/**
+	 * Compute the next state of a cell
+	 * 
+	 * @param state current state of the cell
+	 * @param neighborCounts number of neighbors in each state, indexed by state
+	 * @return state of the cell in the next generation
+	 */
+	public int nextState(int state, int[] neighborCounts);
+}
@@ -1,8 +1,9 @@
 package CellGroup.Cell;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 /**
@@ -16,7 +17,7 @@ public class FireCell extends Cell {
     public static final int UNBURNED = 2;
     private static final Random rand = new Random();
     
-    private double probCatch;
+    private final Config config;
     private int oldState = 0;
     
     /**
@@ -26,9 +27,18 @@ public class FireCell extends Cell {
      * @param simSettings Collection of global simulation settings for this sim
      */
     public FireCell(int initialState, Collection <Double> simSettings){
+        this(initialState, new Config(simSettings));
+    }
+    
+    /**
+     * Create a fire cell sharing its grid's settings
+     *
+     * @see Cell#Cell
+     * @param simConfig settings shared by every cell of the grid
+     */
+    public FireCell(int initialState, Config simConfig){
         super(initialState);
-        ArrayList<Double> ss = new ArrayList<>(simSettings);
-        probCatch = ss.get(0);
+        config = simConfig;
     }
     
     /**
@@ -38,8 +48,7 @@ public class FireCell extends Cell {
      * @param prob probCatch value, can be determined by the tester
      */
     public FireCell(int initialState, double prob){
-    	super(initialState);
-    	probCatch = prob;
+    	this(initialState, new Config(prob));
     }
 
     /**
@@ -57,7 +66,7 @@ public class FireCell extends Cell {
      * @return If the collection of neighbor states has a value corresponding to being on fire.
      */
     private boolean anyNeighborIsOnFire(){
-        return neighborState.contains(ON_FIRE);
+        return countNeighbors(ON_FIRE) > 0;
     }
 
     /**
@@ -66,9 +75,7 @@ public class FireCell extends Cell {
      * @return boolean corresponding to if the fire spreads to this cell
      */
     private boolean fireCanSpread(){
-        return state == UNBURNED && rand.nextDouble() <= probCatch;
-
-        
+        return canCatch(state, config.getProbCatch(), rand);
     }
 
     /**
@@ -80,6 +87,25 @@ public class FireCell extends Cell {
         return state == ON_FIRE;
     }
 
+    /**
+     * The fire rule, shared by FireCell objects and the array engine's kernel
+     *
+     * @param state current state of the cell
+     * @param neighborsOnFire number of burning neighbors
+     * @param probCatch chance an unburned cell next to a fire catches
+     * @param random source of the catch roll; only rolled when the cell could catch
+     * @return state of the cell next generation
+     */
+    public static int nextState(int state, int neighborsOnFire, double probCatch, Random random){
+        if(state == ON_FIRE) return EMPTY;
+        if(neighborsOnFire > 0 && canCatch(state, probCatch, random)) return ON_FIRE;
+        return state;
+    }
+
+    private static boolean canCatch(int state, double probCatch, Random random){
+        return state == UNBURNED && random.nextDouble() <= probCatch;
+    }
+
     /**
      * @see Cell#update()
      */
@@ -98,4 +124,63 @@ public class FireCell extends Cell {
     		pushUpdateToNeighbors(oldState, state);
     	}
     }
+
+    /**
+     * Fire settings, read once per grid
+     */
+    public static class Config implements SimConfig {
+        private final double probCatch;
+
+        /**
+         * @param simSettings global simulation settings for this sim: probCatch
+         */
+        public Config(Iterable<Double> simSettings){
+            Iterator<Double> ss = simSettings.iterator();
+            probCatch = ss.next();
+        }
+
+        /**
+         * @param prob chance an unburned cell next to a fire catches
+         */
+        public Config(double prob){
+            probCatch = prob;
+        }
+
+        /**
+         * @return chance an unburned cell next to a fire catches
+         */
+        public double getProbCatch(){
+            return probCatch;
+        }
+    }
+
+    /**
+     * Stateless fire rule over neighbor state counts, used by the array engine.
+     * Rolls on the calling thread's own Random so stripes never contend for one.
+     */
+    public static class Kernel implements CellKernel {
+        private final double probCatch;
+
+        /**
+         * @param simSettings Collection of global simulation settings for this sim
+         */
+        public Kernel(Collection<Double> simSettings){
+            this(new Config(simSettings));
+        }
+
+        /**
+         * @param simConfig settings shared by every cell of the grid
+         */
+        public Kernel(Config simConfig){
+            probCatch = simConfig.getProbCatch();
+        }
+
+        /**
+         * @see CellKernel#nextState(int, int[])
+         */
+        @Override
+        public int nextState(int state, int[] neighborCounts){
+            return FireCell.nextState(state, neighborCounts[ON_FIRE], probCatch, ThreadLocalRandom.current());
+        }
+    }
 }
@@ -1,8 +1,7 @@
 package CellGroup.Cell;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 
 /**
  * @author Matthew Dickson
@@ -14,9 +13,7 @@ public class LifeCell extends Cell {
     public static final int DEAD = 1;
     public static final int ALIVE = 2;
     
-    private int REPRODUCTION_THRESHOLD;
-    private int OVERPOP_THRESHOLD;
-    private int UNDERPOP_THRESHOLD;
+    private final Config config;
     
     private int newState = 0;
 
@@ -27,12 +24,19 @@ public class LifeCell extends Cell {
      * @param simSettings Collection of global simulation settings for this sim
      */
     public LifeCell(int initialState, Collection<Double> simSettings){
+        this(initialState, new Config(simSettings));
+    }
+    
+    /**
+     * Create a Game of Life cell sharing its grid's settings
+     *
+     * @see Cell#Cell
+     * @param simConfig settings shared by every cell of the grid
+     */
+    public LifeCell(int initialState, Config simConfig){
         super(initialState);
         newState = initialState;
-        ArrayList<Double> ss = new ArrayList<>(simSettings);
-        UNDERPOP_THRESHOLD = ss.get(0).intValue();
-        OVERPOP_THRESHOLD = ss.get(1).intValue();
-        REPRODUCTION_THRESHOLD = ss.get(2).intValue();
+        config = simConfig;
     }
     
     /**
@@ -41,11 +45,7 @@ public class LifeCell extends Cell {
      * @see Cell#Cell(int)
      */
     public LifeCell(int initialState){
-    	super(initialState);
-    	 UNDERPOP_THRESHOLD = 2;
-         OVERPOP_THRESHOLD = 3;
-         REPRODUCTION_THRESHOLD = 3;
-         newState = initialState;
+    	this(initialState, Config.CONWAY);
     }
     
     /**
@@ -53,7 +53,7 @@ public class LifeCell extends Cell {
      */
     @Override
     public boolean checkUpdate(){
-        shouldUpdate = isDying() ^ isBorn();
+        shouldUpdate = nextState(state, getAliveNeighborsCount(), config.getUnderpop(), config.getOverpop(), config.getReproduction()) != state;
         return shouldUpdate;
     }
 
@@ -70,66 +70,46 @@ public class LifeCell extends Cell {
     }
 
     /**
-     * Check if this cell should die
-     *
-     * @return is the cell alive and one of the death conditions are met? T/F
-     */
-    private boolean isDying(){
-        int aliveNeighbors = getAliveNeighborsCount();
-        return isAlive() && (isUnderpopulated(aliveNeighbors) || isOverpopulated(aliveNeighbors));
-    }
-
-    /**
-     * Check is this cell will be reborn
+     * The Game of Life rule, shared by LifeCell objects and the array engine's kernel
      *
-     * @return is the cell dead and is the birth condition met? T/F
-     */
-    private boolean isBorn(){
-        return isDead() && canReproduce();
-    }
-
-    /**
-     *
-     * @return can the cells around this one reproduce here? T/F
+     * @param state current state of the cell
+     * @param aliveNeighbors number of living neighbors
+     * @param underpop fewest living neighbors a living cell needs to survive
+     * @param overpop most living neighbors a living cell can have and survive
+     * @param reproduction number of living neighbors that brings a dead cell to life
+     * @return state of the cell next generation
      */
-    private boolean canReproduce(){
-        return getAliveNeighborsCount() == REPRODUCTION_THRESHOLD;
+    public static int nextState(int state, int aliveNeighbors, int underpop, int overpop, int reproduction){
+        if(isDying(state, aliveNeighbors, underpop, overpop)) return DEAD;
+        if(isBorn(state, aliveNeighbors, reproduction)) return ALIVE;
+        return state;
     }
 
     /**
-     * Check if the cell is being overpopulated by its neighbors
+     * Check if a cell should die
      *
-     * @param aliveNeighbors number of living neighbors
-     * @return is the cell overpopulated? T/F
+     * @return is the cell alive and one of the death conditions are met? T/F
      */
-    private boolean isOverpopulated(int aliveNeighbors){
-        return aliveNeighbors > OVERPOP_THRESHOLD;
+    private static boolean isDying(int state, int aliveNeighbors, int underpop, int overpop){
+        return state == ALIVE && (aliveNeighbors < underpop || aliveNeighbors > overpop);
     }
 
     /**
-     * Check if the cell is underpopulated
+     * Check if a cell will be reborn
      *
-     * @param aliveNeighbors number of living neighbors
-     * @return is the cell underpopulated? T/F
+     * @return is the cell dead and can the cells around it reproduce there? T/F
      */
-    private boolean isUnderpopulated(int aliveNeighbors){
-        return aliveNeighbors < UNDERPOP_THRESHOLD;
+    private static boolean isBorn(int state, int aliveNeighbors, int reproduction){
+        return state == DEAD && aliveNeighbors == reproduction;
     }
 
     /**
-     * Parse the states contained in neighborState and find the number alive
+     * Read the number alive from the neighbor state counts
      *
      * @return number of living neighbors
      */
     private int getAliveNeighborsCount(){
-    	return Collections.frequency(neighborState, ALIVE);
-//    	aliveNeighbors = 0;
-//    	
-//    	for(Cell c : neighbors){
-//    		if(c.getState() == LifeCell.ALIVE) aliveNeighbors++;
-//    	}
-//    	
-//        return aliveNeighbors;
+    	return countNeighbors(ALIVE);
     }
 
     //Check if this cell is alive
@@ -148,4 +128,97 @@ public class LifeCell extends Cell {
 		state = newState;
 
     }
+
+    /**
+     * Game of Life thresholds, read once per grid
+     */
+    public static class Config implements SimConfig {
+        public static final Config CONWAY = new Config(2, 3, 3);
+
+        private final int underpop;
+        private final int overpop;
+        private final int reproduction;
+
+        /**
+         * @param simSettings global simulation settings for this sim: underpop, overpop, reproduction
+         */
+        public Config(Iterable<Double> simSettings){
+            Iterator<Double> ss = simSettings.iterator();
+            underpop = ss.next().intValue();
+            overpop = ss.next().intValue();
+            reproduction = ss.next().intValue();
+        }
+
+        /**
+         * @param under fewest living neighbors a living cell needs to survive
+         * @param over most living neighbors a living cell can have and survive
+         * @param born number of living neighbors that brings a dead cell to life
+         */
+        public Config(int under, int over, int born){
+            underpop = under;
+            overpop = over;
+            reproduction = born;
+        }
+
+        /**
+         * @return fewest living neighbors a living cell needs to survive
+         */
+        public int getUnderpop(){
+            return underpop;
+        }
+
+        /**
+         * @return most living neighbors a living cell can have and survive
+         */
+        public int getOverpop(){
+            return overpop;
+        }
+
+        /**
+         * @return number of living neighbors that brings a dead cell to life
+         */
+        public int getReproduction(){
+            return reproduction;
+        }
+    }
+
+    /**
+     * Stateless Game of Life rule over neighbor state counts, used by the array engine
+     */
+    public static class Kernel implements CellKernel {
+        private final int underpop;
+        private final int overpop;
+        private final int reproduction;
+
+        /**
+         * @param simSettings Collection of global simulation settings for this sim
+         */
+        public Kernel(Collection<Double> simSettings){
+            this(new Config(simSettings));
+        }
+
+        /**
+         * @param simConfig settings shared by every cell of the grid
+         */
+        public Kernel(Config simConfig){
+            underpop = simConfig.getUnderpop();
+            overpop = simConfig.getOverpop();
+            reproduction = simConfig.getReproduction();
+        }
+
+        /**
+         * @see CellKernel#nextState(int, int[])
+         */
+        @Override
+        public int nextState(int state, int[] neighborCounts){
+            return LifeCell.nextState(state, neighborCounts[ALIVE], underpop, overpop, reproduction);
+        }
+
+        /**
+         * @return are these Conway's thresholds (survive on 2 or 3, born on 3)? T/F
+         */
+        public boolean isStandard(){
+            return underpop == 2 && overpop == 3 && reproduction == 3;
+        }
+    }
 }
@@ -1,7 +1,7 @@
 package CellGroup.Cell;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Random;
 
 public class RPSCell extends Cell{
@@ -9,6 +9,8 @@ public class RPSCell extends Cell{
 	public static final int ROCK = 1;
 	public static final int PAPER = 2;
 	public static final int SCISSORS = 3;
+	public static final int FADE_FIELD = 0;
+	public static final int FIELD_COUNT = 1;
 	private static final Random rn = new Random();
 
 	private int beats;
@@ -22,11 +24,20 @@ public class RPSCell extends Cell{
 	 * @param simSettings remainder of a collection parsed from XML to give this unit its behavior.
 	 */
 	public RPSCell(int intialState, Collection<Double> simSettings) {
+		this(intialState, new Config(simSettings));
+	}
+	
+	/**
+	 * Create a RPS sim cell sharing its grid's settings
+	 * 
+	 * @param intialState first state of this cell
+	 * @param simConfig settings shared by every cell of the grid
+	 */
+	public RPSCell(int intialState, Config simConfig) {
 		super(intialState);
 		beats = setBeats();
 		losesTo = setLoses();
-		ArrayList<Double> ss = new ArrayList<>(simSettings);
-		fadeDist = ss.get(0).intValue();
+		fadeDist = simConfig.getFadeDist();
 	}
 	
 	protected int setBeats(){
@@ -56,7 +67,7 @@ public class RPSCell extends Cell{
 	 * 
 	 */
 	public boolean update() throws Exception {
-		RPSCell cell = (RPSCell) neighbors.get(getRandIndex());
+		RPSCell cell = (RPSCell) getNeighbor(getRandIndex());
 		
 		if(cell.isEmpty() && fadeDist > 0 ){ 
 			copyTo(cell);
@@ -113,8 +124,37 @@ public class RPSCell extends Cell{
 		fadeDist++;
 	}
 
+	@Override
+	/**
+	 * @see Cell#getFieldCount()
+	 * 
+	 * Each cell keeps how much further it can spread
+	 */
+	public int getFieldCount(){
+		return FIELD_COUNT;
+	}
+	
+	@Override
+	/**
+	 * @see Cell#getField(int)
+	 */
+	public int getField(int k){
+		return k == FADE_FIELD? fadeDist: super.getField(k);
+	}
+	
+	@Override
+	/**
+	 * @see Cell#setField(int, int)
+	 */
+	public void setField(int k, int value){
+		if (k == FADE_FIELD)
+			setFade(value);
+		else
+			super.setField(k, value);
+	}
+
 	private int getRandIndex() {
-		return rn.nextInt(neighbors.size());
+		return rn.nextInt(getNeighborCount());
 	}
 
 	@Override
@@ -127,4 +167,26 @@ public class RPSCell extends Cell{
 		// TODO Auto-generated method stub
 		
 	}
+
+	/**
+	 * Rock paper scissors settings, read once per grid
+	 */
+	public static class Config implements SimConfig {
+		private final int fadeDist;
+
+		/**
+		 * @param simSettings global simulation settings for this sim: fade distance
+		 */
+		public Config(Iterable<Double> simSettings){
+			Iterator<Double> ss = simSettings.iterator();
+			fadeDist = ss.next().intValue();
+		}
+
+		/**
+		 * @return how far a new cell can spread before it fades
+		 */
+		public int getFadeDist(){
+			return fadeDist;
+		}
+	}
 }
@@ -1,8 +1,7 @@
 package CellGroup.Cell;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 /**
@@ -14,11 +13,12 @@ public class SegCell extends Cell{
     public static final int ONE = 1; //Two groups to be segregated
     public static final int TWO = 2;
 
-    private double HAPPINESS_RATIO;
+    private final Config config;
     
     private LinkedList<SegCell> pastLocations = new LinkedList<>();
     
-    private ArrayList<Integer> nextRound = new ArrayList<>();
+    private int[] nextRound = new int[EXPECTED_STATES];
+    private int nextRoundTotal;
     private boolean visited = false;
     
     
@@ -30,10 +30,20 @@ public class SegCell extends Cell{
      * @param simSettings Collection of global simulation settings for this sim
      */
     public SegCell(int initialState, Collection<Double> simSettings){
+        this(initialState, new Config(simSettings));
+    }
+    
+    /**
+     * Create a Segregation cell sharing its grid's settings
+     * 
+     * @see Cell#Cell(int)
+     * 
+     * @param simConfig settings shared by every cell of the grid
+     */
+    public SegCell(int initialState, Config simConfig){
         super(initialState);
-        ArrayList<Double> ss = new ArrayList<>(simSettings);
-        HAPPINESS_RATIO = ss.get(0);
-        setUpPastStates(ss.get(1).intValue());
+        config = simConfig;
+        setUpPastStates(config.getMemory());
     }
 
 	private void setUpPastStates(int target) {
@@ -48,9 +58,7 @@ public class SegCell extends Cell{
      * @see Cell#Cell(int)
      */
     public SegCell(int initialState){
-    	super(initialState);
-    	HAPPINESS_RATIO = 0.4;
-    	setUpPastStates(5);
+    	this(initialState, Config.DEFAULT);
     }
     
 
@@ -88,7 +96,7 @@ public class SegCell extends Cell{
      * @return if the cell's ratio of neighbors like itself is less than the required ratio to be happy
      */
     public boolean isUnhappy(){
-        return getNeighborRatio() < HAPPINESS_RATIO;
+        return getNeighborRatio() < config.getHappinessRatio();
     }
 
     /**
@@ -98,7 +106,7 @@ public class SegCell extends Cell{
      */
     private double getNeighborRatio() {
     	if(hasNonzeroNeighbors()){
-    		return (double) Collections.frequency(neighborState, (Integer) state) / (double) (neighborState.size() - Collections.frequency(neighborState, (Integer) Cell.EMPTY));
+    		return (double) countNeighbors(state) / (double) (neighborStateTotal - countNeighbors(Cell.EMPTY));
     	}
     	else
     	{
@@ -112,7 +120,7 @@ public class SegCell extends Cell{
      * @return if a neighbor is empty
      */
     private boolean hasEmptyNeighbor(){
-        return nextRound.contains(EMPTY);
+        return getCount(nextRound, EMPTY) > 0;
     }
 
     /**
@@ -123,8 +131,8 @@ public class SegCell extends Cell{
      */
     public boolean recursiveNeighborSearch(int newState, LinkedList<SegCell> oldStates){
         if(hasEmptyNeighbor()){
-        	for(Cell c : neighbors){
-        		SegCell sc = (SegCell) c;
+        	for(int k = 0; k < getNeighborCount(); k++){
+        		SegCell sc = (SegCell) getNeighbor(k);
         		if(sc.isEmpty() && !oldStates.contains(sc)){
                     moveToEmpty(sc, newState);
                     oldStates.pop();
@@ -134,9 +142,10 @@ public class SegCell extends Cell{
         	}
         }
         visited = true; //use getter
-        for(Cell c : neighbors){
-            if(!((SegCell) c).visited){
-            	if(((SegCell) c).recursiveNeighborSearch(newState, oldStates)){
+        for(int k = 0; k < getNeighborCount(); k++){
+            SegCell c = (SegCell) getNeighbor(k);
+            if(!c.visited){
+            	if(c.recursiveNeighborSearch(newState, oldStates)){
                     visited = false;
             		return true;
             	}
@@ -159,26 +168,71 @@ public class SegCell extends Cell{
      * @return does the cell have a neighbor that isn't 0? T/F
      */
     private boolean hasNonzeroNeighbors(){
-    	return (Collections.frequency(neighborState, (Integer) Cell.EMPTY) - neighborState.size() < 0.1); 
+    	return (countNeighbors(Cell.EMPTY) - neighborStateTotal < 0.1); 
     }
     
     @Override
     public void reset(){
     	shouldUpdate = false;
-    	neighborState.clear();
-    	neighborState.addAll(nextRound);
+    	if(neighborState.length != nextRound.length) neighborState = new int[nextRound.length];
+    	System.arraycopy(nextRound, 0, neighborState, 0, nextRound.length);
+    	neighborStateTotal = nextRoundTotal;
     	hasNotMoved = true;
     }
     
     @Override
     public void listenForState(int newState){
-    	neighborState.add(newState);
-    	nextRound.add(newState);
+    	super.listenForState(newState);
+    	nextRound = countState(nextRound, newState);
+    	nextRoundTotal++;
     }
     
     @Override
     public void listenForUpdate(int oldState, int newState){
-     	nextRound.remove(Integer.valueOf(oldState));
-    	nextRound.add(newState);
+     	if(uncountState(nextRound, oldState)) nextRoundTotal--;
+    	nextRound = countState(nextRound, newState);
+    	nextRoundTotal++;
+    }
+
+    /**
+     * Segregation settings, read once per grid
+     */
+    public static class Config implements SimConfig {
+        public static final Config DEFAULT = new Config(0.4, 5);
+
+        private final double happinessRatio;
+        private final int memory;
+
+        /**
+         * @param simSettings global simulation settings for this sim: happiness ratio, then how many past locations are remembered
+         */
+        public Config(Iterable<Double> simSettings){
+            Iterator<Double> ss = simSettings.iterator();
+            happinessRatio = ss.next();
+            memory = ss.next().intValue();
+        }
+
+        /**
+         * @param ratio fewest neighbors that must be like a cell for it to stay
+         * @param remembered how many past locations a cell remembers
+         */
+        public Config(double ratio, int remembered){
+            happinessRatio = ratio;
+            memory = remembered;
+        }
+
+        /**
+         * @return fewest neighbors that must be like a cell for it to stay, as a ratio
+         */
+        public double getHappinessRatio(){
+            return happinessRatio;
+        }
+
+        /**
+         * @return how many past locations a cell remembers
+         */
+        public int getMemory(){
+            return memory;
+        }
     }
- }
+}
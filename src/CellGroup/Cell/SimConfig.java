@@ -0,0 +1,10 @@
+package CellGroup.Cell;
+
+/**
+ * Settings of one simulation type, read once from the values left after the
+ * grid's own parameters and shared by every cell and kernel of the grid, so
+ * making a cell costs no more than its own state. Each cell type that takes
+ * settings has its own immutable Config implementing this.
+ */
+public interface SimConfig {
+}
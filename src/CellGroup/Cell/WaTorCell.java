@@ -1,7 +1,7 @@
 package CellGroup.Cell;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * @author Matthew Dickson
@@ -13,10 +13,10 @@ public class WaTorCell extends Cell {
 	public static final int STARTING_ROUNDS_LIVED = -1;
     public static final int MINNOW = 1;
     public static final int SHARK = 2;
-    private int reproduceNumber;
-    private int energyRegain;
-    private int startingEnergy;
-    private int energyLost;
+    public static final int ENERGY_FIELD = 0;
+    public static final int ROUNDS_LIVED_FIELD = 1;
+    public static final int FIELD_COUNT = 2;
+    private final Config config;
 
     private int nextState;
     private int roundsLived = STARTING_ROUNDS_LIVED;
@@ -29,27 +29,27 @@ public class WaTorCell extends Cell {
      * @param simSettings Collection of global simulation settings for this sim
      */
     public WaTorCell(int initialState, Collection<Double> simSettings){
+        this(initialState, new Config(simSettings));
+    }
+    
+    /**
+     * Create a Wa-Tor cell sharing its grid's settings
+     * @see Cell#Cell
+     * 
+     * @param simConfig settings shared by every cell of the grid
+     */
+    public WaTorCell(int initialState, Config simConfig){
         super(initialState);
         nextState = state;
-        ArrayList<Double> ss = new ArrayList<>(simSettings);
-        startingEnergy = ss.get(0).intValue();
-        energy = startingEnergy;
-        energyRegain = ss.get(1).intValue();
-        energyLost = ss.get(2).intValue();
-        reproduceNumber = ss.get(3).intValue();
+        config = simConfig;
+        energy = config.getStartingEnergy();
     }
     /**
      * Used for JUnit tests
      * @param initialState beginning state of this cell
      */
     public WaTorCell(int initialState){
-    	super(initialState);
-        nextState = state;
-        reproduceNumber = 3;
-        energyRegain = 2;
-        startingEnergy = 2;
-        energy = startingEnergy;
-        energyLost = 1;
+    	this(initialState, Config.DEFAULT);
     }
 
     /**
@@ -82,7 +82,7 @@ public class WaTorCell extends Cell {
     private void updateCurrentCell(){
     	if(canReproduce()){
             roundsLived = 0;
-            energy = startingEnergy;
+            energy = config.getStartingEnergy();
         }
         else {
             setState(EMPTY);
@@ -93,7 +93,7 @@ public class WaTorCell extends Cell {
      * Determine if this cell should reproduce this turn. Must be able to move to reproduce
      */
     private boolean canReproduce(){
-        return roundsLived >= reproduceNumber;
+        return roundsLived >= config.getReproduceNumber();
     }
 
     /**
@@ -101,10 +101,10 @@ public class WaTorCell extends Cell {
      */
     private void updateCellLocation() {
     	if(isEmpty()) return;
-    	for(Cell c : neighbors){
-    		WaTorCell cell = (WaTorCell) c;
+    	for(int k = 0; k < getNeighborCount(); k++){
+    		WaTorCell cell = (WaTorCell) getNeighbor(k);
     		if((cell.isEmpty() && cell.getNext() == Cell.EMPTY) || (cell.isMinnow() && cell.getNext() == WaTorCell.MINNOW && this.isShark()) ){
-    			if(cell.isMinnow() && isShark()) energy += energyRegain;
+    			if(cell.isMinnow() && isShark()) energy += config.getEnergyRegain();
     			copyInfoToCell(cell, state);
     			if(canReproduce()) cell.setRoundsLived(STARTING_ROUNDS_LIVED);
     			updateCurrentCell();
@@ -117,7 +117,7 @@ public class WaTorCell extends Cell {
      * Take energy from the shark each turn
      */
     private void updateSharkEnergy() {
-    	if(isShark()) energy -= energyLost;
+    	if(isShark()) energy -= config.getEnergyLost();
 	}
 
     /**
@@ -164,6 +164,40 @@ public class WaTorCell extends Cell {
         roundsLived = rl;
     }
 
+    /**
+     * @see Cell#getFieldCount()
+     *
+     * Sharks and minnows keep their energy and how long they have lived
+     */
+    @Override
+    public int getFieldCount(){
+        return FIELD_COUNT;
+    }
+
+    /**
+     * @see Cell#getField(int)
+     */
+    @Override
+    public int getField(int k){
+        switch(k){
+        case ENERGY_FIELD: return energy;
+        case ROUNDS_LIVED_FIELD: return roundsLived;
+        default: return super.getField(k);
+        }
+    }
+
+    /**
+     * @see Cell#setField(int, int)
+     */
+    @Override
+    public void setField(int k, int value){
+        switch(k){
+        case ENERGY_FIELD: setEnergy(value); break;
+        case ROUNDS_LIVED_FIELD: setRoundsLived(value); break;
+        default: super.setField(k, value);
+        }
+    }
+
     /**
      * Copy information over to a new cell
      *
@@ -224,4 +258,68 @@ public class WaTorCell extends Cell {
     public int getEnergy(){
     	return energy;
     }
+
+    /**
+     * Wa-Tor settings, read once per grid
+     */
+    public static class Config implements SimConfig {
+        public static final Config DEFAULT = new Config(2, 2, 1, 3);
+
+        private final int startingEnergy;
+        private final int energyRegain;
+        private final int energyLost;
+        private final int reproduceNumber;
+
+        /**
+         * @param simSettings global simulation settings for this sim: startingEnergy, energyRegain, energyLost, reproduceNumber
+         */
+        public Config(Iterable<Double> simSettings){
+            Iterator<Double> ss = simSettings.iterator();
+            startingEnergy = ss.next().intValue();
+            energyRegain = ss.next().intValue();
+            energyLost = ss.next().intValue();
+            reproduceNumber = ss.next().intValue();
+        }
+
+        /**
+         * @param starting energy of a newborn shark
+         * @param regain energy a shark gains eating a minnow
+         * @param lost energy a shark loses each round
+         * @param reproduce rounds an animal lives before it can reproduce
+         */
+        public Config(int starting, int regain, int lost, int reproduce){
+            startingEnergy = starting;
+            energyRegain = regain;
+            energyLost = lost;
+            reproduceNumber = reproduce;
+        }
+
+        /**
+         * @return energy of a newborn shark
+         */
+        public int getStartingEnergy(){
+            return startingEnergy;
+        }
+
+        /**
+         * @return energy a shark gains eating a minnow
+         */
+        public int getEnergyRegain(){
+            return energyRegain;
+        }
+
+        /**
+         * @return energy a shark loses each round
+         */
+        public int getEnergyLost(){
+            return energyLost;
+        }
+
+        /**
+         * @return rounds an animal lives before it can reproduce
+         */
+        public int getReproduceNumber(){
+            return reproduceNumber;
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package CellGroup;
 /**
- * Creates ArrayList of Cells and ArrayList of polygons. Controls and 
- * maintains cells (calls update and reset) and controls and maintains 
+ * Creates the starting cell states and ArrayList of polygons. Controls and 
+ * maintains cells through an Engine (calls update) and controls and maintains 
  * polygons (draws and updates color according to corresponding cell).
  * Also checks inputs and throws IOExceptions if invalid. Inherited
  * by shape-defining subclasses.
  * 
+ * Can be stepped on the JavaFX thread with update, or on a simulation thread
+ * with step and publish while the JavaFX thread draws snapshots with show.
+ * In that case mouse edits are queued and applied by the simulation thread.
+ * 
  * @author Natalie Huffman
  */
 import java.io.IOException;
@@ -13,14 +17,28 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import CellGroup.Cell.Cell;
+import CellGroup.Cell.CellKernel;
 import CellGroup.Cell.FireCell;
 import CellGroup.Cell.LifeCell;
 import CellGroup.Cell.RPSCell;
 import CellGroup.Cell.SegCell;
+import CellGroup.Cell.SimConfig;
 import CellGroup.Cell.WaTorCell;
+import CellGroup.Engine.ArrayEngine;
+import CellGroup.Engine.BitwiseLifeEngine;
+import CellGroup.Engine.Engine;
+import CellGroup.Engine.HashLifeEngine;
+import CellGroup.Engine.ObjectEngine;
+import Util.SimulationData;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
@@ -35,16 +53,36 @@ public abstract class CellGroup {
 	public static final int WATOR = 3;
 	public static final int LIFE = 2;
 	public static final int FIRE = 1;
+	public static final int AUTO_ENGINE = -1;
+	public static final int OBJECT_ENGINE = 0;
+	public static final int ARRAY_ENGINE = 1;
+	public static final int PARALLEL_ENGINE = 2;
+	// only on request: the pattern lives on an unbounded plane, so unlike every other engine cells past the edge stay alive
+	public static final int HASHLIFE_ENGINE = 3;
+	public static final int BITWISE_ENGINE = 4;
+	public static final int RASTER_THRESHOLD = 100*100;
+	public static final int PARALLEL_THRESHOLD = 250*250;
+	private static final byte UNASSIGNED = -1;
+	public static final int NO_CELL = -1;
 	public static final Paint[] STATE_COLORS = {Color.WHITE, Color.RED, Color.BLUE, Color.GREEN};
 	public static final List<KeyCode> ALLOWED_KEYS = Arrays.asList( new KeyCode[] {KeyCode.E, KeyCode.R, KeyCode.B, KeyCode.G});
 	
 	private LinkedList<Double> configInfo = new LinkedList<Double>();
+	private SimConfig simConfig;
 	private double[] cellRatio;
-	protected List<Cell> cellList;
+	private byte[] initialStates;
+	private int engineMode;
+	protected Engine engine;
+	private NeighborTable neighborTable;
+	private StepMetrics metrics = new StepMetrics();
+	private volatile long generation;
 	protected int cellWidth;
 	protected int cellHeight;
 	protected int simType;
 	protected List<Polygon> grid;
+	protected double[][] vertices;
+	private RasterRenderer renderer;
+	private Viewport viewport;
 	private int[] cellStates;
 	private int numStates;
 	private int stroke;
@@ -52,16 +90,38 @@ public abstract class CellGroup {
 	protected int torus;
 	private KeyCode currentlyPressed;
 	private int numSpecifiedCells;
+	private byte[] shownStates;
+	private int[] shownChanges;
+	private final Queue<int[]> pendingEdits = new ConcurrentLinkedQueue<>();
+	private volatile boolean editsQueued;
 
 	/**
 	 * Pulls parameters from list to store locally if needed, creates cells
+	 * with the fastest engine the simulation supports
 	 * 
 	 * @param configList	List containing all instance variables + extra info
 	 * 						needed by Cell classes; this extra info is unique to each subclass
 	 * @throws IOException	if received parameters are invalid 
 	 */
 	public CellGroup(List<Double> configList) throws IOException{
+		this(configList, AUTO_ENGINE);
+	}
+	
+	/**
+	 * Pulls parameters from list to store locally if needed, creates cells
+	 * 
+	 * @param configList	List containing all instance variables + extra info
+	 * 						needed by Cell classes; this extra info is unique to each subclass
+	 * @param engine		which engine steps the cells: OBJECT_ENGINE, ARRAY_ENGINE,
+	 * 						PARALLEL_ENGINE, HASHLIFE_ENGINE, BITWISE_ENGINE or AUTO_ENGINE.
+	 * 						AUTO_ENGINE never picks HashLife, which does not treat the
+	 * 						edge as dead, so a grid only runs on it when asked to.
+	 * @throws IOException	if received parameters are invalid or the engine
+	 * 						does not support this simulation type
+	 */
+	public CellGroup(List<Double> configList, int engine) throws IOException{
 		configInfo = (LinkedList<Double>) configList;
+		engineMode = engine;
 
 		initInstanceVar();
 		checkValidValues();
@@ -69,6 +129,63 @@ public abstract class CellGroup {
 		initCells();
 	}
 	
+	/**
+	 * Takes parameters straight from a parsed simulation file, creates cells
+	 * 
+	 * @param data			everything the simulation file specifies
+	 * @param engine		which engine steps the cells, as in CellGroup(List, int)
+	 * @throws IOException	if the parameters are invalid or the engine
+	 * 						does not support this simulation type
+	 */
+	public CellGroup(SimulationData data, int engine) throws IOException{
+		engineMode = engine;
+		generation = data.getGeneration();
+		stroke = data.getStroke();
+		neighborConfigState = data.getNeighborConfig();
+		torus = data.getTorus();
+		simType = data.getSimType();
+		cellWidth = data.getGridWidth();
+		cellHeight = data.getGridHeight();
+		numStates = data.getNumStates();
+		numSpecifiedCells = data.getSpecifiedCount();
+		initialStates = new byte[cellWidth*cellHeight];
+		Arrays.fill(initialStates, UNASSIGNED);
+		
+		if (data.getStates() != null){
+			if (data.getStates().length != initialStates.length) throw new IOException("Invalid XML specifications!");
+			numSpecifiedCells = initialStates.length;
+			for (int i = 0; i < numSpecifiedCells; i++)
+				specifyCell(data.getStates()[i], i);
+		}
+		for (int k = 0; k < data.getSpecifiedCount(); k++)
+			specifyCell(data.getCellState(k), data.getCellIndex(k));
+		for (int k = 0; k < data.getRunCount(); k++){
+			int start = data.getRunStart(k);
+			for (int i = start; i < start + data.getRunLength(k); i++)
+				specifyCell(data.getRunState(k), i);
+			numSpecifiedCells += Math.max(0, data.getRunLength(k));
+		}
+		
+		if (data.getStateCounts().length<numStates) throw new IOException("Not enough inputs passed!");
+		
+		cellStates = Arrays.copyOf(data.getStateCounts(), numStates);
+		for (double setting: data.getSettings())
+			configInfo.add(setting);
+		initRatio();
+		checkValidValues();
+		
+		initCells();
+		if (data.getFieldCount() > 0)
+			restoreFields(data.getFieldCount(), data.getFields());
+	}
+	
+	private void restoreFields(int count, int[] fields) throws IOException{
+		if (!(engine instanceof ObjectEngine) || ((ObjectEngine) engine).getFieldCount() != count 
+				|| fields == null || fields.length != count*cellWidth*cellHeight)
+			throw new IOException("Saved cell fields do not match this simulation!");
+		((ObjectEngine) engine).setFields(fields);
+	}
+	
 	private void initInstanceVar() throws IOException{			
 		stroke = configInfo.removeFirst().intValue();
 		neighborConfigState = configInfo.removeFirst().intValue();
@@ -78,7 +195,8 @@ public abstract class CellGroup {
 		cellHeight = configInfo.removeFirst().intValue();
 		numStates = configInfo.removeFirst().intValue();
 		numSpecifiedCells = configInfo.removeFirst().intValue();
-		cellList = Arrays.asList(new Cell[cellWidth*cellHeight]);
+		initialStates = new byte[cellWidth*cellHeight];
+		Arrays.fill(initialStates, UNASSIGNED);
 
 		initSpecifiedCells();
 		
@@ -88,6 +206,10 @@ public abstract class CellGroup {
 		for (int i = 0; i < numStates; i++)
 			cellStates[i] = configInfo.removeFirst().intValue();		
 
+		initRatio();
+	}
+	
+	private void initRatio(){
 		int totalCells = cellWidth * cellHeight;
 		cellRatio = new double[cellStates.length+1];
 		cellRatio[0] = 0;
@@ -101,19 +223,23 @@ public abstract class CellGroup {
 		for (int i = 0; i < numSpecifiedCells; i++){
 			int state = configInfo.removeFirst().intValue();
 			int dex = configInfo.removeFirst().intValue();
-			if (state < 0 || state >= numStates || !isValid(dex))
-				throw new IOException("Invalid XML specifications!");
-
-			cellList.set(dex, cellType(state));
+			specifyCell(state, dex);
 		}
 	}
 	
+	private void specifyCell(int state, int dex) throws IOException{
+		if (state < 0 || state >= numStates || !isValid(dex))
+			throw new IOException("Invalid XML specifications!");
+
+		initialStates[dex] = (byte) state;
+	}
+	
 	private void checkValidValues() throws IOException{
 		if (cellWidth <= 0 || cellHeight <= 0 || 
 				simType <= 0 ||
 				stroke < 0 || stroke > 1 || 
 				torus < 0 || torus > 1 ||
-				numStates <= 0 )
+				numStates <= 0 || numStates > Byte.MAX_VALUE )
 			throw new IOException("Invalid XML specifications!");
 		
 		int total = 0;
@@ -124,22 +250,84 @@ public abstract class CellGroup {
 	}
 	
 	/**
-	 * creates and initializes array of cell objects
+	 * fills in the states of all unspecified cells and creates the engine
+	 * 
+	 * @throws IOException	if the requested engine does not support this simulation type
 	 */
-	protected void initCells(){
+	protected void initCells() throws IOException{
 		int[] tempStates = Arrays.copyOf(cellStates, cellStates.length);
 		for (int i = 0; i < cellWidth*cellHeight; i++){
-			if (cellList.get(i) == null){
-				int state = pickState(tempStates);
-				cellList.set(i, cellType(state));
-			}
+			if (initialStates[i] == UNASSIGNED)
+				initialStates[i] = (byte) pickState(tempStates);
 		}
 		
-		neighborFill();
+		engine = createEngine(initialStates);
+		engine.setMetrics(metrics);
+		initialStates = null;
+	}
+	
+	private Engine createEngine(byte[] states) throws IOException{
+		simConfig = configType();
+		CellKernel kernel = kernelType();
+		if (engineMode == HASHLIFE_ENGINE){
+			checkHashLife(kernel, states);
+			return new HashLifeEngine(states, cellWidth, cellHeight);
+		}
 		
-		for (Cell c:cellList)
-			c.pushStateToNeighbors();
-
+		if (engineMode == BITWISE_ENGINE || (engineMode == AUTO_ENGINE && canRunBitwise())){
+			if (!canRunBitwise())
+				throw new IOException("The bitwise engine only runs Game of Life on a square grid!");
+			return new BitwiseLifeEngine(states, cellWidth, cellHeight, neighborConfigState != 1, 
+					neighborConfigState != 0, wrapsEdges(), kernel);
+		}
+		
+		if ((engineMode == ARRAY_ENGINE || engineMode == PARALLEL_ENGINE) && kernel == null)
+			throw new IOException("The array engine cannot run this simulation type!");
+		
+		if (engineMode != OBJECT_ENGINE && kernel != null)
+			return new ArrayEngine(states, getNeighborTable().heardFrom(), kernel, Math.max(numStates, STATE_COLORS.length),
+					cellWidth, arrayThreads(states.length));
+		
+		List<Cell> cells = new ArrayList<>(states.length);
+		for (byte state: states)
+			cells.add(cellType(state));
+		return new ObjectEngine(cells, getNeighborTable());
+	}
+	
+	/**
+	 * In grids one or two cells wide the edge rules add and remove the same
+	 * neighbor, which only the neighbor table reproduces
+	 */
+	private boolean canRunBitwise(){
+		return simType == LIFE && isSquareGrid() && cellWidth > 2;
+	}
+	
+	private void checkHashLife(CellKernel kernel, byte[] states) throws IOException{
+		if (simType != LIFE || !isSquareGrid() || neighborConfigState != 2 || torus != 0 || !((LifeCell.Kernel) kernel).isStandard())
+			throw new IOException("HashLife only runs standard Game of Life on a square grid without a torus!");
+		for (byte state: states)
+			if (state != LifeCell.ALIVE && state != LifeCell.DEAD)
+				throw new IOException("HashLife needs every cell to be alive or dead!");
+	}
+	
+	/**
+	 * @return	true if cells are squares in rows, so each row of states is
+	 * 			a row on screen and neighbors are the cells around it
+	 */
+	protected boolean isSquareGrid(){
+		return false;
+	}
+	
+	/**
+	 * Small grids step faster on one thread than they would waiting on a pool
+	 * 
+	 * @param totalCells	number of cells in the grid
+	 * @return	how many threads the array engine should step with
+	 */
+	private int arrayThreads(int totalCells){
+		boolean parallel = engineMode == PARALLEL_ENGINE || 
+				(engineMode == AUTO_ENGINE && totalCells >= PARALLEL_THRESHOLD);
+		return parallel? Runtime.getRuntime().availableProcessors(): 1;
 	}
 	
 	private int pickState(int[] tempStates){
@@ -155,31 +343,74 @@ public abstract class CellGroup {
 		}
 	}
 	
+	/**
+	 * Reads this simulation type's settings once, for every cell and kernel to share
+	 * 
+	 * @throws IOException	if there are not enough settings
+	 */
+	private SimConfig configType() throws IOException{
+		try {
+			switch (simType){
+				case FIRE: return new FireCell.Config(configInfo);
+				case LIFE: return new LifeCell.Config(configInfo);
+				case WATOR: return new WaTorCell.Config(configInfo);
+				case SEG: return new SegCell.Config(configInfo);
+				case RPS: return new RPSCell.Config(configInfo);
+			}
+		} catch (NoSuchElementException e) {
+			throw new IOException("Not enough inputs passed!");
+		}
+		return null;
+	}
+	
 	private Cell cellType(int state){
 		switch (simType){
-			case FIRE: return new FireCell(state, configInfo);
-			case LIFE: return new LifeCell(state, configInfo);
-			case WATOR: return new WaTorCell(state, configInfo);
-			case SEG: return new SegCell(state, configInfo);
-			case RPS: return new RPSCell(state, configInfo);
+			case FIRE: return new FireCell(state, (FireCell.Config) simConfig);
+			case LIFE: return new LifeCell(state, (LifeCell.Config) simConfig);
+			case WATOR: return new WaTorCell(state, (WaTorCell.Config) simConfig);
+			case SEG: return new SegCell(state, (SegCell.Config) simConfig);
+			case RPS: return new RPSCell(state, (RPSCell.Config) simConfig);
 		}
 		return null;
 	}
 	
-	private void neighborFill(){
-		for (int i = 0; i < cellWidth*cellHeight; i++){
-			cellList.get(i).setNeighbors(neighborReturn(i));
+	/**
+	 * @return	the stateless rule for this simulation type, or null if its
+	 * 			cells need to be objects (they move or remember things)
+	 */
+	private CellKernel kernelType(){
+		switch (simType){
+			case FIRE: return new FireCell.Kernel((FireCell.Config) simConfig);
+			case LIFE: return new LifeCell.Kernel((LifeCell.Config) simConfig);
 		}
+		return null;
+	}
+	
+	/**
+	 * @return	the shared neighbor table for this group's shape, size, 
+	 * 			neighbor configuration and edge type
+	 */
+	private NeighborTable neighborFill(){
+		String layout = getClass().getName() + ":" + cellWidth + "x" + cellHeight
+				+ ":" + neighborConfigState + ":" + (wrapsEdges()? 1: 0);
+		return NeighborTable.forGroup(layout, this);
+	}
+	
+	/**
+	 * @return	whether cells on the left and right edges neighbor each other
+	 */
+	protected boolean wrapsEdges(){
+		return simType == WATOR || torus == 1;
 	}
 	
 	/**
 	 * finds neighboring cells based on cell index and algorithm
 	 * specified by xml file
 	 * 
-	 * @param i		the index of the cell
-	 * @return		a list of neighboring cells
+	 * @param i				the index of the cell
+	 * @param neighbors		the table to add the indices of neighboring cells to
 	 */
-	protected abstract List<Cell> neighborReturn(int i);
+	protected abstract void findNeighbors(int i, NeighborTable.Builder neighbors);
 	
 	/**
 	 * calculates state proportions for the cells
@@ -188,12 +419,86 @@ public abstract class CellGroup {
 	 */
 	public int[] getCellStates() {
 		int[] stateCounts = new int[numStates];
-		for(Cell cell : cellList) {
-			stateCounts[cell.getState()] += 1;
-		}
+		countStates(stateCounts);
 		return stateCounts;
 	}
 	
+	/**
+	 * Copies the engine's running count of the cells in each state into an
+	 * array kept by the caller, so counting every generation neither scans
+	 * the grid nor allocates
+	 * 
+	 * @param stateCounts	overwritten with how many cells each state has; at least numStates long
+	 */
+	public void countStates(int[] stateCounts) {
+		engine.countStates(stateCounts);
+		Arrays.fill(stateCounts, Math.min(numStates, stateCounts.length), stateCounts.length, 0);
+	}
+	
+	/**
+	 * @return	number of possible states
+	 */
+	public int getNumStates(){
+		return numStates;
+	}
+	
+	/**
+	 * @return	number of cells in a row
+	 */
+	public int getCellWidth(){
+		return cellWidth;
+	}
+	
+	/**
+	 * @return	number of rows
+	 */
+	public int getCellHeight(){
+		return cellHeight;
+	}
+	
+	/**
+	 * Built the first time it is asked for, since the bitwise and HashLife
+	 * engines find neighbors themselves and never need it
+	 * 
+	 * @return	the shared table of every cell's neighbors
+	 */
+	public NeighborTable getNeighborTable(){
+		if (neighborTable == null)
+			neighborTable = neighborFill();
+		return neighborTable;
+	}
+	
+	/**
+	 * @return	the engine stepping this group's cells
+	 */
+	public Engine getEngine(){
+		return engine;
+	}
+	
+	/**
+	 * Draws the grid the way that stays fast at its size: one Polygon per cell
+	 * for small grids, a single image above RASTER_THRESHOLD cells, and a
+	 * zoomable viewport when the shape provides one for grids too big to show
+	 * 
+	 * @return	node to add to the scene
+	 */
+	public Node drawGrid(){
+		viewport = createViewport();
+		if (viewport != null)
+			return drawViewport();
+		if (cellWidth*cellHeight >= RASTER_THRESHOLD)
+			return drawImage();
+		
+		Group shapes = new Group();
+		shapes.getChildren().addAll(drawShapes());
+		shapes.setOnMouseClicked(e -> {
+			int index = cellAt(e.getX(), e.getY());
+			if (index != NO_CELL)
+				handleMouse(e, index);
+		});
+		return shapes;
+	}
+	
 	/**
 	 * Instantiates 2D Rectangle object and draws them on the scene
 	 * 
@@ -203,46 +508,307 @@ public abstract class CellGroup {
 		grid = Arrays.asList(new Polygon[cellWidth*cellHeight]);
 		
 		for (int i = 0; i < cellWidth*cellHeight; i++){
-    		grid.set(i, new Polygon(calcPoints(i)));
-    		int index = i;
-    		grid.get(i).setOnMouseClicked(e -> handleMouse(e, index));
+    		grid.set(i, new Polygon(getVertices()[i]));
 	    	if (stroke==1)
 	    		grid.get(i).setStroke(Color.WHITE);
     	}
     	
 		updateColor();
+		initShown();
 		
 		return grid;
 	}
 	
+	/**
+	 * Rasterizes every cell into one image, colored by state
+	 * 
+	 * @return	the view showing the image
+	 */
+	public ImageView drawImage(){
+		renderer = new RasterRenderer(getVertices(), STATE_COLORS, stroke==1);
+		renderer.setOnCellClicked((e, index) -> handleMouse(e, index));
+		renderer.render(engine.getStates());
+		initShown();
+		return renderer.getView();
+	}
+	
+	/**
+	 * @return	a viewport to draw the grid through, or null to draw every cell
+	 * 			at its calculated points
+	 */
+	protected Viewport createViewport(){
+		return null;
+	}
+	
+	private ImageView drawViewport(){
+		viewport.setOnCellClicked((e, index) -> handleMouse(e, index));
+		viewport.render(engine.getStates());
+		initShown();
+		return viewport.getView();
+	}
+	
+	private void initShown(){
+		shownStates = Arrays.copyOf(engine.getStates(), cellWidth*cellHeight);
+		shownChanges = new int[shownStates.length];
+	}
+	
+	/**
+	 * @return	every cell's polygon coordinates, calculated in parallel the
+	 * 			first time they are needed
+	 */
+	protected double[][] getVertices(){
+		if (vertices == null){
+			vertices = new double[cellWidth*cellHeight][];
+			Arrays.parallelSetAll(vertices, this::calcPoints);
+		}
+		return vertices;
+	}
+	
 	/**
 	 * Calculates the coordinate points for a polygon of any particular index
+	 * from its row and column alone, so cells can be laid out in any order
 	 * 
 	 * @param i		index number of cell
 	 * @return		list of x and y coordinate points
 	 */
 	protected abstract double[] calcPoints(int i);
 	
+	/**
+	 * Finds the cell drawn at a point in constant time, from the same math
+	 * calcPoints uses rather than by searching the polygons
+	 * 
+	 * @param x		x coordinate in the scene
+	 * @param y		y coordinate in the scene
+	 * @return		index number of the cell at the point, or NO_CELL if there is none
+	 */
+	public abstract int cellAt(double x, double y);
+	
+	/**
+	 * Moves a shape's template to a cell
+	 * 
+	 * @param x			x coordinate of the cell's first point
+	 * @param y			y coordinate of the cell's first point
+	 * @param template	x and y offsets of every point from the first
+	 * @return		list of x and y coordinate points
+	 */
+	protected static double[] place(double x, double y, double[] template){
+		double[] d = new double[template.length];
+		for (int k = 0; k < d.length; k += 2){
+			d[k] = x + template[k];
+			d[k+1] = y + template[k+1];
+		}
+		return d;
+	}
+	
 	private void updateColor(){
-		for (int i = 0; i < cellWidth; i ++)
-			for (int j = 0; j < cellHeight; j++)
-				grid.get(i*cellHeight+j).setFill(STATE_COLORS[cellList.get(i*cellHeight+j).getState()]);
+		byte[] states = engine.getStates();
+		for (int i = 0; i < cellWidth*cellHeight; i++)
+			grid.get(i).setFill(STATE_COLORS[states[i]]);
 	}
 	
 	/**
-	 * Calls on each cell to update, then calls on each cell to push its
-	 * updated state to all of its neighbors. Also updates color of Rectangles
+	 * Recolors the given cells in whichever way the grid was drawn
+	 * 
+	 * @param states	state of every cell, indexed by cell number
+	 * @param changed	indices of the cells to recolor, in increasing order
+	 * @param count		how many entries of changed are valid
+	 */
+	private void recolor(byte[] states, int[] changed, int count){
+		if (grid != null)
+			for (int k = 0; k < count; k++)
+				grid.get(changed[k]).setFill(STATE_COLORS[states[changed[k]]]);
+		if (renderer != null)
+			renderer.render(states, changed, count);
+		if (viewport != null)
+			viewport.render(states, changed, count);
+	}
+	
+	/**
+	 * Has the engine step every cell forward one generation. Also updates 
+	 * color of the Polygons or image pixels whose cells changed, if drawn
 	 * 
 	 * @throws Exception
 	 */
 	public void update() throws Exception {
-		for (Cell c: cellList)
-			c.update();
-		
-		for (Cell c: cellList)
-			c.reset();
+		metrics.startStep();
+		engine.update();
+		generation += engine.getGenerationsPerUpdate();
 		
-		updateColor();
+		long start = metrics.startPhase();
+		if (grid != null || renderer != null || viewport != null)
+			recolor(engine.getStates(), engine.getChangedCells(), engine.getChangedCount());
+		metrics.endPhase(StepMetrics.COLOR_PHASE, start);
+		metrics.endStep();
+	}
+	
+	/**
+	 * Has the engine step every cell forward one generation without drawing,
+	 * after applying any queued mouse edits. For the simulation thread.
+	 * 
+	 * @throws Exception
+	 */
+	public void step() throws Exception {
+		applyEdits();
+		metrics.startStep();
+		engine.update();
+		generation += engine.getGenerationsPerUpdate();
+		metrics.endStep();
+	}
+	
+	/**
+	 * Applies mouse edits queued by the JavaFX thread. For the simulation thread.
+	 * 
+	 * @return	whether any cell was edited
+	 */
+	public boolean applyEdits(){
+		boolean edited = false;
+		for (int[] edit = pendingEdits.poll(); edit != null; edit = pendingEdits.poll()){
+			engine.setState(edit[0], edit[1]);
+			edited = true;
+		}
+		return edited;
+	}
+	
+	/**
+	 * Copies the current generation into the exchange's back snapshot and
+	 * publishes it. For the simulation thread.
+	 * 
+	 * @param exchange	exchange made by createExchange
+	 */
+	public void publish(SnapshotExchange exchange){
+		exchange.getBack().copy(getGeneration(), engine.getStates());
+		exchange.publish();
+	}
+	
+	/**
+	 * @return	an exchange with snapshots sized for this grid
+	 */
+	public SnapshotExchange createExchange(){
+		return new SnapshotExchange(cellWidth*cellHeight, numStates);
+	}
+	
+	/**
+	 * Recolors the Polygons or image pixels of every cell whose state differs
+	 * from the last generation shown. For the JavaFX thread, after drawGrid.
+	 * 
+	 * @param snapshot	generation to show
+	 */
+	public void show(Snapshot snapshot){
+		long start = metrics.startPhase();
+		byte[] states = snapshot.getStates();
+		int count = 0;
+		for (int i = 0; i < states.length; i++){
+			if (states[i] != shownStates[i]){
+				shownStates[i] = states[i];
+				shownChanges[count++] = i;
+			}
+		}
+		recolor(states, shownChanges, count);
+		metrics.endPhase(StepMetrics.COLOR_PHASE, start);
+	}
+	
+	/**
+	 * Sets whether mouse edits go to the engine right away or wait in a queue
+	 * for the simulation thread
+	 * 
+	 * @param queued	true while a simulation thread is stepping this group
+	 */
+	public void setEditsQueued(boolean queued){
+		editsQueued = queued;
+	}
+	
+	/**
+	 * @return	the generation the cells are in, counting from the start of
+	 * 			the simulation they were saved from, if any
+	 */
+	public long getGeneration(){
+		return generation;
+	}
+	
+	/**
+	 * Sets how far each update jumps. Only HashLife can jump, in powers of two.
+	 * 
+	 * @param log2	each update advances 2^log2 generations
+	 * @throws IllegalArgumentException	if the engine cannot step that far at once
+	 */
+	public void setStepLog2(int log2){
+		if (engine instanceof HashLifeEngine)
+			((HashLifeEngine) engine).setStepLog2(log2);
+		else if (log2 != 0)
+			throw new IllegalArgumentException("Only the HashLife engine can step more than one generation at a time!");
+	}
+	
+	/**
+	 * @return	how many generations each update advances
+	 */
+	public long getGenerationsPerUpdate(){
+		return engine.getGenerationsPerUpdate();
+	}
+	
+	/**
+	 * @return	timing and counts of every step taken so far
+	 */
+	public StepMetrics getMetrics(){
+		return metrics;
+	}
+	
+	/**
+	 * Copies the current generation, with any extra fields the cells keep, for
+	 * saving as a snapshot. Must be called from the thread stepping the cells.
+	 * 
+	 * @param shape		0 for squares, 1 for hexagons, 2 for triangles
+	 * @return	everything needed to resume from this generation
+	 */
+	public SimulationData getSimData(int shape){
+		SimulationData data = globalSimData(shape);
+		int fieldCount = 0;
+		int[] fields = null;
+		if (engine instanceof ObjectEngine){
+			fieldCount = ((ObjectEngine) engine).getFieldCount();
+			fields = new int[fieldCount*cellWidth*cellHeight];
+			((ObjectEngine) engine).getFields(fields);
+		}
+		data.setGrid(getGeneration(), engine.getStates().clone(), fieldCount, fields);
+		return data;
+	}
+	
+	/**
+	 * Copies the current generation into data from getSimData(int), reusing its
+	 * arrays, for saving it again later without allocating. Must be called
+	 * from the thread stepping the cells.
+	 * 
+	 * @param data	data made by getSimData(int) for this group
+	 */
+	public void copySimData(SimulationData data){
+		System.arraycopy(engine.getStates(), 0, data.getStates(), 0, data.getStates().length);
+		if (data.getFieldCount() > 0)
+			((ObjectEngine) engine).getFields(data.getFields());
+		data.setGrid(getGeneration(), data.getStates(), data.getFieldCount(), data.getFields());
+	}
+	
+	/**
+	 * Wraps a published generation for saving, without copying it or the cells'
+	 * extra fields. For the JavaFX thread.
+	 * 
+	 * @param shape		0 for squares, 1 for hexagons, 2 for triangles
+	 * @param snapshot	generation to save, which must not be published into until saved
+	 * @return	the snapshot's states with this group's settings
+	 */
+	public SimulationData getSimData(int shape, Snapshot snapshot){
+		SimulationData data = globalSimData(shape);
+		data.setGrid(snapshot.getGeneration(), snapshot.getStates(), 0, null);
+		return data;
+	}
+	
+	private SimulationData globalSimData(int shape){
+		SimulationData data = new SimulationData();
+		data.setGlobals(shape, stroke, neighborConfigState, torus, simType, cellWidth, cellHeight, numStates);
+		double[] settings = new double[configInfo.size()];
+		int k = 0;
+		for (double d: configInfo)
+			settings[k++] = d;
+		data.setSettings(settings);
+		return data;
 	}
 	
 	/**
@@ -251,10 +817,21 @@ public abstract class CellGroup {
 	 * @return List containing all data from cell group needed to recreate this state
 	 */
 	public List<String> getSimInfoCopy(){
+		return getSimInfoCopy(engine.getStates());
+	}
+	
+	/**
+	 * Get all the needed information to save a generation, e.g. one shown from
+	 * a snapshot while the simulation thread keeps stepping.
+	 * 
+	 * @param states	state of every cell, indexed by cell number
+	 * @return List containing all data from cell group needed to recreate this state
+	 */
+	public List<String> getSimInfoCopy(byte[] states){
 		List<String> returnList = new ArrayList<>();
 		addGlobalSimData(returnList);
 		returnList.add("" + cellWidth * cellHeight); // tell the parser how much data to expect
-		for(Cell c : cellList) returnList.add("" + c.getState());
+		for(byte state : states) returnList.add("" + state);
 		for(Double d : configInfo) returnList.add(d.toString());
 
 		return returnList;
@@ -271,7 +848,7 @@ public abstract class CellGroup {
 	}
 	
 	/**
-	 * Checks index validity for cellList
+	 * Checks index validity for the grid
 	 * 
 	 * @param dex	the index number of the cell
 	 * @return	whether or not the index is a valid cell
@@ -302,6 +879,19 @@ public abstract class CellGroup {
 		return j;
 	}
 	
+	/**
+	 * Returns index number from row and column number
+	 * 
+	 * @param i		the row number
+	 * @param j		the column number
+	 * @return	the associated index number, or NO_CELL if outside the grid
+	 */
+	protected int numFromIJ(int i, int j){
+		if (i < 0 || i >= cellHeight || j < 0 || j >= cellWidth)
+			return NO_CELL;
+		return i*cellWidth + j;
+	}
+	
 	/**
 	 * Checks for left vs right sided cells
 	 * 
@@ -313,27 +903,27 @@ public abstract class CellGroup {
 	}
 	
 	/**
-	 * adds cells of index specified to the arraylist
+	 * adds cells of index specified to the neighbor list
 	 * 
 	 * @param neighbors		the list of neighbors
 	 * @param indices		indices of cells to add
 	 */
-	protected void add(List<Cell> neighbors, int[] indices){
+	protected void add(NeighborTable.Builder neighbors, int[] indices){
 		for (int dex: indices)
 			if (isValid(dex))
-				neighbors.add(cellList.get(dex));
+				neighbors.add(dex);
 	}
 	
 	/**
-	 * removes cells of index specified from the arraylist
+	 * removes cells of index specified from the neighbor list, if they were added
 	 * 
 	 * @param neighbors		the list of neighbors
 	 * @param indices		indices of cells to remove
 	 */
-	protected void remove(List<Cell> neighbors, int[] indices){
+	protected void remove(NeighborTable.Builder neighbors, int[] indices){
 		for (int dex: indices)
 			if (isValid(dex))
-				neighbors.add(cellList.get(dex));
+				neighbors.remove(dex);
 	}
 	
 	/**
@@ -343,7 +933,7 @@ public abstract class CellGroup {
 	 * @param leftRight		whether a cell is on the left edge or the right edge
 	 * @param neighbors		the list of neighbors
 	 */
-	protected void toroidal(int num, int leftRight, List<Cell> neighbors){
+	protected void toroidal(int num, int leftRight, NeighborTable.Builder neighbors){
 		int[] dex = {num-leftRight*cellWidth+leftRight};
 		add(neighbors, dex);
 	}
@@ -351,21 +941,18 @@ public abstract class CellGroup {
 	protected void handleMouse(MouseEvent e, int index){
 		if(currentlyPressed != null){
 			int newState = getNewState();
-			if(newState < numStates){
+			if(newState >= numStates)
+				return;
+			if(editsQueued)
+				pendingEdits.add(new int[] {index, newState});
+			else
 				updateSingleCell(index, newState);
-			}
 		}
 	}
 
 	private void updateSingleCell(int index, int newState) {
-		int oldState = cellList.get(index).getState();
-		cellList.get(index).setState(newState);
-		cellList.get(index).pushUpdateToNeighbors(oldState, newState);
-		updateOneColor(index);
-	}
-	
-	private void updateOneColor(int index) {
-		grid.get(index).setFill(STATE_COLORS[cellList.get(index).getState()]);
+		engine.setState(index, newState);
+		recolor(engine.getStates(), new int[] {index}, 1);
 	}
 
 	private int getNewState() {
@@ -0,0 +1,301 @@
+package CellGroup.Engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import CellGroup.NeighborTable;
+import CellGroup.StepMetrics;
+import CellGroup.Cell.CellKernel;
+
+/**
+ * Engine that stores every state in two flat byte arrays, one for the current
+ * generation and one for the next, and swaps them after each update. Cell rules
+ * run as stateless kernels over the current array, so no per-cell objects or
+ * neighbor lists are created no matter how large the grid is.
+ * 
+ * Only cells in the active set are evaluated: cells that changed last generation,
+ * cells next to one that did, and cells edited through setState. Every other cell
+ * would compute its current state again, and because it also held still the
+ * generation before, the spare array already holds that state. Stepping therefore
+ * costs time in proportion to how much of the grid is changing, and the count of
+ * each state is kept by adding up how the changed cells moved between states.
+ * 
+ * With a parallelism above one, the grid is split into stripes of whole rows that
+ * are computed on a ForkJoinPool. Every stripe only reads the current array and
+ * only writes its own part of the next array, and the swap waits until all stripes
+ * finish, so a deterministic rule gives exactly the same generations as running
+ * on one thread.
+ * 
+ * Only usable for simulations where every cell updates at once from its
+ * neighbors' states (Fire, Game of Life).
+ */
+public class ArrayEngine implements Engine {
+	public static final int STRIPES_PER_THREAD = 4;
+	
+	private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+	
+	private byte[] current;
+	private byte[] next;
+	private int[] offsets;
+	private int[] neighbors;
+	private int[] listenerOffsets;
+	private int[] listeners;
+	private CellKernel kernel;
+	private BitSet active;
+	private int[] changed;
+	private int changedCount;
+	private int[] stateCounts = new int[MAX_STATES];
+	private StepMetrics metrics = new StepMetrics();
+	private int parallelism;
+	private ForkJoinPool pool;
+	private Stripe[] stripes;
+	private Generation generation;
+
+	/**
+	 * Creates an engine that steps on the calling thread
+	 * 
+	 * @param initialStates		starting state of every cell, indexed by cell number
+	 * @param heardFrom			table of the cells each cell receives states from
+	 * @param cellKernel		rule giving a cell's next state
+	 * @param numStates			number of possible states
+	 */
+	public ArrayEngine(byte[] initialStates, NeighborTable heardFrom, CellKernel cellKernel, int numStates){
+		this(initialStates, heardFrom, cellKernel, numStates, initialStates.length, 1);
+	}
+	
+	/**
+	 * @param initialStates		starting state of every cell, indexed by cell number
+	 * @param heardFrom			table of the cells each cell receives states from
+	 * @param cellKernel		rule giving a cell's next state
+	 * @param numStates			number of possible states
+	 * @param rowWidth			number of cells in a row; stripes never split a row
+	 * @param threads			how many threads compute each generation
+	 */
+	public ArrayEngine(byte[] initialStates, NeighborTable heardFrom, CellKernel cellKernel, int numStates, int rowWidth, int threads){
+		current = initialStates;
+		next = Arrays.copyOf(initialStates, initialStates.length);
+		offsets = heardFrom.getOffsets();
+		neighbors = heardFrom.getNeighborIndices();
+		NeighborTable tells = heardFrom.heardFrom();
+		listenerOffsets = tells.getOffsets();
+		listeners = tells.getNeighborIndices();
+		kernel = cellKernel;
+		
+		active = new BitSet(current.length);
+		active.set(0, current.length);
+		changed = new int[current.length];
+		for (byte state: current)
+			stateCounts[state]++;
+		
+		parallelism = Math.max(1, threads);
+		if (parallelism > 1)
+			initStripes(rowWidth, numStates);
+		else
+			stripes = new Stripe[] {new Stripe(0, current.length, numStates)};
+	}
+	
+	private void initStripes(int rowWidth, int numStates){
+		pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+		int rows = (current.length + rowWidth - 1) / rowWidth;
+		int numStripes = Math.min(rows, parallelism * STRIPES_PER_THREAD);
+		int rowsPerStripe = (rows + numStripes - 1) / numStripes;
+		
+		stripes = new Stripe[(rows + rowsPerStripe - 1) / rowsPerStripe];
+		for (int s = 0; s < stripes.length; s++){
+			int from = s * rowsPerStripe * rowWidth;
+			int to = Math.min(current.length, from + rowsPerStripe * rowWidth);
+			stripes[s] = new Stripe(from, to, numStates);
+		}
+		generation = new Generation();
+	}
+
+	/**
+	 * Computes the next state of every active cell into the spare array, swaps,
+	 * then makes the cells that changed and their neighbors the new active set
+	 * 
+	 * @see Engine#update()
+	 */
+	@Override
+	public void update(){
+		long start = metrics.startPhase();
+		if (parallelism > 1){
+			generation.reinitialize();
+			pool.invoke(generation);
+		}
+		else
+			stripes[0].step();
+		start = metrics.endPhase(StepMetrics.UPDATE_PHASE, start);
+		
+		byte[] temp = current;
+		current = next;
+		next = temp;
+		
+		collectChanges();
+		metrics.endPhase(StepMetrics.RESET_PHASE, start);
+	}
+	
+	private void collectChanges(){
+		changedCount = 0;
+		for (Stripe s: stripes){
+			metrics.addCells(s.evaluated);
+			for (int k = 0; k < s.changedCount; k++){
+				int i = s.changed[k];
+				stateCounts[next[i]]--;
+				stateCounts[current[i]]++;
+			}
+			System.arraycopy(s.changed, 0, changed, changedCount, s.changedCount);
+			changedCount += s.changedCount;
+		}
+		
+		active.clear();
+		for (int k = 0; k < changedCount; k++)
+			activate(changed[k]);
+	}
+	
+	/**
+	 * Marks a cell and every cell that hears from it for the next update
+	 */
+	private void activate(int index){
+		active.set(index);
+		for (int k = listenerOffsets[index]; k < listenerOffsets[index+1]; k++)
+			active.set(listeners[k]);
+	}
+	
+	private int[] countNeighbors(int i, int[] counts){
+		Arrays.fill(counts, 0);
+		for (int k = offsets[i]; k < offsets[i+1]; k++)
+			counts[current[neighbors[k]]]++;
+		return counts;
+	}
+
+	/**
+	 * @see Engine#getStates()
+	 */
+	@Override
+	public byte[] getStates(){
+		return current;
+	}
+
+	/**
+	 * @see Engine#countStates(int[])
+	 */
+	@Override
+	public void countStates(int[] counts){
+		System.arraycopy(stateCounts, 0, counts, 0, Math.min(counts.length, MAX_STATES));
+	}
+
+	/**
+	 * @see Engine#getChangedCells()
+	 */
+	@Override
+	public int[] getChangedCells(){
+		return changed;
+	}
+
+	/**
+	 * @see Engine#getChangedCount()
+	 */
+	@Override
+	public int getChangedCount(){
+		return changedCount;
+	}
+
+	/**
+	 * Always one
+	 * 
+	 * @see Engine#getGenerationsPerUpdate()
+	 */
+	@Override
+	public long getGenerationsPerUpdate(){
+		return 1;
+	}
+
+	/**
+	 * @see Engine#setMetrics(StepMetrics)
+	 */
+	@Override
+	public void setMetrics(StepMetrics stepMetrics){
+		metrics = stepMetrics;
+	}
+
+	/**
+	 * @see Engine#setState(int, int)
+	 */
+	@Override
+	public void setState(int index, int newState){
+		stateCounts[current[index]]--;
+		stateCounts[(byte) newState]++;
+		current[index] = (byte) newState;
+		activate(index);
+	}
+	
+	/**
+	 * @return	how many cells the next update will evaluate
+	 */
+	public int getActiveCount(){
+		return active.cardinality();
+	}
+	
+	/**
+	 * @return	how many threads compute each generation
+	 */
+	public int getParallelism(){
+		return parallelism;
+	}
+	
+	/**
+	 * Computes the active cells of one stripe of rows, with its own neighbor count
+	 * scratch space and its own list of the cells that changed
+	 */
+	private class Stripe extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final int[] counts;
+		private final int[] changed;
+		private int changedCount;
+		private int evaluated;
+		
+		private Stripe(int start, int end, int numStates){
+			from = start;
+			to = end;
+			counts = new int[numStates];
+			changed = new int[end - start];
+		}
+
+		@Override
+		protected void compute(){
+			step();
+		}
+		
+		private void step(){
+			changedCount = 0;
+			evaluated = 0;
+			for (int i = active.nextSetBit(from); i >= 0 && i < to; i = active.nextSetBit(i+1)){
+				evaluated++;
+				byte state = (byte) kernel.nextState(current[i], countNeighbors(i, counts));
+				next[i] = state;
+				if (state != current[i])
+					changed[changedCount++] = i;
+			}
+		}
+	}
+	
+	/**
+	 * Runs every stripe and returns once all of them have finished
+	 */
+	private class Generation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void compute(){
+			for (Stripe s: stripes)
+				s.reinitialize();
+			invokeAll(stripes);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package CellGroup.Engine;
+
+import java.util.Arrays;
+
+import CellGroup.StepMetrics;
+import CellGroup.Cell.CellKernel;
+import CellGroup.Cell.LifeCell;
+
+/**
+ * Engine for the Game of Life on square grids that packs 64 cells into each long.
+ * Each row is stored as two bit planes, one with a bit set for every living cell
+ * and one for every dead cell; cells in neither are empty and never change. For a
+ * whole word of cells at once, the neighbor planes are added two at a time with a
+ * bitwise full adder into a 4 bit count per cell, and the rule is applied with masks.
+ * 
+ * Neighbors match the square grid's neighbor table exactly: the sides and/or the
+ * diagonals, no neighbors past the edges, and with a torus only the cell directly
+ * across the left or right edge in the same row.
+ * 
+ * Besides the four bit planes, the engine keeps one byte per cell for getStates
+ * and a list of changed cells that only grows as long as the most changes in one
+ * update, so a grid costs 1.5 bytes per cell plus 4 per cell changing at once.
+ */
+public class BitwiseLifeEngine implements Engine {
+	public static final int MAX_NEIGHBORS = 8;
+	public static final int INITIAL_CHANGES = 1024;
+	private static final int ALIVE = LifeCell.ALIVE;
+	private static final int DEAD = LifeCell.DEAD;
+	
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	private final long lastWordMask;
+	private final boolean sides;
+	private final boolean diagonals;
+	private final boolean wraps;
+	private final boolean[] survives = new boolean[MAX_NEIGHBORS + 1];
+	private final boolean[] born = new boolean[MAX_NEIGHBORS + 1];
+	private final long[] neighbors = new long[MAX_NEIGHBORS + 3];
+	private long[] alive;
+	private long[] dead;
+	private long[] nextAlive;
+	private long[] nextDead;
+	private byte[] states;
+	private int[] changed;
+	private int changedCount;
+	private int[] stateCounts = new int[MAX_STATES];
+	private StepMetrics metrics = new StepMetrics();
+
+	/**
+	 * @param initialStates		starting state of every cell, indexed by cell number
+	 * @param gridWidth			number of cells in a row
+	 * @param gridHeight		number of rows
+	 * @param sideNeighbors		do cells count the 4 cells sharing a side with them? T/F
+	 * @param diagonalNeighbors	do cells count the 4 cells touching their corners? T/F
+	 * @param torus				do edge cells count the cell across the edge in their row? T/F
+	 * @param rule				the Life rule, only ever asked about ALIVE counts
+	 */
+	public BitwiseLifeEngine(byte[] initialStates, int gridWidth, int gridHeight, boolean sideNeighbors,
+			boolean diagonalNeighbors, boolean torus, CellKernel rule){
+		width = gridWidth;
+		height = gridHeight;
+		wordsPerRow = (width + Long.SIZE - 1) / Long.SIZE;
+		lastWordMask = width % Long.SIZE == 0? -1L: (1L << (width % Long.SIZE)) - 1;
+		sides = sideNeighbors;
+		diagonals = diagonalNeighbors;
+		wraps = torus;
+		initRule(rule);
+		
+		states = initialStates;
+		changed = new int[Math.min(INITIAL_CHANGES, states.length)];
+		alive = new long[height * wordsPerRow];
+		dead = new long[height * wordsPerRow];
+		nextAlive = new long[height * wordsPerRow];
+		nextDead = new long[height * wordsPerRow];
+		for (int i = 0; i < states.length; i++){
+			stateCounts[states[i]]++;
+			if (states[i] == ALIVE)
+				alive[word(i)] |= bit(i);
+			else if (states[i] == DEAD)
+				dead[word(i)] |= bit(i);
+		}
+	}
+	
+	/**
+	 * Asks the rule once for every possible count, so updates only use masks
+	 */
+	private void initRule(CellKernel rule){
+		int[] counts = new int[Math.max(ALIVE, DEAD) + 1];
+		for (int n = 0; n <= MAX_NEIGHBORS; n++){
+			counts[ALIVE] = n;
+			survives[n] = rule.nextState(ALIVE, counts) == ALIVE;
+			born[n] = rule.nextState(DEAD, counts) == ALIVE;
+		}
+	}
+
+	/**
+	 * Computes every row a word at a time into the spare planes, swaps, then
+	 * writes the cells that changed back into the state array
+	 * 
+	 * @see Engine#update()
+	 */
+	@Override
+	public void update(){
+		long start = metrics.startPhase();
+		for (int y = 0; y < height; y++)
+			stepRow(y);
+		start = metrics.endPhase(StepMetrics.UPDATE_PHASE, start);
+		
+		long[] temp = alive;
+		alive = nextAlive;
+		nextAlive = temp;
+		temp = dead;
+		dead = nextDead;
+		nextDead = temp;
+		
+		collectChanges();
+		metrics.endPhase(StepMetrics.RESET_PHASE, start);
+		metrics.addCells(states.length);
+	}
+	
+	private void stepRow(int y){
+		int row = y * wordsPerRow;
+		int up = y > 0? row - wordsPerRow: -1;
+		int down = y < height-1? row + wordsPerRow: -1;
+		for (int w = 0; w < wordsPerRow; w++){
+			int numNeighbors = neighborWords(row, up, down, w);
+			long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+			for (int k = 0; k < numNeighbors; k += 2){
+				long x = neighbors[k];
+				long z = neighbors[k+1];
+				long carry = (s0 & x) | (s0 & z) | (x & z);
+				s0 ^= x ^ z;
+				long c1 = s1 & carry;
+				s1 ^= carry;
+				long c2 = s2 & c1;
+				s2 ^= c1;
+				s3 |= c2;
+			}
+			
+			long survive = 0, birth = 0;
+			for (int n = 0; n <= MAX_NEIGHBORS; n++){
+				if (!survives[n] && !born[n])
+					continue;
+				long count = ((n & 1) != 0? s0: ~s0) & ((n & 2) != 0? s1: ~s1) 
+						& ((n & 4) != 0? s2: ~s2) & ((n & 8) != 0? s3: ~s3);
+				if (survives[n]) survive |= count;
+				if (born[n]) birth |= count;
+			}
+			
+			long mask = w == wordsPerRow-1? lastWordMask: -1L;
+			long a = alive[row + w];
+			long d = dead[row + w];
+			nextAlive[row + w] = ((a & survive) | (d & birth)) & mask;
+			nextDead[row + w] = ((d & ~birth) | (a & ~survive)) & mask;
+		}
+	}
+	
+	/**
+	 * Lines up each neighbor of the 64 cells in word w with the cell itself, and
+	 * pads with an empty word so they can be added two at a time
+	 * 
+	 * @return	number of neighbor words written
+	 */
+	private int neighborWords(int row, int up, int down, int w){
+		long[] words = neighbors;
+		int n = 0;
+		if (sides){
+			words[n++] = up >= 0? alive[up + w]: 0;
+			words[n++] = down >= 0? alive[down + w]: 0;
+			words[n++] = west(row, w);
+			words[n++] = east(row, w);
+		}
+		if (diagonals){
+			words[n++] = up >= 0? west(up, w): 0;
+			words[n++] = up >= 0? east(up, w): 0;
+			words[n++] = down >= 0? west(down, w): 0;
+			words[n++] = down >= 0? east(down, w): 0;
+		}
+		if (wraps){
+			words[n++] = wrapWest(row, w);
+			words[n++] = wrapEast(row, w);
+		}
+		words[n] = 0;
+		return n;
+	}
+	
+	/**
+	 * @return	bit x holds the cell at x-1
+	 */
+	private long west(int row, int w){
+		long carry = w > 0? alive[row + w - 1] >>> (Long.SIZE-1): 0;
+		return (alive[row + w] << 1) | carry;
+	}
+	
+	/**
+	 * @return	bit x holds the cell at x+1
+	 */
+	private long east(int row, int w){
+		long carry = w < wordsPerRow-1? alive[row + w + 1] << (Long.SIZE-1): 0;
+		return (alive[row + w] >>> 1) | carry;
+	}
+	
+	/**
+	 * @return	bit 0 holds the last cell in the row, every other bit is 0
+	 */
+	private long wrapWest(int row, int w){
+		if (w != 0)
+			return 0;
+		return (alive[row + wordsPerRow - 1] >>> ((width-1) % Long.SIZE)) & 1;
+	}
+	
+	/**
+	 * @return	the bit of the last cell in the row holds the first cell, every other bit is 0
+	 */
+	private long wrapEast(int row, int w){
+		if (w != wordsPerRow-1)
+			return 0;
+		return (alive[row] & 1) << ((width-1) % Long.SIZE);
+	}
+	
+	private void collectChanges(){
+		changedCount = 0;
+		for (int y = 0; y < height; y++){
+			for (int w = 0; w < wordsPerRow; w++){
+				int dex = y * wordsPerRow + w;
+				long diff = (alive[dex] ^ nextAlive[dex]) | (dead[dex] ^ nextDead[dex]);
+				int births = Long.bitCount(alive[dex] & ~nextAlive[dex]);
+				int deaths = Long.bitCount(nextAlive[dex] & ~alive[dex]);
+				stateCounts[ALIVE] += births - deaths;
+				stateCounts[DEAD] += deaths - births;
+				while (diff != 0){
+					int i = y * width + w * Long.SIZE + Long.numberOfTrailingZeros(diff);
+					states[i] = (byte) ((alive[dex] & bit(i)) != 0? ALIVE: DEAD);
+					if (changedCount == changed.length)
+						changed = Arrays.copyOf(changed, Math.min(2*changed.length, states.length));
+					changed[changedCount++] = i;
+					diff &= diff - 1;
+				}
+			}
+		}
+	}
+	
+	private int word(int index){
+		return (index / width) * wordsPerRow + (index % width) / Long.SIZE;
+	}
+	
+	private long bit(int index){
+		return 1L << (index % width % Long.SIZE);
+	}
+
+	/**
+	 * @see Engine#getStates()
+	 */
+	@Override
+	public byte[] getStates(){
+		return states;
+	}
+
+	/**
+	 * @see Engine#countStates(int[])
+	 */
+	@Override
+	public void countStates(int[] counts){
+		System.arraycopy(stateCounts, 0, counts, 0, Math.min(counts.length, MAX_STATES));
+	}
+
+	/**
+	 * @see Engine#getChangedCells()
+	 */
+	@Override
+	public int[] getChangedCells(){
+		return changed;
+	}
+
+	/**
+	 * @see Engine#getChangedCount()
+	 */
+	@Override
+	public int getChangedCount(){
+		return changedCount;
+	}
+
+	/**
+	 * Always one
+	 * 
+	 * @see Engine#getGenerationsPerUpdate()
+	 */
+	@Override
+	public long getGenerationsPerUpdate(){
+		return 1;
+	}
+
+	/**
+	 * @see Engine#setMetrics(StepMetrics)
+	 */
+	@Override
+	public void setMetrics(StepMetrics stepMetrics){
+		metrics = stepMetrics;
+	}
+
+	/**
+	 * @see Engine#setState(int, int)
+	 */
+	@Override
+	public void setState(int index, int newState){
+		int w = word(index);
+		alive[w] &= ~bit(index);
+		dead[w] &= ~bit(index);
+		if (newState == ALIVE)
+			alive[w] |= bit(index);
+		else if (newState == DEAD)
+			dead[w] |= bit(index);
+		stateCounts[states[index]]--;
+		stateCounts[(byte) newState]++;
+		states[index] = (byte) newState;
+	}
+}
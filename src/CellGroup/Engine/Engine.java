@@ -0,0 +1,73 @@
+package CellGroup.Engine;
+
+import CellGroup.StepMetrics;
+
+/**
+ * Advances the states of a CellGroup's cells from one generation to the next.
+ * Whatever the engine keeps internally, the current generation is always
+ * readable as one flat array of states indexed the same way as the grid, so
+ * counting, saving and drawing never need to know which engine is running.
+ */
+public interface Engine {
+	// states are bytes, so no state is past this
+	public static final int MAX_STATES = Byte.MAX_VALUE + 1;
+
+	/**
+	 * Step every cell forward one generation
+	 * 
+	 * @throws Exception if a cell cannot update (e.g. no open spaces left to move to)
+	 */
+	public void update() throws Exception;
+
+	/**
+	 * @return	how many generations each update advances
+	 */
+	public long getGenerationsPerUpdate();
+
+	/**
+	 * Returns the live state array of the current generation. Callers must not
+	 * modify it or keep it past the next update.
+	 * 
+	 * @return state of every cell, indexed by cell number
+	 */
+	public byte[] getStates();
+
+	/**
+	 * Copies how many cells are in each state. Engines keep these counts up to
+	 * date as cells change, so this never scans the grid.
+	 * 
+	 * @param stateCounts	overwritten with the count of each state, as many as it holds
+	 */
+	public void countStates(int[] stateCounts);
+
+	/**
+	 * Returns the cells whose state changed in the last update, in increasing order.
+	 * Only the first getChangedCount() entries are valid, and callers must not
+	 * modify the array or keep it past the next update. Cells changed through
+	 * setState are not included.
+	 * 
+	 * @return index numbers of the changed cells
+	 */
+	public int[] getChangedCells();
+	
+	/**
+	 * @return	how many cells changed state in the last update
+	 */
+	public int getChangedCount();
+
+	/**
+	 * Sets where the engine records the time its update and reset phases take and
+	 * how many cells it processes
+	 * 
+	 * @param stepMetrics	metrics of the CellGroup this engine steps
+	 */
+	public void setMetrics(StepMetrics stepMetrics);
+
+	/**
+	 * Change the state of a single cell outside of a normal update, e.g. from a mouse click
+	 * 
+	 * @param index		the index number of the cell
+	 * @param newState	the state to give the cell
+	 */
+	public void setState(int index, int newState);
+}
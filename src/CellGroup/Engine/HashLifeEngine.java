@@ -0,0 +1,517 @@
+package CellGroup.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import CellGroup.StepMetrics;
+import CellGroup.Cell.LifeCell;
+
+/**
+ * Engine that runs the standard Game of Life (survive on 2 or 3 living
+ * neighbors, born on exactly 3, all 8 neighbors counted) with Gosper's HashLife
+ * algorithm. The plane is stored as a quadtree whose nodes are canonical, so
+ * every repeated block of cells is stored once, and each node remembers its
+ * center after it has been advanced. Repeated and empty space therefore cost
+ * nothing to step, and a single update can jump 2^k generations.
+ * 
+ * The pattern lives on an unbounded plane; the grid is only a window onto it,
+ * so cells can leave the window and come back. Because of that, edge cells do
+ * not behave like the edge cells of the other engines, and the window is only
+ * exported to the state array when someone asks for it.
+ * 
+ * Memory is bounded: once the node cache grows past its limit, every node the
+ * current pattern does not use is dropped along with all remembered results.
+ */
+public class HashLifeEngine implements Engine {
+	public static final int DEFAULT_MAX_NODES = 1 << 21;
+	public static final int MAX_STEP_LOG2 = 48;
+	public static final int INITIAL_CHANGES = 1024;
+	private static final int MIN_LEVEL = 3;
+	
+	private final int width;
+	private final int height;
+	private final int maxNodes;
+	private final Node deadLeaf = new Node(0, 0);
+	private final Node aliveLeaf = new Node(1, 1);
+	private final List<Node> emptyNodes = new ArrayList<>();
+	private Node[] table = new Node[1 << 10];
+	private int nodeCount;
+	private Node root;
+	private int stepLog2;
+	private long generation;
+	private byte[] states;
+	private byte[] spare;
+	private boolean exported;
+	private int[] changed;
+	private int changedCount;
+	private StepMetrics metrics = new StepMetrics();
+
+	/**
+	 * @param initialStates		starting state of every cell in the window; anything
+	 * 							but LifeCell.ALIVE counts as dead
+	 * @param gridWidth			number of cells in a row of the window
+	 * @param gridHeight		number of rows in the window
+	 */
+	public HashLifeEngine(byte[] initialStates, int gridWidth, int gridHeight){
+		this(initialStates, gridWidth, gridHeight, DEFAULT_MAX_NODES);
+	}
+	
+	/**
+	 * @param initialStates		starting state of every cell in the window; anything
+	 * 							but LifeCell.ALIVE counts as dead
+	 * @param gridWidth			number of cells in a row of the window
+	 * @param gridHeight		number of rows in the window
+	 * @param nodeLimit			number of cached nodes that triggers a collection
+	 */
+	public HashLifeEngine(byte[] initialStates, int gridWidth, int gridHeight, int nodeLimit){
+		width = gridWidth;
+		height = gridHeight;
+		maxNodes = nodeLimit;
+		emptyNodes.add(deadLeaf);
+		
+		int level = MIN_LEVEL;
+		while ((1L << (level-1)) < Math.max(width, height))
+			level++;
+		long half = 1L << (level-1);
+		root = build(initialStates, level, -half, -half);
+		
+		states = new byte[width*height];
+		spare = new byte[width*height];
+		changed = new int[Math.min(INITIAL_CHANGES, width*height)];
+		exportTo(states);
+		exported = true;
+	}
+	
+	/**
+	 * Advances the pattern 2^getStepLog2() generations
+	 * 
+	 * @see Engine#update()
+	 */
+	@Override
+	public void update(){
+		long start = metrics.startPhase();
+		while (root.level < stepLog2 + MIN_LEVEL || (1L << (root.level-2)) < Math.max(width, height) 
+				|| innerPopulation(root) != root.population)
+			root = expand(root);
+		
+		root = successor(root);
+		generation += 1L << stepLog2;
+		exported = false;
+		start = metrics.endPhase(StepMetrics.UPDATE_PHASE, start);
+		
+		if (nodeCount > maxNodes)
+			collect();
+		metrics.endPhase(StepMetrics.RESET_PHASE, start);
+		metrics.addCells((long) width * height);
+	}
+	
+	/**
+	 * Sets how far each update jumps. Changing it forgets every remembered result,
+	 * since they were all computed for the old jump.
+	 * 
+	 * @param log2	each update advances 2^log2 generations
+	 */
+	public void setStepLog2(int log2){
+		if (log2 < 0 || log2 > MAX_STEP_LOG2)
+			throw new IllegalArgumentException("Step must be between 2^0 and 2^" + MAX_STEP_LOG2 + " generations");
+		if (log2 != stepLog2){
+			stepLog2 = log2;
+			for (Node bucket: table)
+				for (Node n = bucket; n != null; n = n.next)
+					n.result = null;
+		}
+	}
+	
+	/**
+	 * @return	each update advances 2^getStepLog2() generations
+	 */
+	public int getStepLog2(){
+		return stepLog2;
+	}
+	
+	/**
+	 * @see Engine#getGenerationsPerUpdate()
+	 */
+	@Override
+	public long getGenerationsPerUpdate(){
+		return 1L << stepLog2;
+	}
+	
+	/**
+	 * @return	number of generations stepped since the engine was created
+	 */
+	public long getGeneration(){
+		return generation;
+	}
+	
+	/**
+	 * @return	number of living cells on the whole plane, inside the window or not
+	 */
+	public long getPopulation(){
+		return root.population;
+	}
+	
+	/**
+	 * @return	number of nodes currently in the cache
+	 */
+	public int getNodeCount(){
+		return nodeCount;
+	}
+
+	/**
+	 * Exports the window if the pattern moved since it was last read
+	 * 
+	 * @see Engine#getStates()
+	 */
+	@Override
+	public byte[] getStates(){
+		export();
+		return states;
+	}
+
+	/**
+	 * Counts the living cells in the window from the populations every node
+	 * keeps, only descending into nodes that cross its edge, so the window is
+	 * not exported; every other cell of the window counts as dead
+	 * 
+	 * @see Engine#countStates(int[])
+	 */
+	@Override
+	public void countStates(int[] counts){
+		Arrays.fill(counts, 0);
+		long half = 1L << (root.level-1);
+		long alive = windowPopulation(root, -half, -half);
+		if (counts.length > LifeCell.ALIVE)
+			counts[LifeCell.ALIVE] = (int) alive;
+		if (counts.length > LifeCell.DEAD)
+			counts[LifeCell.DEAD] = (int) ((long) width * height - alive);
+	}
+	
+	private long windowPopulation(Node n, long x, long y){
+		long size = 1L << n.level;
+		if (n.population == 0 || !overlapsWindow(x, y, size))
+			return 0;
+		long left = worldX(0);
+		long top = worldY(0);
+		if (x >= left && y >= top && x + size <= left + width && y + size <= top + height)
+			return n.population;
+		long half = size/2;
+		return windowPopulation(n.nw, x, y) + windowPopulation(n.ne, x + half, y)
+				+ windowPopulation(n.sw, x, y + half) + windowPopulation(n.se, x + half, y + half);
+	}
+
+	/**
+	 * Cells that changed since the window was last read, which is the last update
+	 * as long as the window is read after every update
+	 * 
+	 * @see Engine#getChangedCells()
+	 */
+	@Override
+	public int[] getChangedCells(){
+		export();
+		return changed;
+	}
+
+	/**
+	 * @see Engine#getChangedCount()
+	 */
+	@Override
+	public int getChangedCount(){
+		export();
+		return changedCount;
+	}
+
+	/**
+	 * @see Engine#setMetrics(StepMetrics)
+	 */
+	@Override
+	public void setMetrics(StepMetrics stepMetrics){
+		metrics = stepMetrics;
+	}
+
+	/**
+	 * @see Engine#setState(int, int)
+	 */
+	@Override
+	public void setState(int index, int newState){
+		export();
+		boolean alive = newState == LifeCell.ALIVE;
+		long half = 1L << (root.level-1);
+		root = setCell(root, -half, -half, worldX(index), worldY(index), alive);
+		states[index] = (byte) (alive? LifeCell.ALIVE: LifeCell.DEAD);
+	}
+	
+	private void export(){
+		if (exported)
+			return;
+		exportTo(spare);
+		changedCount = 0;
+		for (int i = 0; i < spare.length; i++)
+			if (spare[i] != states[i]){
+				if (changedCount == changed.length)
+					changed = Arrays.copyOf(changed, Math.min(2*changed.length, spare.length));
+				changed[changedCount++] = i;
+			}
+		
+		byte[] temp = states;
+		states = spare;
+		spare = temp;
+		exported = true;
+	}
+	
+	private void exportTo(byte[] window){
+		Arrays.fill(window, (byte) LifeCell.DEAD);
+		long half = 1L << (root.level-1);
+		exportNode(root, -half, -half, window);
+	}
+	
+	private void exportNode(Node n, long x, long y, byte[] window){
+		long size = 1L << n.level;
+		if (n.population == 0 || !overlapsWindow(x, y, size))
+			return;
+		if (n.level == 0){
+			window[(int) (y - worldY(0)) * width + (int) (x - worldX(0))] = LifeCell.ALIVE;
+			return;
+		}
+		long half = size/2;
+		exportNode(n.nw, x, y, window);
+		exportNode(n.ne, x + half, y, window);
+		exportNode(n.sw, x, y + half, window);
+		exportNode(n.se, x + half, y + half, window);
+	}
+	
+	private Node build(byte[] window, int level, long x, long y){
+		if (!overlapsWindow(x, y, 1L << level))
+			return empty(level);
+		if (level == 0){
+			int index = (int) (y - worldY(0)) * width + (int) (x - worldX(0));
+			return window[index] == LifeCell.ALIVE? aliveLeaf: deadLeaf;
+		}
+		long half = 1L << (level-1);
+		return join(build(window, level-1, x, y), build(window, level-1, x + half, y),
+				build(window, level-1, x, y + half), build(window, level-1, x + half, y + half));
+	}
+	
+	private Node setCell(Node n, long x, long y, long cellX, long cellY, boolean alive){
+		if (n.level == 0)
+			return alive? aliveLeaf: deadLeaf;
+		long half = 1L << (n.level-1);
+		boolean east = cellX >= x + half;
+		boolean south = cellY >= y + half;
+		long childX = east? x + half: x;
+		long childY = south? y + half: y;
+		if (!south && !east) return join(setCell(n.nw, childX, childY, cellX, cellY, alive), n.ne, n.sw, n.se);
+		if (!south) return join(n.nw, setCell(n.ne, childX, childY, cellX, cellY, alive), n.sw, n.se);
+		if (!east) return join(n.nw, n.ne, setCell(n.sw, childX, childY, cellX, cellY, alive), n.se);
+		return join(n.nw, n.ne, n.sw, setCell(n.se, childX, childY, cellX, cellY, alive));
+	}
+	
+	/**
+	 * The window is centered on the middle of the plane
+	 */
+	private long worldX(int index){
+		return index % width - width/2;
+	}
+	
+	private long worldY(int index){
+		return index / width - height/2;
+	}
+	
+	private boolean overlapsWindow(long x, long y, long size){
+		long left = worldX(0);
+		long top = worldY(0);
+		return x < left + width && x + size > left && y < top + height && y + size > top;
+	}
+	
+	/**
+	 * @return	number of living cells in the middle quarter (by width) of a node
+	 */
+	private long innerPopulation(Node n){
+		return n.nw.se.se.population + n.ne.sw.sw.population + n.sw.ne.ne.population + n.se.nw.nw.population;
+	}
+	
+	/**
+	 * @return	a node one level up with n in its center and empty space around it
+	 */
+	private Node expand(Node n){
+		Node e = empty(n.level-1);
+		return join(join(e, e, e, n.nw), join(e, e, n.ne, e), join(e, n.sw, e, e), join(n.se, e, e, e));
+	}
+	
+	/**
+	 * Returns the center half of a node advanced min(2^stepLog2, 2^(level-2))
+	 * generations, computing it only the first time it is asked for
+	 */
+	private Node successor(Node n){
+		if (n.result != null)
+			return n.result;
+		
+		Node result;
+		if (n.population == 0)
+			result = empty(n.level-1);
+		else if (n.level == 2)
+			result = slowSuccessor(n);
+		else{
+			Node[] parts = {
+					n.nw, join(n.nw.ne, n.ne.nw, n.nw.se, n.ne.sw), n.ne,
+					join(n.nw.sw, n.nw.se, n.sw.nw, n.sw.ne), join(n.nw.se, n.ne.sw, n.sw.ne, n.se.nw), join(n.ne.sw, n.ne.se, n.se.nw, n.se.ne),
+					n.sw, join(n.sw.ne, n.se.nw, n.sw.se, n.se.sw), n.se};
+			boolean fullSpeed = stepLog2 >= n.level - 2;
+			for (int i = 0; i < parts.length; i++)
+				parts[i] = fullSpeed? successor(parts[i]): center(parts[i]);
+			
+			result = join(successor(join(parts[0], parts[1], parts[3], parts[4])),
+					successor(join(parts[1], parts[2], parts[4], parts[5])),
+					successor(join(parts[3], parts[4], parts[6], parts[7])),
+					successor(join(parts[4], parts[5], parts[7], parts[8])));
+		}
+		n.result = result;
+		return result;
+	}
+	
+	private Node center(Node n){
+		return join(n.nw.se, n.ne.sw, n.sw.ne, n.se.nw);
+	}
+	
+	/**
+	 * Steps the center 2x2 of a 4x4 node one generation by counting neighbors
+	 */
+	private Node slowSuccessor(Node n){
+		int[][] cells = new int[4][4];
+		Node[] quadrants = {n.nw, n.ne, n.sw, n.se};
+		for (int q = 0; q < quadrants.length; q++){
+			int x = (q % 2) * 2;
+			int y = (q / 2) * 2;
+			cells[y][x] = quadrants[q].nw.population > 0? 1: 0;
+			cells[y][x+1] = quadrants[q].ne.population > 0? 1: 0;
+			cells[y+1][x] = quadrants[q].sw.population > 0? 1: 0;
+			cells[y+1][x+1] = quadrants[q].se.population > 0? 1: 0;
+		}
+		return join(lifeRule(cells, 1, 1), lifeRule(cells, 2, 1), lifeRule(cells, 1, 2), lifeRule(cells, 2, 2));
+	}
+	
+	private Node lifeRule(int[][] cells, int x, int y){
+		int alive = -cells[y][x];
+		for (int dy = -1; dy <= 1; dy++)
+			for (int dx = -1; dx <= 1; dx++)
+				alive += cells[y+dy][x+dx];
+		return alive == 3 || (alive == 2 && cells[y][x] == 1)? aliveLeaf: deadLeaf;
+	}
+	
+	private Node empty(int level){
+		while (emptyNodes.size() <= level){
+			Node e = emptyNodes.get(emptyNodes.size()-1);
+			emptyNodes.add(join(e, e, e, e));
+		}
+		return emptyNodes.get(level);
+	}
+	
+	/**
+	 * Returns the canonical node with these four children, creating it if needed
+	 */
+	private Node join(Node nw, Node ne, Node sw, Node se){
+		int hash = hash(nw, ne, sw, se);
+		int bucket = hash & (table.length-1);
+		for (Node n = table[bucket]; n != null; n = n.next)
+			if (n.nw == nw && n.ne == ne && n.sw == sw && n.se == se)
+				return n;
+		
+		Node n = new Node(nw, ne, sw, se, hash);
+		insert(n);
+		return n;
+	}
+	
+	private static int hash(Node nw, Node ne, Node sw, Node se){
+		int h = nw.hash;
+		h = h * 0x9E3779B1 + ne.hash;
+		h = h * 0x9E3779B1 + sw.hash;
+		h = h * 0x9E3779B1 + se.hash;
+		return h ^ (h >>> 16);
+	}
+	
+	private void insert(Node n){
+		if (nodeCount >= table.length - table.length/4)
+			rehash(table.length*2);
+		int bucket = n.hash & (table.length-1);
+		n.next = table[bucket];
+		table[bucket] = n;
+		nodeCount++;
+	}
+	
+	private void rehash(int size){
+		Node[] old = table;
+		table = new Node[size];
+		for (Node bucket: old){
+			Node n = bucket;
+			while (n != null){
+				Node following = n.next;
+				int dex = n.hash & (size-1);
+				n.next = table[dex];
+				table[dex] = n;
+				n = following;
+			}
+		}
+	}
+	
+	/**
+	 * Drops every node the current pattern does not use, and every remembered result
+	 */
+	private void collect(){
+		Node[] old = table;
+		table = new Node[old.length];
+		nodeCount = 0;
+		for (Node bucket: old)
+			for (Node n = bucket; n != null; n = n.next)
+				n.result = null;
+		
+		for (Node e: emptyNodes)
+			keep(e);
+		keep(root);
+	}
+	
+	private void keep(Node n){
+		if (n.level == 0)
+			return;
+		for (Node kept = table[n.hash & (table.length-1)]; kept != null; kept = kept.next)
+			if (kept == n)
+				return;
+		keep(n.nw);
+		keep(n.ne);
+		keep(n.sw);
+		keep(n.se);
+		insert(n);
+	}
+	
+	/**
+	 * Square block of 2^level by 2^level cells. Children are never null above level 0.
+	 */
+	private static final class Node {
+		private final Node nw;
+		private final Node ne;
+		private final Node sw;
+		private final Node se;
+		private final int level;
+		private final long population;
+		private final int hash;
+		private Node result;
+		private Node next;
+		
+		private Node(int alive, int leafHash){
+			nw = ne = sw = se = null;
+			level = 0;
+			population = alive;
+			hash = leafHash;
+		}
+		
+		private Node(Node northWest, Node northEast, Node southWest, Node southEast, int nodeHash){
+			nw = northWest;
+			ne = northEast;
+			sw = southWest;
+			se = southEast;
+			level = nw.level + 1;
+			population = nw.population + ne.population + sw.population + se.population;
+			hash = nodeHash;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package CellGroup.Engine;
+
+import java.util.List;
+
+import CellGroup.NeighborTable;
+import CellGroup.StepMetrics;
+import CellGroup.Cell.Cell;
+
+/**
+ * Engine that keeps one Cell object per grid position and lets the cells pass
+ * their states to each other. Needed by simulations whose cells move or keep
+ * memory of their own (Wa-Tor, Segregation, RPS). After each update the cell
+ * states are copied into a flat array so the rest of the program reads them the
+ * same way it does for the array engine.
+ */
+public class ObjectEngine implements Engine {
+	private List<Cell> cellList;
+	private byte[] states;
+	private int[] changed;
+	private int changedCount;
+	private int[] stateCounts = new int[MAX_STATES];
+	private StepMetrics metrics = new StepMetrics();
+
+	/**
+	 * Gives every cell its neighbors and has them share their starting states
+	 * 
+	 * @param cells			one cell per grid position
+	 * @param neighbors		shared table of each cell's neighbors
+	 */
+	public ObjectEngine(List<Cell> cells, NeighborTable neighbors){
+		cellList = cells;
+		states = new byte[cells.size()];
+		changed = new int[cells.size()];
+		
+		int[] offsets = neighbors.getOffsets();
+		for (int i = 0; i < cells.size(); i++)
+			cells.get(i).setNeighbors(cells, neighbors.getNeighborIndices(), offsets[i], offsets[i+1]);
+		
+		for (Cell c: cellList)
+			c.pushStateToNeighbors();
+		
+		for (int i = 0; i < states.length; i++){
+			states[i] = (byte) cellList.get(i).getState();
+			stateCounts[states[i]]++;
+		}
+	}
+
+	/**
+	 * Calls on each cell to update, then calls on each cell to push its
+	 * updated state to all of its neighbors
+	 * 
+	 * @see Engine#update()
+	 */
+	@Override
+	public void update() throws Exception {
+		long start = metrics.startPhase();
+		for (Cell c: cellList)
+			c.update();
+		start = metrics.endPhase(StepMetrics.UPDATE_PHASE, start);
+		
+		for (Cell c: cellList)
+			c.reset();
+		
+		copyStates();
+		metrics.endPhase(StepMetrics.RESET_PHASE, start);
+		metrics.addCells(cellList.size());
+	}
+	
+	private void copyStates(){
+		changedCount = 0;
+		for (int i = 0; i < states.length; i++){
+			byte state = (byte) cellList.get(i).getState();
+			if (state != states[i]){
+				changed[changedCount++] = i;
+				stateCounts[states[i]]--;
+				stateCounts[state]++;
+			}
+			states[i] = state;
+		}
+	}
+
+	/**
+	 * @see Engine#getStates()
+	 */
+	@Override
+	public byte[] getStates(){
+		return states;
+	}
+
+	/**
+	 * @see Engine#countStates(int[])
+	 */
+	@Override
+	public void countStates(int[] counts){
+		System.arraycopy(stateCounts, 0, counts, 0, Math.min(counts.length, MAX_STATES));
+	}
+
+	/**
+	 * @see Engine#getChangedCells()
+	 */
+	@Override
+	public int[] getChangedCells(){
+		return changed;
+	}
+
+	/**
+	 * @see Engine#getChangedCount()
+	 */
+	@Override
+	public int getChangedCount(){
+		return changedCount;
+	}
+
+	/**
+	 * Always one
+	 * 
+	 * @see Engine#getGenerationsPerUpdate()
+	 */
+	@Override
+	public long getGenerationsPerUpdate(){
+		return 1;
+	}
+
+	/**
+	 * @see Engine#setMetrics(StepMetrics)
+	 */
+	@Override
+	public void setMetrics(StepMetrics stepMetrics){
+		metrics = stepMetrics;
+	}
+
+	/**
+	 * @see Engine#setState(int, int)
+	 */
+	@Override
+	public void setState(int index, int newState){
+		Cell cell = cellList.get(index);
+		int oldState = cell.getState();
+		cell.setState(newState);
+		cell.pushUpdateToNeighbors(oldState, newState);
+		stateCounts[states[index]]--;
+		states[index] = (byte) cell.getState();
+		stateCounts[states[index]]++;
+	}
+	
+	/**
+	 * @return	number of extra fields each cell keeps besides its state
+	 */
+	public int getFieldCount(){
+		return cellList.isEmpty()? 0: cellList.get(0).getFieldCount();
+	}
+	
+	/**
+	 * Copies every cell's extra fields, one field at a time: field k of cell i
+	 * goes to k*cells + i
+	 * 
+	 * @param fields	at least getFieldCount() times the number of cells long
+	 */
+	public void getFields(int[] fields){
+		int n = cellList.size();
+		for (int k = 0; k < getFieldCount(); k++)
+			for (int i = 0; i < n; i++)
+				fields[k*n + i] = cellList.get(i).getField(k);
+	}
+	
+	/**
+	 * Restores every cell's extra fields, laid out as getFields copies them
+	 * 
+	 * @param fields	values of every field of every cell
+	 */
+	public void setFields(int[] fields){
+		int n = cellList.size();
+		for (int k = 0; k < getFieldCount(); k++)
+			for (int i = 0; i < n; i++)
+				cellList.get(i).setField(k, fields[k*n + i]);
+	}
+	
+	/**
+	 * @return the cell objects, in grid order
+	 */
+	public List<Cell> getCells(){
+		return cellList;
+	}
+}
@@ -10,24 +10,25 @@ package CellGroup;
  * code makes it easy to implement additional Polygon subclasses, and it makes the code 
  * readable and easily understandable. It also serves to emphasize that these two classes
  * are serving the same function, except with different shapes. Additionally, the setup
- * of the neighborReturn, addSides, and remove methods demonstrate how easy it would be
+ * of the findNeighbors, addSides, and remove methods demonstrate how easy it would be
  * to add additional edge typing (sphere or Klein bottle or cross-surface, etc) or neighbor
  * configuration (just horizontal, just vertical, just knights, etc).
  * 
  * @author Natalie Huffman
  */
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
-import CellGroup.Cell.Cell;
 import Game.Game;
+import Util.SimulationData;
 import Util.UI;
 import Util.XMLException;
 
 public class HexCellGroup extends CellGroup{
 	private double hexWidth = INNER_SIZE/(1+(double)3*cellWidth);
 	private double hexHeight = INNER_SIZE/(2*cellHeight);
+	private double[] template = {0, 0, hexWidth, -hexHeight, 3*hexWidth, -hexHeight, 4*hexWidth, 0, 
+			3*hexWidth, hexHeight, hexWidth, hexHeight};
 	
 	/**
 	 * Constructor, calls super class 
@@ -38,68 +39,83 @@ public class HexCellGroup extends CellGroup{
 	 * 						hexagon on their diagonal
 	 */
 	public HexCellGroup(List<Double> configList) throws IOException {
-		super(configList);
+		this(configList, AUTO_ENGINE);
+	}
+	
+	/**
+	 * Constructor, calls super class with a chosen engine
+	 * 
+	 * @param configList	contains all specifications from the XML file
+	 * @param engine		which engine steps the cells
+	 * @throws IOException	if neighbor state specifications is "diagonal", 
+	 * 						because hexagons do not have the equivalent of a
+	 * 						hexagon on their diagonal
+	 */
+	public HexCellGroup(List<Double> configList, int engine) throws IOException {
+		super(configList, engine);
+		if(neighborConfigState == 1) UI.exceptionThrower(new XMLException("Hexagons have no diagonals, nothing will interact or spread!"));
+	}
+	
+	/**
+	 * Constructor, calls super class with a parsed simulation file
+	 * 
+	 * @param data			everything the simulation file specifies
+	 * @param engine		which engine steps the cells
+	 * @throws IOException	if the parameters are invalid
+	 */
+	public HexCellGroup(SimulationData data, int engine) throws IOException {
+		super(data, engine);
 		if(neighborConfigState == 1) UI.exceptionThrower(new XMLException("Hexagons have no diagonals, nothing will interact or spread!"));
 	}
 	
 	
 	/**
-	 * Calculates the twelve x and y coordinate points of a hexagon of a given index
+	 * Calculates the twelve x and y coordinate points of a hexagon of a given index.
+	 * Columns are 3 hexWidths apart, and odd columns sit half a hexagon lower.
 	 * 
 	 * @param num		the index number of the particular hexagon
 	 */
 	@Override
 	protected double[] calcPoints(int num){
-		double[] d = initd(num);
-		
-		double[] indices = {d[0]+hexWidth, d[1]-hexHeight, d[0]+3*hexWidth, d[1]-hexHeight, d[0]+4*hexWidth, d[1], d[0]+3*hexWidth, d[1]+hexHeight, d[0]+hexWidth, d[1]+hexHeight};
-		
-		for (int k = 0; k < indices.length; k++){
-			d[k+2] = indices[k];
-		}
-		
-		return d;
+		int i = iFromNum(num);
+		int j = jFromNum(num);
+		double x = Game.SIZE-INNER_SIZE + 3*hexWidth*j;
+		double y = Game.SIZE-INNER_SIZE + hexHeight*(1 + 2*i + j%2);
+		return place(x, y, template);
 	}
 	
 	/**
-	 * Initializes the starting point of the hexagon, off which all the others are based
+	 * Checks the two columns whose hexagons reach x; in each column only one
+	 * hexagon reaches y
 	 * 
-	 * @param num		the index number of the particular hexagon
-	 * @return			the first two of the 12 coordinate points
+	 * @see CellGroup#cellAt
 	 */
-	private double[] initd(int num){
-		double[] d = new double[12];
-		
-		if (num == 0)
-		{
-			d[0] = Game.SIZE-INNER_SIZE;
-			d[1] = Game.SIZE-INNER_SIZE+hexHeight;
-		}		
-		else if (num%cellWidth==0){
-			d[0] = grid.get(num-cellWidth).getPoints().get(0);
-			d[1] = grid.get(num-cellWidth).getPoints().get(1)+2*hexHeight;
-		}
-		else if ((num%cellWidth)%2 == 1){
-			d[0] = grid.get(num-1).getPoints().get(8);
-			d[1] = grid.get(num-1).getPoints().get(9);
-		}
-		else {
-			d[0] = grid.get(num-1).getPoints().get(4);
-			d[1] = grid.get(num-1).getPoints().get(5);
+	@Override
+	public int cellAt(double x, double y){
+		double fromLeft = x - (Game.SIZE-INNER_SIZE);
+		int column = (int) Math.floor(fromLeft / (3*hexWidth));
+		for (int j = column; j >= column-1; j--){
+			if (j < 0 || j >= cellWidth)
+				continue;
+			double fromTop = y - (Game.SIZE-INNER_SIZE) - hexHeight*(j%2);
+			int i = (int) Math.floor(fromTop / (2*hexHeight));
+			double dx = fromLeft - 3*hexWidth*j;
+			double dy = Math.abs(fromTop - hexHeight*(1 + 2*i));
+			double slant = hexWidth*dy/hexHeight;
+			if (i >= 0 && i < cellHeight && dx >= slant && dx <= 4*hexWidth - slant)
+				return numFromIJ(i, j);
 		}
-		
-		return d;
+		return NO_CELL;
 	}
 
 	/**
-	 * Returns all the neighbors of a hexagon of a given index
+	 * Finds all the neighbors of a hexagon of a given index
 	 * 
-	 * @param num		the index number of the particular hexagon
-	 * @return			a list of all that hexagon's neighbors
+	 * @param num			the index number of the particular hexagon
+	 * @param neighbors		the table to add all that hexagon's neighbors to
 	 */
 	@Override
-	protected List<Cell> neighborReturn(int num){
-		List<Cell> neighbors = new ArrayList<>();
+	protected void findNeighbors(int num, NeighborTable.Builder neighbors){
 		int evenOdd = jFromNum(num)%2==0? -1:1;
 		int leftRight = calcLeftRight(num);
 		
@@ -109,11 +125,9 @@ public class HexCellGroup extends CellGroup{
 		if (num%cellWidth==0 || num%cellWidth==cellWidth-1)
 		{
 			remove(num, evenOdd, leftRight, neighbors);
-			if (simType == WATOR || torus == 1)
+			if (wrapsEdges())
 				toroidal(num, leftRight, neighbors);
 		}
-		
-		return neighbors;
 	}
 	
 	/**
@@ -123,7 +137,7 @@ public class HexCellGroup extends CellGroup{
 	 * @param evenOdd		whether the hexagon is at an even or odd position in the row
 	 * @param neighbors		the list of neighbors to add to
 	 */
-	private void addSides(int num, int evenOdd, List<Cell> neighbors){
+	private void addSides(int num, int evenOdd, NeighborTable.Builder neighbors){
 		int[] indices = {num-1, num+1, num-cellWidth, num+cellWidth, num+evenOdd*cellWidth-1, num+evenOdd*cellWidth+1};
 		add(neighbors, indices);
 	}
@@ -138,7 +152,7 @@ public class HexCellGroup extends CellGroup{
 	 * @param leftRight		whether the hexagon is on the left side or the right side of the grid
 	 * @param neighbors		the list of neighbors to add to
 	 */
-	private void remove(int num, int evenOdd, int leftRight, List<Cell> neighbors){
+	private void remove(int num, int evenOdd, int leftRight, NeighborTable.Builder neighbors){
 		int[] indices = {num+leftRight, num+evenOdd*cellWidth+leftRight};
 		remove(neighbors, indices);
 	}
@@ -0,0 +1,178 @@
+package CellGroup;
+/**
+ * Every cell's neighbor indices for one grid layout, stored compressed: the
+ * neighbors of cell i are neighborIndices[offsets[i]] up to (not including)
+ * neighborIndices[offsets[i+1]]. Built once per layout and shared by every
+ * engine and cell, so no cell keeps a list of its own.
+ * 
+ * Tables are cached by layout (shape, size, neighbor configuration and edge
+ * type), so restarting the same file reuses the topology instead of rebuilding it.
+ */
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class NeighborTable {
+	public static final int CACHE_SIZE = 4;
+	public static final int EXPECTED_NEIGHBORS = 8;
+	
+	private static final Map<String, NeighborTable> CACHE = new LinkedHashMap<String, NeighborTable>(CACHE_SIZE, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, NeighborTable> eldest){
+			return size() > CACHE_SIZE;
+		}
+	};
+	
+	private final int[] offsets;
+	private final int[] neighborIndices;
+	private NeighborTable heardFrom;
+	
+	private NeighborTable(int[] cellOffsets, int[] indices){
+		offsets = cellOffsets;
+		neighborIndices = indices;
+	}
+	
+	/**
+	 * Returns the cached table for a layout, building it if it is not cached
+	 * 
+	 * @param key		identifies the layout; equal keys must describe equal topologies
+	 * @param group		the cell group whose findNeighbors method describes the layout
+	 * @return			the neighbor table for that layout
+	 */
+	static synchronized NeighborTable forGroup(String key, CellGroup group){
+		NeighborTable table = CACHE.get(key);
+		if (table == null){
+			table = build(group);
+			CACHE.put(key, table);
+		}
+		return table;
+	}
+	
+	private static NeighborTable build(CellGroup group){
+		int numCells = group.cellWidth * group.cellHeight;
+		Builder builder = new Builder(numCells);
+		for (int i = 0; i < numCells; i++){
+			group.findNeighbors(i, builder);
+			builder.endCell();
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * @return	number of cells in the table
+	 */
+	public int size(){
+		return offsets.length - 1;
+	}
+	
+	/**
+	 * @return	where each cell's neighbors start in getNeighborIndices(); has one extra
+	 * 			entry at the end so cell i's neighbors always end at offsets[i+1]
+	 */
+	public int[] getOffsets(){
+		return offsets;
+	}
+	
+	/**
+	 * @return	every cell's neighbor indices, back to back
+	 */
+	public int[] getNeighborIndices(){
+		return neighborIndices;
+	}
+	
+	/**
+	 * Cells hear the states of every cell that lists them as a neighbor, which is
+	 * not always the same set as the cells they list themselves. Returns this table
+	 * itself when the two are the same.
+	 * 
+	 * @return	table of the cells each cell receives states from
+	 */
+	public synchronized NeighborTable heardFrom(){
+		if (heardFrom == null){
+			NeighborTable transpose = transpose();
+			heardFrom = sameNeighbors(transpose)? this: transpose;
+			heardFrom.heardFrom = this;
+		}
+		return heardFrom;
+	}
+	
+	private NeighborTable transpose(){
+		int[] counts = new int[size() + 1];
+		for (int dex: neighborIndices)
+			counts[dex + 1]++;
+		for (int i = 0; i < size(); i++)
+			counts[i + 1] += counts[i];
+		
+		int[] transposeOffsets = Arrays.copyOf(counts, counts.length);
+		int[] transposeIndices = new int[neighborIndices.length];
+		for (int i = 0; i < size(); i++)
+			for (int k = offsets[i]; k < offsets[i+1]; k++)
+				transposeIndices[counts[neighborIndices[k]]++] = i;
+		return new NeighborTable(transposeOffsets, transposeIndices);
+	}
+	
+	private boolean sameNeighbors(NeighborTable other){
+		if (!Arrays.equals(offsets, other.offsets))
+			return false;
+		for (int i = 0; i < size(); i++){
+			int[] mine = Arrays.copyOfRange(neighborIndices, offsets[i], offsets[i+1]);
+			int[] theirs = Arrays.copyOfRange(other.neighborIndices, offsets[i], offsets[i+1]);
+			Arrays.sort(mine);
+			Arrays.sort(theirs);
+			if (!Arrays.equals(mine, theirs))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Collects neighbor indices one cell at a time, in cell order
+	 */
+	public static class Builder {
+		private int[] offsets;
+		private int[] indices;
+		private int size;
+		private int cell;
+		
+		private Builder(int numCells){
+			offsets = new int[numCells + 1];
+			indices = new int[numCells * EXPECTED_NEIGHBORS];
+		}
+		
+		/**
+		 * Adds a neighbor to the cell currently being built
+		 * 
+		 * @param dex	index of the neighbor
+		 */
+		public void add(int dex){
+			if (size == indices.length)
+				indices = Arrays.copyOf(indices, Math.max(EXPECTED_NEIGHBORS, 2 * size));
+			indices[size++] = dex;
+		}
+		
+		/**
+		 * Removes one copy of a neighbor from the cell currently being built, if it was added
+		 * 
+		 * @param dex	index of the neighbor
+		 */
+		public void remove(int dex){
+			for (int k = offsets[cell]; k < size; k++){
+				if (indices[k] == dex){
+					System.arraycopy(indices, k + 1, indices, k, size - k - 1);
+					size--;
+					return;
+				}
+			}
+		}
+		
+		private void endCell(){
+			offsets[++cell] = size;
+		}
+		
+		private NeighborTable build(){
+			return new NeighborTable(offsets, Arrays.copyOf(indices, size));
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package CellGroup;
+/**
+ * Draws a whole grid of cells as one WritableImage instead of one Polygon node
+ * per cell. When created, every cell's polygon is rasterized once into a map
+ * from pixel to cell index (a pixel belongs to the cell covering its center).
+ * Each frame then looks up every pixel's state color in an ARGB palette and
+ * writes the buffer to the image in one call, so the cost of a frame depends on
+ * the size of the window, not the number of cells. When only some cells changed,
+ * only their pixels are recolored and only the rectangle around them is written.
+ * 
+ * The image is made the first time the view is asked for, so the pixels can be
+ * computed without a running JavaFX toolkit.
+ */
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+public class RasterRenderer {
+	public static final int NO_CELL = -1;
+	public static final int TRANSPARENT = 0;
+	public static final int STROKE = argb(Color.WHITE);
+	public static final int FULL_REPAINT_FRACTION = 4;
+	
+	private int left;
+	private int top;
+	private int width;
+	private int height;
+	private int[] pixelCells;
+	private int[] cellPixelOffsets;
+	private int[] cellPixels;
+	private boolean[] strokePixels;
+	private int[] palette;
+	private int[] pixels;
+	private WritableImage image;
+	private PixelWriter writer;
+	private ImageView view;
+	private ObjIntConsumer<MouseEvent> clickHandler;
+	
+	/**
+	 * @param vertices		each cell's polygon as x, y coordinate pairs, in scene coordinates
+	 * @param colors		fill color of each state
+	 * @param stroke		outline cells in white, like Polygons with a stroke
+	 */
+	public RasterRenderer(double[][] vertices, Paint[] colors, boolean stroke){
+		findBounds(vertices);
+		pixelCells = new int[width*height];
+		Arrays.fill(pixelCells, NO_CELL);
+		for (int i = 0; i < vertices.length; i++)
+			rasterize(i, vertices[i]);
+		if (stroke)
+			findStroke();
+		indexPixels(vertices.length);
+		
+		palette = new int[colors.length];
+		for (int i = 0; i < colors.length; i++)
+			palette[i] = argb((Color) colors[i]);
+		pixels = new int[width*height];
+	}
+	
+	/**
+	 * @return	the color packed as 8 bits each of alpha, red, green and blue
+	 */
+	public static int argb(Color c){
+		return (int) Math.round(c.getOpacity()*255) << 24 | (int) Math.round(c.getRed()*255) << 16 
+				| (int) Math.round(c.getGreen()*255) << 8 | (int) Math.round(c.getBlue()*255);
+	}
+	
+	private void findBounds(double[][] vertices){
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (double[] points: vertices){
+			for (int k = 0; k < points.length; k += 2){
+				minX = Math.min(minX, points[k]);
+				maxX = Math.max(maxX, points[k]);
+				minY = Math.min(minY, points[k+1]);
+				maxY = Math.max(maxY, points[k+1]);
+			}
+		}
+		left = (int) Math.floor(minX);
+		top = (int) Math.floor(minY);
+		width = Math.max(1, (int) Math.ceil(maxX) - left);
+		height = Math.max(1, (int) Math.ceil(maxY) - top);
+	}
+	
+	/**
+	 * Scanline fill of one convex polygon: for each pixel row, finds where the
+	 * row's center line enters and leaves the polygon and claims the pixels between
+	 */
+	private void rasterize(int cell, double[] points){
+		double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int k = 1; k < points.length; k += 2){
+			minY = Math.min(minY, points[k]);
+			maxY = Math.max(maxY, points[k]);
+		}
+		
+		int firstRow = Math.max(0, (int) Math.ceil(minY - top - 0.5));
+		int lastRow = Math.min(height - 1, (int) Math.ceil(maxY - top - 0.5) - 1);
+		for (int row = firstRow; row <= lastRow; row++){
+			double y = top + row + 0.5;
+			double enter = Double.MAX_VALUE, leave = -Double.MAX_VALUE;
+			for (int k = 0; k < points.length; k += 2){
+				int next = (k + 2) % points.length;
+				double ay = points[k+1], by = points[next+1];
+				if ((ay <= y && y < by) || (by <= y && y < ay)){
+					double x = points[k] + (y - ay) / (by - ay) * (points[next] - points[k]);
+					enter = Math.min(enter, x);
+					leave = Math.max(leave, x);
+				}
+			}
+			int firstColumn = Math.max(0, (int) Math.ceil(enter - left - 0.5));
+			int lastColumn = Math.min(width, (int) Math.ceil(leave - left - 0.5));
+			for (int column = firstColumn; column < lastColumn; column++)
+				pixelCells[row*width + column] = cell;
+		}
+	}
+	
+	/**
+	 * Marks pixels whose right or lower neighbor is in a different cell
+	 */
+	private void findStroke(){
+		strokePixels = new boolean[width*height];
+		for (int row = 0; row < height; row++){
+			for (int column = 0; column < width; column++){
+				int p = row*width + column;
+				if (pixelCells[p] == NO_CELL)
+					continue;
+				boolean rightDiffers = column < width-1 && pixelCells[p+1] != NO_CELL && pixelCells[p+1] != pixelCells[p];
+				boolean belowDiffers = row < height-1 && pixelCells[p+width] != NO_CELL && pixelCells[p+width] != pixelCells[p];
+				strokePixels[p] = rightDiffers || belowDiffers;
+			}
+		}
+	}
+	
+	/**
+	 * Lists each cell's fill pixels (not stroke) in row order, so changed cells
+	 * can be recolored without scanning the whole image
+	 */
+	private void indexPixels(int numCells){
+		cellPixelOffsets = new int[numCells + 1];
+		for (int p = 0; p < pixelCells.length; p++)
+			if (isFill(p))
+				cellPixelOffsets[pixelCells[p] + 1]++;
+		for (int i = 0; i < numCells; i++)
+			cellPixelOffsets[i + 1] += cellPixelOffsets[i];
+		
+		int[] next = Arrays.copyOf(cellPixelOffsets, numCells);
+		cellPixels = new int[cellPixelOffsets[numCells]];
+		for (int p = 0; p < pixelCells.length; p++)
+			if (isFill(p))
+				cellPixels[next[pixelCells[p]]++] = p;
+	}
+	
+	private boolean isFill(int p){
+		return pixelCells[p] != NO_CELL && (strokePixels == null || !strokePixels[p]);
+	}
+	
+	/**
+	 * Colors every pixel by its cell's state and writes the frame to the image
+	 * 
+	 * @param states	state of every cell, indexed by cell number
+	 */
+	public void render(byte[] states){
+		for (int p = 0; p < pixels.length; p++){
+			int cell = pixelCells[p];
+			if (cell == NO_CELL)
+				pixels[p] = TRANSPARENT;
+			else if (strokePixels != null && strokePixels[p])
+				pixels[p] = STROKE;
+			else
+				pixels[p] = palette[states[cell]];
+		}
+		flush(0, 0, width, height);
+	}
+	
+	/**
+	 * Recolors only the given cells and writes only the rectangle containing
+	 * them. Falls back to a full render when so many cells changed that a
+	 * full pass is cheaper.
+	 * 
+	 * @param states	state of every cell, indexed by cell number
+	 * @param cells		indices of the cells that changed
+	 * @param count		how many entries of cells are valid
+	 */
+	public void render(byte[] states, int[] cells, int count){
+		if ((long) count * FULL_REPAINT_FRACTION > cellPixelOffsets.length){
+			render(states);
+			return;
+		}
+		
+		int minRow = height, maxRow = -1, minColumn = width, maxColumn = -1;
+		for (int k = 0; k < count; k++){
+			int cell = cells[k];
+			int start = cellPixelOffsets[cell], end = cellPixelOffsets[cell + 1];
+			if (start == end)
+				continue;
+			int color = palette[states[cell]];
+			for (int q = start; q < end; q++){
+				int p = cellPixels[q];
+				pixels[p] = color;
+				int column = p % width;
+				minColumn = Math.min(minColumn, column);
+				maxColumn = Math.max(maxColumn, column);
+			}
+			minRow = Math.min(minRow, cellPixels[start] / width);
+			maxRow = Math.max(maxRow, cellPixels[end - 1] / width);
+		}
+		if (maxRow >= 0)
+			flush(minColumn, minRow, maxColumn - minColumn + 1, maxRow - minRow + 1);
+	}
+	
+	private void flush(int x, int y, int w, int h){
+		if (writer != null)
+			writer.setPixels(x, y, w, h, PixelFormat.getIntArgbInstance(), pixels, y*width + x, width);
+	}
+	
+	/**
+	 * @return	ARGB color of every pixel in the last frame, row by row
+	 */
+	public int[] getPixels(){
+		return pixels;
+	}
+	
+	/**
+	 * @return	width of the image in pixels
+	 */
+	public int getWidth(){
+		return width;
+	}
+	
+	/**
+	 * @param x		x coordinate within the image
+	 * @param y		y coordinate within the image
+	 * @return	index of the cell drawn at that point, or NO_CELL
+	 */
+	public int cellAt(double x, double y){
+		int column = (int) Math.floor(x);
+		int row = (int) Math.floor(y);
+		if (column < 0 || column >= width || row < 0 || row >= height)
+			return NO_CELL;
+		return pixelCells[row*width + column];
+	}
+	
+	/**
+	 * @param handler	called with the click and the index of the cell clicked
+	 */
+	public void setOnCellClicked(ObjIntConsumer<MouseEvent> handler){
+		clickHandler = handler;
+	}
+	
+	/**
+	 * @return	the node showing the image, made on the first call
+	 */
+	public ImageView getView(){
+		if (view == null){
+			image = new WritableImage(width, height);
+			writer = image.getPixelWriter();
+			view = new ImageView(image);
+			view.setLayoutX(left);
+			view.setLayoutY(top);
+			view.setOnMouseClicked(e -> {
+				int cell = cellAt(e.getX(), e.getY());
+				if (cell != NO_CELL && clickHandler != null)
+					clickHandler.accept(e, cell);
+			});
+			flush(0, 0, width, height);
+		}
+		return view;
+	}
+}
@@ -0,0 +1,58 @@
+package CellGroup;
+/**
+ * Copy of one generation's states and how many cells are in each state, made
+ * by the simulation thread so the JavaFX thread can draw and plot it while the
+ * engine moves on. Snapshots belong to a SnapshotExchange, which never lets the
+ * simulation thread write one the JavaFX thread is reading.
+ */
+import java.util.Arrays;
+
+public class Snapshot {
+	private final byte[] states;
+	private final int[] stateCounts;
+	private long generation;
+	
+	/**
+	 * @param numCells		number of cells in the grid
+	 * @param numStates		number of possible states
+	 */
+	public Snapshot(int numCells, int numStates){
+		states = new byte[numCells];
+		stateCounts = new int[numStates];
+	}
+	
+	/**
+	 * Overwrites this snapshot with a generation's states
+	 * 
+	 * @param generationNumber	how many generations have been stepped
+	 * @param from				state of every cell, indexed by cell number
+	 */
+	void copy(long generationNumber, byte[] from){
+		generation = generationNumber;
+		System.arraycopy(from, 0, states, 0, states.length);
+		Arrays.fill(stateCounts, 0);
+		for (byte state: states)
+			stateCounts[state]++;
+	}
+	
+	/**
+	 * @return	how many generations had been stepped when this was taken
+	 */
+	public long getGeneration(){
+		return generation;
+	}
+	
+	/**
+	 * @return	state of every cell, indexed by cell number; must not be modified
+	 */
+	public byte[] getStates(){
+		return states;
+	}
+	
+	/**
+	 * @return	how many cells of each state are present; must not be modified
+	 */
+	public int[] getStateCounts(){
+		return stateCounts;
+	}
+}
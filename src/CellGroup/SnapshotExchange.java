@@ -0,0 +1,60 @@
+package CellGroup;
+/**
+ * Hands snapshots from one simulation thread to one drawing thread without
+ * either ever waiting on the other (a triple buffer). The producer fills its
+ * back snapshot and publishes it; the consumer takes the newest published
+ * snapshot, skipping any it was too slow to see. The three snapshots are
+ * swapped through one atomic int holding the index of the middle snapshot and
+ * whether it is newer than the consumer's, so nothing is allocated per frame.
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SnapshotExchange {
+	private static final int INDEX = 3;
+	private static final int FRESH = 4;
+	
+	private final Snapshot[] buffers = new Snapshot[3];
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0;
+	private int front = 2;
+	
+	/**
+	 * @param numCells		number of cells in the grid
+	 * @param numStates		number of possible states
+	 */
+	public SnapshotExchange(int numCells, int numStates){
+		for (int i = 0; i < buffers.length; i++)
+			buffers[i] = new Snapshot(numCells, numStates);
+	}
+	
+	/**
+	 * Called by the producer only
+	 * 
+	 * @return	the snapshot to fill before calling publish
+	 */
+	public Snapshot getBack(){
+		return buffers[back];
+	}
+	
+	/**
+	 * Called by the producer only. Makes the back snapshot the newest one and
+	 * takes whichever snapshot the consumer is not holding as the new back.
+	 */
+	public void publish(){
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+	
+	/**
+	 * Called by the consumer only. The snapshot returned stays unchanged until
+	 * the next call that returns a snapshot.
+	 * 
+	 * @return	the newest snapshot published since the last take, or null if
+	 * 			nothing new was published
+	 */
+	public Snapshot take(){
+		if ((middle.get() & FRESH) == 0)
+			return null;
+		front = middle.getAndSet(front) & INDEX;
+		return buffers[front];
+	}
+}
@@ -6,15 +6,15 @@ package CellGroup;
  * @author Natalie Huffman
  */
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
-import CellGroup.Cell.Cell;
 import Game.Game;
+import Util.SimulationData;
 
 public class SquareCellGroup extends CellGroup{
 	private int cellX = INNER_SIZE/cellWidth;
 	private int cellY = INNER_SIZE/cellHeight;
+	private double[] template = {0, 0, cellX, 0, cellX, cellY, 0, cellY};
 	
 	/**
 	 * @see CellGroup#CellGroup
@@ -25,42 +25,75 @@ public class SquareCellGroup extends CellGroup{
 		super(configList);
 	}
 	
+	/**
+	 * @see CellGroup#CellGroup(List, int)
+	 * @param configList
+	 * @param engine
+	 * @throws IOException
+	 */
+	public SquareCellGroup(List<Double> configList, int engine) throws IOException {
+		super(configList, engine);
+	}
+	
+	/**
+	 * @see CellGroup#CellGroup(SimulationData, int)
+	 * @param data
+	 * @param engine
+	 * @throws IOException
+	 */
+	public SquareCellGroup(SimulationData data, int engine) throws IOException {
+		super(data, engine);
+	}
+	
 	/**
 	 * @see CellGroup#calcPoints
 	 */
 	@Override
 	protected double[] calcPoints(int num){
-		double[] d = new double[8];
-		initd(num, d);
-		
-		double[] indices = {d[0]+cellX, d[1], d[0]+cellX, d[1]+cellY, d[0], d[1]+cellY};
-		
-		for (int x = 0; x < indices.length; x++)
-			d[x+2] = indices[x];
-		return d;
+		double x = Game.SIZE-INNER_SIZE + jFromNum(num)*cellX;
+		double y = Game.SIZE-INNER_SIZE + iFromNum(num)*cellY;
+		return place(x, y, template);
 	}
-
-	private void initd(int num, double[] d){		
-		if (num==0){
-			d[0] = Game.SIZE-INNER_SIZE;
-			d[1] = Game.SIZE-INNER_SIZE;
-		}
-		else if (num%cellWidth == 0){
-			d[0] = grid.get(num-cellWidth).getPoints().get(6);
-			d[1] = grid.get(num-cellWidth).getPoints().get(7);
-		}
-		else{
-			d[0] = grid.get(num-1).getPoints().get(2);
-			d[1] = grid.get(num-1).getPoints().get(3);
-		}
+	
+	/**
+	 * @see CellGroup#cellAt
+	 */
+	@Override
+	public int cellAt(double x, double y){
+		if (cellX == 0 || cellY == 0)
+			return NO_CELL;
+		int j = (int) Math.floor((x - (Game.SIZE-INNER_SIZE)) / cellX);
+		int i = (int) Math.floor((y - (Game.SIZE-INNER_SIZE)) / cellY);
+		return numFromIJ(i, j);
+	}
+	
+	/**
+	 * Cells narrower or shorter than a pixel would have no size, so grids
+	 * that big are shown through a viewport instead
+	 * 
+	 * @see CellGroup#createViewport
+	 */
+	@Override
+	protected Viewport createViewport(){
+		if (cellX > 0 && cellY > 0)
+			return null;
+		int origin = Game.SIZE-INNER_SIZE;
+		return new Viewport(cellWidth, cellHeight, STATE_COLORS, origin, origin, INNER_SIZE);
+	}
+	
+	/**
+	 * @see CellGroup#isSquareGrid
+	 */
+	@Override
+	protected boolean isSquareGrid(){
+		return true;
 	}
 	
 	/**
-	 * @see CellGroup#neighborReturn
+	 * @see CellGroup#findNeighbors
 	 */
 	@Override
-	protected List<Cell> neighborReturn(int num){
-		List<Cell> neighbors = new ArrayList<>();
+	protected void findNeighbors(int num, NeighborTable.Builder neighbors){
 		int leftRight = calcLeftRight(num);
 		
 		if (neighborConfigState != 1)
@@ -71,25 +104,22 @@ public class SquareCellGroup extends CellGroup{
 		if (num%cellWidth==0 || num%cellWidth==cellWidth-1)
 		{
 			remove(num, leftRight, neighbors);
-			if (simType == WATOR || torus == 1)
+			if (wrapsEdges())
 				toroidal(num, leftRight, neighbors);
 		}
-		
-		return neighbors;
-
 	}
 	
-	private void addSides(int num, List<Cell> neighbors){
+	private void addSides(int num, NeighborTable.Builder neighbors){
 		int[] indices = {num-1, num+1, num-cellWidth, num+cellWidth};
 		add(neighbors, indices);
 	}
 	
-	private void addDiag(int num, List<Cell> neighbors){
-		int[] indices = {num-cellWidth-1, num-cellWidth+1, num+cellWidth-1, num-cellWidth-1};
+	private void addDiag(int num, NeighborTable.Builder neighbors){
+		int[] indices = {num-cellWidth-1, num-cellWidth+1, num+cellWidth-1, num+cellWidth+1};
 		add(neighbors, indices);
 	}
 	
-	private void remove(int num, int leftRight, List<Cell> neighbors){
+	private void remove(int num, int leftRight, NeighborTable.Builder neighbors){
 		int[] indices = {num+leftRight, num-cellWidth+leftRight, num+cellWidth+leftRight};
 		remove(neighbors, indices);
 	}
@@ -0,0 +1,179 @@
+package CellGroup;
+/**
+ * Timing and counts for every step of a CellGroup, split into phases: the
+ * engine's update loop, its reset (commit) loop, recoloring the shapes, and
+ * Game plotting the graph. Also counts generations, cells the engine processed,
+ * and bytes allocated by the simulation thread during each step. Written by the
+ * simulation thread only; readable from any thread, including over JMX once
+ * registered.
+ */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class StepMetrics implements StepMetricsMBean {
+	public static final int UPDATE_PHASE = 0;
+	public static final int RESET_PHASE = 1;
+	public static final int COLOR_PHASE = 2;
+	public static final int PLOT_PHASE = 3;
+	public static final List<String> PHASE_NAMES = Arrays.asList(new String[] {"update", "reset", "color", "plot"});
+	public static final String OBJECT_NAME = "CellSociety:type=StepMetrics";
+	
+	private static final com.sun.management.ThreadMXBean THREADS = 
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	
+	private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASE_NAMES.size());
+	private final AtomicLongArray lastPhaseNanos = new AtomicLongArray(PHASE_NAMES.size());
+	private final AtomicLong generations = new AtomicLong();
+	private final AtomicLong cellsProcessed = new AtomicLong();
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	private volatile long lastStepAllocatedBytes;
+	private volatile long firstStepStart;
+	private volatile long lastStepEnd;
+	private long stepStartBytes;
+	
+	/**
+	 * @return	start time to pass to endPhase
+	 */
+	public long startPhase(){
+		return System.nanoTime();
+	}
+	
+	/**
+	 * Adds the time since start to a phase
+	 * 
+	 * @param phase		UPDATE_PHASE, RESET_PHASE, COLOR_PHASE or PLOT_PHASE
+	 * @param start		value returned by startPhase
+	 * @return	the end time, so the next phase can start from it
+	 */
+	public long endPhase(int phase, long start){
+		long end = System.nanoTime();
+		phaseNanos.addAndGet(phase, end - start);
+		lastPhaseNanos.set(phase, end - start);
+		return end;
+	}
+	
+	/**
+	 * Called by engines with how many cells they evaluated in an update
+	 * 
+	 * @param cells		number of cells processed
+	 */
+	public void addCells(long cells){
+		cellsProcessed.addAndGet(cells);
+	}
+	
+	/**
+	 * Marks the start of a generation on the calling thread
+	 */
+	public void startStep(){
+		if (generations.get() == 0)
+			firstStepStart = System.nanoTime();
+		stepStartBytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Marks the end of a generation started with startStep on the same thread
+	 */
+	public void endStep(){
+		lastStepAllocatedBytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - stepStartBytes;
+		allocatedBytes.addAndGet(lastStepAllocatedBytes);
+		lastStepEnd = System.nanoTime();
+		generations.incrementAndGet();
+	}
+	
+	/**
+	 * @param phase		UPDATE_PHASE, RESET_PHASE, COLOR_PHASE or PLOT_PHASE
+	 * @return	nanoseconds spent in the phase over every step
+	 */
+	public long getPhaseNanos(int phase){
+		return phaseNanos.get(phase);
+	}
+	
+	/**
+	 * @param phase		UPDATE_PHASE, RESET_PHASE, COLOR_PHASE or PLOT_PHASE
+	 * @return	nanoseconds spent in the phase during the last step
+	 */
+	public long getLastPhaseNanos(int phase){
+		return lastPhaseNanos.get(phase);
+	}
+	
+	/**
+	 * Makes these metrics readable over JMX, replacing whichever metrics were
+	 * registered before (e.g. from the simulation loaded before this one)
+	 * 
+	 * @throws IOException	if the platform MBean server refuses them
+	 */
+	public void register() throws IOException{
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+			server.registerMBean(this, name);
+		} catch (JMException e){
+			throw new IOException("Could not register step metrics with JMX!");
+		}
+	}
+
+	@Override
+	public long getGenerations(){
+		return generations.get();
+	}
+
+	@Override
+	public long getCellsProcessed(){
+		return cellsProcessed.get();
+	}
+
+	@Override
+	public long getUpdateNanos(){
+		return getPhaseNanos(UPDATE_PHASE);
+	}
+
+	@Override
+	public long getResetNanos(){
+		return getPhaseNanos(RESET_PHASE);
+	}
+
+	@Override
+	public long getColorNanos(){
+		return getPhaseNanos(COLOR_PHASE);
+	}
+
+	@Override
+	public long getPlotNanos(){
+		return getPhaseNanos(PLOT_PHASE);
+	}
+
+	@Override
+	public long getAllocatedBytes(){
+		return allocatedBytes.get();
+	}
+
+	@Override
+	public long getLastStepAllocatedBytes(){
+		return lastStepAllocatedBytes;
+	}
+
+	@Override
+	public double getGenerationsPerSecond(){
+		return perSecond(generations.get());
+	}
+
+	@Override
+	public double getCellsPerSecond(){
+		return perSecond(cellsProcessed.get());
+	}
+	
+	private double perSecond(long count){
+		long elapsed = lastStepEnd - firstStepStart;
+		return elapsed > 0? count / (elapsed / 1e9): 0;
+	}
+}
@@ -0,0 +1,38 @@
+package CellGroup;
+/**
+ * What a CellGroup's step metrics show to JMX monitoring. Times are in
+ * nanoseconds and summed over every step since the cells were created.
+ * 
+ * @see StepMetrics
+ */
+public interface StepMetricsMBean {
+
+	public long getGenerations();
+
+	public long getCellsProcessed();
+
+	public long getUpdateNanos();
+
+	public long getResetNanos();
+
+	public long getColorNanos();
+
+	public long getPlotNanos();
+
+	public long getAllocatedBytes();
+
+	/**
+	 * @return	bytes the simulation thread allocated during the last step
+	 */
+	public long getLastStepAllocatedBytes();
+
+	/**
+	 * @return	generations per second of wall clock time since the first step
+	 */
+	public double getGenerationsPerSecond();
+
+	/**
+	 * @return	cells processed per second of wall clock time since the first step
+	 */
+	public double getCellsPerSecond();
+}
@@ -15,15 +15,16 @@ package CellGroup;
  * @author Natalie Huffman
  */
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
-import CellGroup.Cell.Cell;
 import Game.Game;
+import Util.SimulationData;
 
 public class TriCellGroup extends CellGroup{
     private double triWidth = (double)INNER_SIZE*2/(2+(double)cellWidth);
     private double triHeight = (double)INNER_SIZE/cellHeight;
+    private double[] upTemplate = {0, 0, triWidth/2, triHeight, -triWidth/2, triHeight};
+    private double[] downTemplate = {0, 0, -triWidth/2, -triHeight, triWidth/2, -triHeight};
 	
     /**
      * @see CellGroup#CellGroup
@@ -34,66 +35,68 @@ public class TriCellGroup extends CellGroup{
 		super(configList);
 	}
 	
+    /**
+     * @see CellGroup#CellGroup(List, int)
+     * @param configList
+     * @param engine
+     * @throws IOException
+     */
+	public TriCellGroup(List<Double> configList, int engine) throws IOException {
+		super(configList, engine);
+	}
+	
+    /**
+     * @see CellGroup#CellGroup(SimulationData, int)
+     * @param data
+     * @param engine
+     * @throws IOException
+     */
+	public TriCellGroup(SimulationData data, int engine) throws IOException {
+		super(data, engine);
+	}
+	
 	/**
+	 * Starts from the triangle's tip: at the top of its row if it points up,
+	 * at the bottom if it points down. Tips are half a triangle apart.
+	 * 
 	 * @see CellGroup#calcPoints
 	 */
 	@Override
 	protected double[] calcPoints(int num){
 		int i = iFromNum(num);
 		int j = jFromNum(num);
-		double[] d = initd(num, i, j);
-		int upDown = isUp(i,j)? -1:1;
-		
-		d[2] = d[0] - upDown*triWidth/2;
-		d[3] = d[1] - upDown*triHeight;
-		d[4] = d[0] + upDown*triWidth/2;
-		d[5] = d[3];
-		
-		return d;
+		boolean up = isUp(i,j);
+		double x = Game.SIZE-INNER_SIZE + (j+1)*triWidth/2;
+		double y = Game.SIZE-INNER_SIZE + i*triHeight + (up? 0: triHeight);
+		return place(x, y, up? upTemplate: downTemplate);
 	}
 	
 	/**
-	 * Initializes the starting point of the triangle, off which all the others are based
+	 * Checks the two triangles whose base reaches x in the row at y
 	 * 
-	 * @param num		the index number of the particular triangle
-	 * @param i			the row number corresponding to the index number
-	 * @param j			the column number corresponding to the index number
-	 * @return			the first two of the 12 coordinate points
+	 * @see CellGroup#cellAt
 	 */
-	private double[] initd(int num, int i, int j){	
-		double[] d = new double[6];
-		
-		if (i == 0 && j == 0)
-		{
-			d[0] = Game.SIZE-INNER_SIZE+triWidth/2;
-			d[1] = Game.SIZE-INNER_SIZE;
-		}
-		else if (j == 0){
-			double offset = isUp(i,j)? 0:(2*triHeight);
-			
-			d[0] = grid.get(num-cellWidth).getPoints().get(0);
-			d[1] = grid.get(num-cellWidth).getPoints().get(1)+ offset;
-		}
-		else{
-			if (isUp(i,j)){
-				d[0] = grid.get(num-1).getPoints().get(4);
-				d[1] = grid.get(num-1).getPoints().get(5);
-			}
-			else{
-				d[0] = grid.get(num-1).getPoints().get(2);
-				d[1] = grid.get(num-1).getPoints().get(3);
-			}
+	@Override
+	public int cellAt(double x, double y){
+		double fromLeft = x - (Game.SIZE-INNER_SIZE);
+		double rows = (y - (Game.SIZE-INNER_SIZE)) / triHeight;
+		int i = (int) Math.floor(rows);
+		int column = (int) Math.floor(fromLeft / (triWidth/2));
+		for (int j = column; j >= column-1; j--){
+			if (i < 0 || i >= cellHeight || j < 0 || j >= cellWidth)
+				continue;
+			double widthHere = isUp(i,j)? rows - i: 1 - (rows - i);
+			if (Math.abs(fromLeft - (j+1)*triWidth/2) <= widthHere*triWidth/2)
+				return numFromIJ(i, j);
 		}
-		
-		return d;
-	}	
+		return NO_CELL;
+	}
 	
 	/**
-	 * @see CellGroup#neighborReturn
+	 * @see CellGroup#findNeighbors
 	 */
 	@Override
-	protected List<Cell> neighborReturn(int num) {
-		List<Cell> neighbors = new ArrayList<Cell>();
+	protected void findNeighbors(int num, NeighborTable.Builder neighbors) {
 		int upDown = isUp(iFromNum(num), jFromNum(num))? 1:-1;
 		int leftRight = calcLeftRight(num);
 		
@@ -105,11 +108,9 @@ public class TriCellGroup extends CellGroup{
 		if (num%cellWidth==0 || num%cellWidth==cellWidth-1)
 		{
 			remove(num, upDown, leftRight, neighbors);
-			if (simType == WATOR || torus == 1)
+			if (wrapsEdges())
 				toroidal(num, leftRight, neighbors);
 		}
-		
-		return neighbors;
 	}
 	
 	/**
@@ -119,7 +120,7 @@ public class TriCellGroup extends CellGroup{
 	 * @param upDown		whether the triangle points up or down
 	 * @param neighbors		the list of neighbors to add to
 	 */
-	private void addSides(int num, int upDown, List<Cell> neighbors){
+	private void addSides(int num, int upDown, NeighborTable.Builder neighbors){
 		int[] indices = {num-1, num+1, num-upDown*cellWidth};
 		add(neighbors, indices);
 	}
@@ -131,7 +132,7 @@ public class TriCellGroup extends CellGroup{
 	 * @param upDown		whether the triangle points up or down
 	 * @param neighbors		the list of neighbors to add to
 	 */
-	private void addDiag(int num, int upDown, List<Cell> neighbors){
+	private void addDiag(int num, int upDown, NeighborTable.Builder neighbors){
 		int[] indices = {num-2, num+2, num+upDown*cellWidth, num+upDown*cellWidth-1, num+upDown*cellWidth-2, num+upDown*cellWidth+1, num+upDown*cellWidth+2, num-upDown*cellWidth-1, num-upDown*cellWidth+1};
 		add(neighbors, indices);
 	}
@@ -146,7 +147,7 @@ public class TriCellGroup extends CellGroup{
 	 * @param leftRight		whether the triangle is on the left side or the right side of the grid
 	 * @param neighbors		the list of neighbors to add to
 	 */
-	private void remove(int num, int upDown, int leftRight, List<Cell> neighbors){
+	private void remove(int num, int upDown, int leftRight, NeighborTable.Builder neighbors){
 		int[] indices = {num+leftRight, num+leftRight*2, num-upDown+leftRight, num+upDown+leftRight, num+upDown+leftRight*2};
 		remove(neighbors, indices);			
 	}
@@ -0,0 +1,383 @@
+package CellGroup;
+/**
+ * Draws a square grid too large for the screen into one fixed-size image that
+ * can be zoomed with the scroll wheel and panned by dragging. Only the cells
+ * inside the view are read, so a frame costs the same however big the grid is.
+ *
+ * Zoomed in to a pixel or more per cell, each pixel shows the cell under its
+ * center. Zoomed out further, the grid is read through tiles of TILE_SIZE by
+ * TILE_SIZE blocks at level L, where each block of 2^L by 2^L cells is colored
+ * by its most common state. Tiles are kept in an LRU cache and dropped only
+ * when a cell inside them changes, so a mostly still grid rarely rebuilds any.
+ *
+ * The image is made the first time the view is asked for, so the pixels can be
+ * computed without a running JavaFX toolkit.
+ */
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+public class Viewport {
+	public static final int NO_CELL = RasterRenderer.NO_CELL;
+	public static final int BACKGROUND = RasterRenderer.TRANSPARENT;
+	public static final int TILE_SIZE = 64;
+	public static final int MAX_TILES = 256;
+	public static final double MAX_SCALE = 32;
+	public static final double ZOOM_STEP = 1.25;
+
+	private int gridWidth;
+	private int gridHeight;
+	private int left;
+	private int top;
+	private int size;
+	private int[] palette;
+	private int[] pixels;
+	private int[] columns;
+	private int[] counts;
+	private double minScale;
+	private double scale;
+	private double originX;
+	private double originY;
+	private byte[] states;
+	private Map<Long, int[]> tiles = new LinkedHashMap<Long, int[]>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest){
+			return size() > MAX_TILES;
+		}
+	};
+	private WritableImage image;
+	private PixelWriter writer;
+	private ImageView view;
+	private ObjIntConsumer<MouseEvent> clickHandler;
+	private double dragX;
+	private double dragY;
+
+	/**
+	 * Starts zoomed out to fit the whole grid
+	 *
+	 * @param width		number of cells in a row
+	 * @param height	number of rows
+	 * @param colors	fill color of each state
+	 * @param x			scene x coordinate of the view's left edge
+	 * @param y			scene y coordinate of the view's top edge
+	 * @param pixelSize	width and height of the view in pixels
+	 */
+	public Viewport(int width, int height, Paint[] colors, int x, int y, int pixelSize){
+		gridWidth = width;
+		gridHeight = height;
+		left = x;
+		top = y;
+		size = pixelSize;
+		palette = new int[colors.length];
+		for (int i = 0; i < colors.length; i++)
+			palette[i] = RasterRenderer.argb((Color) colors[i]);
+		counts = new int[colors.length];
+		pixels = new int[size*size];
+		columns = new int[size];
+
+		minScale = Math.min(MAX_SCALE, (double) size / Math.max(gridWidth, gridHeight));
+		scale = minScale;
+		clamp();
+	}
+
+	/**
+	 * Draws the visible part of the grid
+	 *
+	 * @param cellStates	state of every cell, indexed by cell number; kept
+	 * 						to redraw from when zooming or panning
+	 */
+	public void render(byte[] cellStates){
+		states = cellStates;
+		int level = levelFor(scale);
+		if (level == 0)
+			drawCells();
+		else
+			drawTiles(level);
+		flush();
+	}
+
+	/**
+	 * Drops the tiles containing the given cells, then draws the visible part
+	 * of the grid
+	 *
+	 * @param cellStates	state of every cell, indexed by cell number
+	 * @param cells			indices of the cells that changed, in increasing order
+	 * @param count			how many entries of cells are valid
+	 */
+	public void render(byte[] cellStates, int[] cells, int count){
+		invalidate(cells, count);
+		render(cellStates);
+	}
+
+	/**
+	 * @return	smallest level whose blocks are no smaller than a pixel at this scale
+	 */
+	private static int levelFor(double pixelsPerCell){
+		int level = 0;
+		while ((1 << level) * pixelsPerCell < 1)
+			level++;
+		return level;
+	}
+
+	/**
+	 * @return	the cell column (or row) under the center of a pixel column (or row),
+	 * 			or NO_CELL if it is outside the grid
+	 */
+	private int cellUnder(int pixel, double origin, int cells){
+		int cell = (int) Math.floor(origin + (pixel + 0.5) / scale);
+		return cell < 0 || cell >= cells? NO_CELL: cell;
+	}
+
+	private void drawCells(){
+		for (int x = 0; x < size; x++)
+			columns[x] = cellUnder(x, originX, gridWidth);
+		for (int y = 0; y < size; y++){
+			int row = cellUnder(y, originY, gridHeight);
+			int p = y*size;
+			if (row == NO_CELL){
+				Arrays.fill(pixels, p, p + size, BACKGROUND);
+				continue;
+			}
+			int base = row*gridWidth;
+			for (int x = 0; x < size; x++, p++)
+				pixels[p] = columns[x] == NO_CELL? BACKGROUND: palette[states[base + columns[x]]];
+		}
+	}
+
+	private void drawTiles(int level){
+		for (int x = 0; x < size; x++){
+			int column = cellUnder(x, originX, gridWidth);
+			columns[x] = column == NO_CELL? NO_CELL: column >> level;
+		}
+		for (int y = 0; y < size; y++){
+			int row = cellUnder(y, originY, gridHeight);
+			int p = y*size;
+			if (row == NO_CELL){
+				Arrays.fill(pixels, p, p + size, BACKGROUND);
+				continue;
+			}
+			int blockRow = row >> level;
+			int tileRow = blockRow / TILE_SIZE;
+			int base = (blockRow % TILE_SIZE) * TILE_SIZE;
+			int[] tile = null;
+			int tileColumn = NO_CELL;
+			for (int x = 0; x < size; x++, p++){
+				int blockColumn = columns[x];
+				if (blockColumn == NO_CELL){
+					pixels[p] = BACKGROUND;
+					continue;
+				}
+				if (blockColumn / TILE_SIZE != tileColumn){
+					tileColumn = blockColumn / TILE_SIZE;
+					tile = tile(level, tileColumn, tileRow);
+				}
+				pixels[p] = tile[base + blockColumn % TILE_SIZE];
+			}
+		}
+	}
+
+	private static long tileKey(int level, int tileColumn, int tileRow){
+		return (long) level << 58 | (long) tileRow << 29 | tileColumn;
+	}
+
+	private int[] tile(int level, int tileColumn, int tileRow){
+		long key = tileKey(level, tileColumn, tileRow);
+		int[] tile = tiles.get(key);
+		if (tile == null){
+			tile = buildTile(level, tileColumn, tileRow);
+			tiles.put(key, tile);
+		}
+		return tile;
+	}
+
+	/**
+	 * Colors each block of the tile by the state most of its cells are in
+	 */
+	private int[] buildTile(int level, int tileColumn, int tileRow){
+		int block = 1 << level;
+		int[] tile = new int[TILE_SIZE*TILE_SIZE];
+		for (int by = 0; by < TILE_SIZE; by++){
+			int rowStart = (tileRow*TILE_SIZE + by) * block;
+			int rowEnd = Math.min(rowStart + block, gridHeight);
+			for (int bx = 0; bx < TILE_SIZE; bx++){
+				int columnStart = (tileColumn*TILE_SIZE + bx) * block;
+				int columnEnd = Math.min(columnStart + block, gridWidth);
+				if (rowStart >= gridHeight || columnStart >= gridWidth){
+					tile[by*TILE_SIZE + bx] = BACKGROUND;
+					continue;
+				}
+
+				Arrays.fill(counts, 0);
+				for (int r = rowStart; r < rowEnd; r++)
+					for (int c = columnStart; c < columnEnd; c++)
+						counts[states[r*gridWidth + c]]++;
+				int majority = 0;
+				for (int s = 1; s < counts.length; s++)
+					if (counts[s] > counts[majority])
+						majority = s;
+				tile[by*TILE_SIZE + bx] = palette[majority];
+			}
+		}
+		return tile;
+	}
+
+	/**
+	 * Drops every cached tile, at any level, that contains one of the cells.
+	 * Cells in the same level 1 tile as the one before share all their tiles.
+	 */
+	private void invalidate(int[] cells, int count){
+		if (tiles.isEmpty())
+			return;
+		int maxLevel = levelFor(minScale);
+		long previous = -1;
+		for (int k = 0; k < count; k++){
+			int row = cells[k] / gridWidth;
+			int column = cells[k] % gridWidth;
+			long key = tileKey(1, (column >> 1) / TILE_SIZE, (row >> 1) / TILE_SIZE);
+			if (key == previous)
+				continue;
+			previous = key;
+			for (int level = 1; level <= maxLevel; level++)
+				tiles.remove(tileKey(level, (column >> level) / TILE_SIZE, (row >> level) / TILE_SIZE));
+		}
+	}
+
+	/**
+	 * Keeps the view on the grid, or centered on it along a side it does not fill
+	 */
+	private void clamp(){
+		originX = clamp(originX, gridWidth);
+		originY = clamp(originY, gridHeight);
+	}
+
+	private double clamp(double origin, int cells){
+		double visible = size / scale;
+		if (visible >= cells)
+			return (cells - visible) / 2;
+		return Math.max(0, Math.min(origin, cells - visible));
+	}
+
+	/**
+	 * Zooms in or out, keeping the cell under a point of the view in place
+	 *
+	 * @param factor	how many times more pixels each cell should take
+	 * @param x			x coordinate within the view to zoom around
+	 * @param y			y coordinate within the view to zoom around
+	 */
+	public void zoom(double factor, double x, double y){
+		double cellX = originX + x / scale;
+		double cellY = originY + y / scale;
+		scale = Math.max(minScale, Math.min(MAX_SCALE, scale * factor));
+		originX = cellX - x / scale;
+		originY = cellY - y / scale;
+		clamp();
+		redraw();
+	}
+
+	/**
+	 * Moves the grid with the mouse
+	 *
+	 * @param dx	pixels to move right
+	 * @param dy	pixels to move down
+	 */
+	public void pan(double dx, double dy){
+		originX -= dx / scale;
+		originY -= dy / scale;
+		clamp();
+		redraw();
+	}
+
+	private void redraw(){
+		if (states != null)
+			render(states);
+	}
+
+	private void flush(){
+		if (writer != null)
+			writer.setPixels(0, 0, size, size, PixelFormat.getIntArgbInstance(), pixels, 0, size);
+	}
+
+	/**
+	 * @param x		x coordinate within the view
+	 * @param y		y coordinate within the view
+	 * @return	index of the cell drawn at the point, or NO_CELL if there is none
+	 */
+	public int cellAt(double x, double y){
+		int column = (int) Math.floor(originX + x / scale);
+		int row = (int) Math.floor(originY + y / scale);
+		if (x < 0 || y < 0 || x >= size || y >= size ||
+				column < 0 || column >= gridWidth || row < 0 || row >= gridHeight)
+			return NO_CELL;
+		return row*gridWidth + column;
+	}
+
+	/**
+	 * @return	pixels each cell takes across
+	 */
+	public double getScale(){
+		return scale;
+	}
+
+	/**
+	 * @return	how many tiles are cached
+	 */
+	public int getTileCount(){
+		return tiles.size();
+	}
+
+	/**
+	 * @return	ARGB color of every pixel in the last frame, row by row
+	 */
+	public int[] getPixels(){
+		return pixels;
+	}
+
+	/**
+	 * @param handler	called with the click and the index of the cell clicked;
+	 * 					clicks that end a drag are not passed on
+	 */
+	public void setOnCellClicked(ObjIntConsumer<MouseEvent> handler){
+		clickHandler = handler;
+	}
+
+	/**
+	 * @return	the node showing the image, made on the first call
+	 */
+	public ImageView getView(){
+		if (view == null){
+			image = new WritableImage(size, size);
+			writer = image.getPixelWriter();
+			view = new ImageView(image);
+			view.setLayoutX(left);
+			view.setLayoutY(top);
+			view.setOnScroll(e -> zoom(Math.pow(ZOOM_STEP, Math.signum(e.getDeltaY())), e.getX(), e.getY()));
+			view.setOnMousePressed(e -> {
+				dragX = e.getX();
+				dragY = e.getY();
+			});
+			view.setOnMouseDragged(e -> {
+				pan(e.getX() - dragX, e.getY() - dragY);
+				dragX = e.getX();
+				dragY = e.getY();
+			});
+			view.setOnMouseClicked(e -> {
+				int cell = cellAt(e.getX(), e.getY());
+				if (e.isStillSincePress() && cell != NO_CELL && clickHandler != null)
+					clickHandler.accept(e, cell);
+			});
+			flush();
+		}
+		return view;
+	}
+}
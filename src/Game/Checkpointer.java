@@ -0,0 +1,207 @@
+package Game;
+/**
+ * Saves a running simulation as a binary snapshot every N generations and/or
+ * every M minutes, so a long run can be resumed at the exact generation it
+ * was saved at. The stepping thread only copies the states (and any extra
+ * cell fields) into one of two reusable buffers; the file is written by a
+ * background thread, to a temporary file that then replaces the checkpoint,
+ * so a crash while writing never leaves a broken checkpoint behind.
+ *
+ * A checkpoint that falls due while both buffers are still being written is
+ * skipped rather than making the stepping thread wait. A save asked for with
+ * request instead waits for a free buffer, but still without blocking.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import CellGroup.CellGroup;
+import Util.SimulationData;
+import Util.SnapshotFile;
+
+public class Checkpointer {
+	public static final int BUFFERS = 2;
+	public static final String TEMP_SUFFIX = ".tmp";
+
+	private File file;
+	private volatile long everyGenerations;
+	private volatile long everyNanos;
+	private long lastGeneration;
+	private long lastTime;
+	private BlockingQueue<SimulationData> free = new ArrayBlockingQueue<>(BUFFERS);
+	private ExecutorService writer;
+	private AtomicReference<File> requested = new AtomicReference<>();
+	private AtomicReference<IOException> failure = new AtomicReference<>();
+	private AtomicLong written = new AtomicLong();
+	private long skipped;
+
+	/**
+	 * Must be made on the thread stepping the cells, or before it starts, since
+	 * the cells are copied once per buffer
+	 *
+	 * @param cells			cells to checkpoint
+	 * @param shape			0 for squares, 1 for hexagons, 2 for triangles
+	 * @param stateNames	name of each state, kept in the file for the graph
+	 * @param checkpointFile	file replaced by each checkpoint; SnapshotFile.EXTENSION is added if missing
+	 * @param generations	checkpoint every this many generations, or 0 for never
+	 * @param nanos			checkpoint every this many nanoseconds, or 0 for never
+	 */
+	public Checkpointer(CellGroup cells, int shape, List<String> stateNames, File checkpointFile, long generations, long nanos){
+		file = SnapshotFile.withExtension(checkpointFile);
+		everyGenerations = generations;
+		everyNanos = nanos;
+		lastGeneration = cells.getGeneration();
+		lastTime = System.nanoTime();
+		for (int i = 0; i < BUFFERS; i++){
+			SimulationData data = cells.getSimData(shape);
+			data.setStateNames(stateNames.toArray(new String[stateNames.size()]));
+			free.add(data);
+		}
+		writer = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "Checkpoint");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Changes how often checkpoints are taken, from any thread, counting from
+	 * the last checkpoint taken or from when this was made
+	 *
+	 * @param generations	checkpoint every this many generations, or 0 for never
+	 * @param nanos			checkpoint every this many nanoseconds, or 0 for never
+	 */
+	public void setInterval(long generations, long nanos){
+		everyGenerations = generations;
+		everyNanos = nanos;
+	}
+
+	/**
+	 * Takes a checkpoint if one is due. Called by the thread stepping the
+	 * cells, after each generation.
+	 *
+	 * @param cells		the cells this was made for
+	 * @return	whether a checkpoint was taken
+	 */
+	public boolean afterStep(CellGroup cells){
+		boolean due = everyGenerations > 0 && cells.getGeneration() - lastGeneration >= everyGenerations;
+		if (!due && everyNanos > 0)
+			due = System.nanoTime() - lastTime >= everyNanos;
+		if (!due)
+			return false;
+
+		lastGeneration = cells.getGeneration();
+		lastTime = System.nanoTime();
+		if (!capture(cells, file)){
+			skipped++;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Saves the next generation captured by takeRequest to a file, e.g. when
+	 * the user saves. Safe to call from any thread.
+	 *
+	 * @param target	file to write; SnapshotFile.EXTENSION is added if missing
+	 */
+	public void request(File target){
+		requested.set(SnapshotFile.withExtension(target));
+	}
+
+	/**
+	 * Captures the current generation for a requested save, once a buffer is
+	 * free. Called by the thread stepping the cells.
+	 *
+	 * @param cells		the cells this was made for
+	 * @return	whether a requested save was captured
+	 */
+	public boolean takeRequest(CellGroup cells){
+		File target = requested.get();
+		if (target == null || !capture(cells, target))
+			return false;
+		requested.compareAndSet(target, null);
+		return true;
+	}
+
+	private boolean capture(CellGroup cells, File target){
+		SimulationData data = free.poll();
+		if (data == null)
+			return false;
+		cells.copySimData(data);
+		writer.execute(() -> write(data, target));
+		return true;
+	}
+
+	private void write(SimulationData data, File target){
+		File temp = new File(target.getPath() + TEMP_SUFFIX);
+		try{
+			SnapshotFile.write(data, temp);
+			try{
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e){
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			written.incrementAndGet();
+		} catch (IOException e){
+			failure.compareAndSet(null, e);
+		} finally{
+			free.add(data);
+		}
+	}
+
+	/**
+	 * Waits for every captured checkpoint to be written and stops the writer
+	 *
+	 * @throws IOException	if any checkpoint could not be written
+	 */
+	public void close() throws IOException{
+		writer.shutdown();
+		try{
+			writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		IOException e = takeFailure();
+		if (e != null)
+			throw e;
+	}
+
+	/**
+	 * @return	the first checkpoint that could not be written since the last call, once; otherwise null
+	 */
+	public IOException takeFailure(){
+		return failure.getAndSet(null);
+	}
+
+	/**
+	 * @return	file replaced by each checkpoint
+	 */
+	public File getFile(){
+		return file;
+	}
+
+	/**
+	 * @return	number of checkpoints and requested saves written so far
+	 */
+	public long getWritten(){
+		return written.get();
+	}
+
+	/**
+	 * @return	number of checkpoints skipped because both buffers were being written
+	 */
+	public long getSkipped(){
+		return skipped;
+	}
+}
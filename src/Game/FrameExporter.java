@@ -0,0 +1,183 @@
+package Game;
+/**
+ * Writes every Nth generation of a CellGroup to a numbered PNG file, drawn from
+ * the engine's states rather than from the scene, so it works without a window.
+ * The stepping thread only copies the states into one of a fixed number of
+ * buffers; coloring and encoding happen on a small pool of worker threads.
+ * When every buffer is waiting to be written, the BLOCK policy makes the
+ * stepping thread wait for one, and the DROP policy skips the frame instead.
+ * 
+ * Frames show the grid area the way the window draws it, found with cellAt.
+ * Grids with more cells on a side than the area has pixels get one pixel per cell.
+ */
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+import CellGroup.CellGroup;
+import CellGroup.RasterRenderer;
+import javafx.scene.paint.Color;
+
+public class FrameExporter {
+	public static final int BLOCK = 0;
+	public static final int DROP = 1;
+	public static final String FORMAT = "png";
+	public static final String FILE_NAME = "frame%08d." + FORMAT;
+	
+	private File directory;
+	private int every;
+	private int policy;
+	private int width;
+	private int height;
+	private int[] pixelCells;
+	private int[] palette;
+	private BlockingQueue<byte[]> free;
+	private ExecutorService workers;
+	private ThreadLocal<BufferedImage> images;
+	private AtomicReference<IOException> failure = new AtomicReference<>();
+	private AtomicLong written = new AtomicLong();
+	private long dropped;
+	private long nextFrame;
+	
+	/**
+	 * @param cells			cells whose generations are exported
+	 * @param outputDirectory	where the files go; made if missing
+	 * @param generations	export every this many generations
+	 * @param threads		number of worker threads encoding frames
+	 * @param buffers		most frames waiting to be written at once
+	 * @param fullPolicy	BLOCK or DROP, what to do when every buffer is waiting
+	 * @throws IOException	if the directory cannot be made
+	 */
+	public FrameExporter(CellGroup cells, File outputDirectory, int generations, int threads, int buffers, int fullPolicy) throws IOException{
+		directory = outputDirectory;
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not make export directory " + directory + "!");
+		every = Math.max(1, generations);
+		policy = fullPolicy;
+		mapPixels(cells);
+		
+		palette = new int[CellGroup.STATE_COLORS.length];
+		for (int i = 0; i < palette.length; i++)
+			palette[i] = RasterRenderer.argb((Color) CellGroup.STATE_COLORS[i]);
+		
+		int numCells = cells.getCellWidth() * cells.getCellHeight();
+		free = new ArrayBlockingQueue<>(Math.max(1, buffers));
+		for (int i = 0; i < Math.max(1, buffers); i++)
+			free.add(new byte[numCells]);
+		workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			Thread t = new Thread(r, "Frame export");
+			t.setDaemon(true);
+			return t;
+		});
+		images = ThreadLocal.withInitial(() -> new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+	}
+	
+	private void mapPixels(CellGroup cells){
+		int side = CellGroup.INNER_SIZE;
+		if (cells.getCellWidth() > side || cells.getCellHeight() > side){
+			width = cells.getCellWidth();
+			height = cells.getCellHeight();
+			pixelCells = new int[width*height];
+			for (int p = 0; p < pixelCells.length; p++)
+				pixelCells[p] = p;
+			return;
+		}
+		
+		width = side;
+		height = side;
+		pixelCells = new int[side*side];
+		int origin = Game.SIZE - side;
+		for (int y = 0; y < side; y++)
+			for (int x = 0; x < side; x++)
+				pixelCells[y*side + x] = cells.cellAt(origin + x + 0.5, origin + y + 0.5);
+	}
+	
+	/**
+	 * A generation is due if it is the first offered or has reached the next
+	 * multiple of every, so steps that jump several generations still export
+	 * 
+	 * @param generation	how many generations have been stepped
+	 * @return	whether offer would try to queue the generation
+	 */
+	public boolean isDue(long generation){
+		return generation >= nextFrame;
+	}
+	
+	/**
+	 * Queues a generation to be written if it is one to export. Called by the
+	 * thread stepping the cells, after each step.
+	 * 
+	 * @param generation	how many generations have been stepped
+	 * @param states		state of every cell, indexed by cell number
+	 * @return	whether the frame was queued
+	 * @throws InterruptedException	if interrupted while blocked waiting for a buffer
+	 */
+	public boolean offer(long generation, byte[] states) throws InterruptedException{
+		if (!isDue(generation))
+			return false;
+		nextFrame = (generation / every + 1) * every;
+		byte[] buffer = policy == BLOCK? free.take(): free.poll();
+		if (buffer == null){
+			dropped++;
+			return false;
+		}
+		System.arraycopy(states, 0, buffer, 0, buffer.length);
+		workers.execute(() -> write(generation, buffer));
+		return true;
+	}
+	
+	private void write(long generation, byte[] states){
+		try{
+			BufferedImage image = images.get();
+			int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			for (int p = 0; p < pixels.length; p++)
+				pixels[p] = pixelCells[p] == CellGroup.NO_CELL? RasterRenderer.TRANSPARENT: palette[states[pixelCells[p]]];
+			ImageIO.write(image, FORMAT, new File(directory, String.format(FILE_NAME, generation)));
+			written.incrementAndGet();
+		} catch (IOException e){
+			failure.compareAndSet(null, e);
+		} finally{
+			free.add(states);
+		}
+	}
+	
+	/**
+	 * Waits for every queued frame to be written and stops the workers
+	 * 
+	 * @throws IOException	if any frame could not be written
+	 */
+	public void close() throws IOException{
+		workers.shutdown();
+		try{
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		if (failure.get() != null)
+			throw failure.get();
+	}
+	
+	/**
+	 * @return	number of frames written so far
+	 */
+	public long getWritten(){
+		return written.get();
+	}
+	
+	/**
+	 * @return	number of frames skipped because every buffer was waiting
+	 */
+	public long getDropped(){
+		return dropped;
+	}
+}
@@ -2,24 +2,34 @@ package Game;
 /**
  * Main game class, scene/stage is created here, creates UI and cellgroup
  * and calls upon them to initiate on-screen updates. All 
- * drawing occurs here.
+ * drawing occurs here. The cells are stepped by a SimulationThread;
+ * each frame shows and plots the newest snapshot it published.
  * 
  * @author Natalie Huffman
  */
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 import CellGroup.CellGroup;
 import CellGroup.HexCellGroup;
+import CellGroup.Snapshot;
 import CellGroup.SquareCellGroup;
+import CellGroup.StepMetrics;
 import CellGroup.TriCellGroup;
 import Util.AreaChartSample;
+import Util.PopulationFile;
+import Util.PopulationRecorder;
+import Util.SimulationData;
+import Util.SimulationReader;
+import Util.SnapshotFile;
+import Util.SpeedSlider;
 import Util.UI;
 import Util.Util;
 import javafx.animation.KeyFrame;
@@ -30,7 +40,6 @@ import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
-import javafx.scene.shape.Polygon;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
@@ -53,21 +62,30 @@ public class Game extends Application implements Runnable{
     public static final int MILLISECOND_DELAY = 1000 / FRAMES_PER_SECOND;
     public static final double SECOND_DELAY = 1.0 / FRAMES_PER_SECOND;
     public static final int CONSTANT_SPEED = 60;
+    public static final int TURBO_GENERATIONS = 50;
+    public static final boolean COMPACT_SAVES = true;
+    public static final long CHECKPOINT_MINUTES = 10;
+    public static final String RUN_STAMP = "yyyyMMdd-HHmmss";
     public static final String INTERFACE_FILE = "data/InterfaceText.txt";
     
     private Group root = new Group();
 	private Util util  = new Util();
 	private double speed = 1;
-	private double totalTime = 0;
-	private double nextUpdate = UPDATE_FREQ;
 	private double cellShapes;
 	private List<String> simText = new ArrayList<String>();
 	private Text pauseText = new Text(PAUSETEXT_X,PAUSETEXT_Y,"");
-    private Boolean stopGraphing = false;
-    private Queue<Number> dataQ= new ConcurrentLinkedQueue<Number>();
+    private boolean ended = false;
     
 	private UI userInterface;
     private CellGroup cells;
+    private SimulationThread simulation;
+    private Checkpointer checkpointer;
+    private boolean checkpointing;
+    private File dataFile;
+    private String runName;
+    private boolean recording;
+    private Snapshot shown;
+    private long plottedGeneration;
 	private Scene myScene;
 	private Stage myStage;
 	private List<String> cellStateNames;
@@ -80,6 +98,7 @@ public class Game extends Application implements Runnable{
 	@Override
 	public void start(Stage s) throws Exception {
 		myStage = s;
+		UI.setShowsDialogs(true);
 		s.setTitle(GAME_TITLE);
 		initGame(SIZE, SIZE, BACKGROUND);
 		myStage.setScene(myScene);
@@ -88,7 +107,7 @@ public class Game extends Application implements Runnable{
 		myStage.show();
 		
 		KeyFrame frame = new KeyFrame(Duration.millis(MILLISECOND_DELAY),
-				e -> {step(SECOND_DELAY);});
+				e -> {step();});
 		Timeline animation = new Timeline();
 		animation.setCycleCount(Timeline.INDEFINITE);
 		
@@ -98,6 +117,7 @@ public class Game extends Application implements Runnable{
 
 	private void endScreen(){
 		pauseText.setText(simText.get(ENDTEXT_DEX));
+		ended = true;
 	}
 	
     private void initGame(int width, int height, Paint background){
@@ -113,16 +133,18 @@ public class Game extends Application implements Runnable{
     	
     	setUpGraph();
     	draw();
+    	startSimulation();
     }
     
     private void restart(){
 		try {
+			stopSimulation();
 			readXML();
-			totalTime = 0;
-			nextUpdate = UPDATE_FREQ;
+			ended = false;
 			root.getChildren().clear();
 			setUpGraph();
 			draw();
+			startSimulation();
 		} catch (IOException e) {
 			UI.exceptionThrower(e);
 			restart();
@@ -130,34 +152,126 @@ public class Game extends Application implements Runnable{
     }
     
     private void readXML() throws IOException{
-    	File dataFile = userInterface.getFileUI();
+    	dataFile = userInterface.getFileUI();
     	if(dataFile == null) throw new IOException("File is null!");
+    	String name = dataFile.getName();
+    	runName = (name.lastIndexOf('.') > 0? name.substring(0, name.lastIndexOf('.')): name)
+    			+ "-" + new SimpleDateFormat(RUN_STAMP).format(new Date());
     	
-    	List<String> data = util.parseText(dataFile);
-    	if (data.size()<MIN_POSSIBLE_INFO) throw new IOException("Invalid parameters in XML file!");
-    	
-    	LinkedList<Double> configInfo = new LinkedList<>();
-    	for (String s: data)
-    		configInfo.add(Double.parseDouble(s));
-    	
-    	cellStateNames = util.getCellStateNames();
-    	cellShapes = configInfo.pop();
+    	SimulationData data = SimulationReader.read(dataFile);
+    	cellStateNames = Arrays.asList(data.getStateNames());
+    	cellShapes = data.getGridShape();
 
-    	cells = new TriCellGroup(configInfo);
-    	//initCells(cellShapes, configInfo);
+    	initCells(cellShapes, data);
+    	registerMetrics();
+    }
+    
+    private void startSimulation(){
+    	simulation = new SimulationThread(cells);
+    	checkpointing = userInterface.isCheckpointing();
+    	checkpointer = new Checkpointer(cells, (int) cellShapes, cellStateNames, runFile(SnapshotFile.EXTENSION),
+    			0, checkpointing? TimeUnit.MINUTES.toNanos(CHECKPOINT_MINUTES): 0);
+    	simulation.setCheckpointer(checkpointer);
+    	recording = userInterface.isRecording();
+    	PopulationRecorder recorder = recording? openRecorder(): null;
+    	try {
+    		if (recorder != null)
+    			recorder.record(cells);
+    	} catch (IOException e) {
+    		UI.exceptionThrower(e);
+    	}
+    	simulation.setRecorder(recorder);
+    	shown = simulation.getExchange().take();
+    	plottedGeneration = shown.getGeneration();
+    	simulation.start();
+    }
+    
+    /**
+     * @return	a file next to the loaded simulation, named for it and when it was loaded
+     */
+    private File runFile(String extension){
+    	return new File(dataFile.getAbsoluteFile().getParentFile(), runName + extension);
+    }
+    
+    /**
+     * @return	runFile, or if that exists the first of it numbered -1, -2, ... that does not,
+     * 			so turning recording back on never overwrites an earlier recording
+     */
+    private File freshRunFile(String extension){
+    	File file = runFile(extension);
+    	for (int k = 1; file.exists(); k++)
+    		file = new File(file.getParentFile(), runName + "-" + k + extension);
+    	return file;
     }
     
-    private void initCells(double type, List<Double> configInfo) throws IOException{
+    /**
+     * @return	a recorder writing every generation to a fresh run file, or null if it cannot be opened
+     */
+    private PopulationRecorder openRecorder(){
+    	try {
+    		return new PopulationRecorder(freshRunFile(PopulationFile.EXTENSION), cellStateNames, cells.getNumStates(), 1);
+    	} catch (IOException e) {
+    		UI.exceptionThrower(e);
+    		return null;
+    	}
+    }
+    
+    /**
+     * Applies the Checkpoint and Record check boxes to the running simulation without
+     * restarting it, so the recording so far is kept when only checkpointing changes
+     */
+    private void applyCheckBoxes(){
+    	if (userInterface.isCheckpointing() != checkpointing){
+    		checkpointing = userInterface.isCheckpointing();
+    		checkpointer.setInterval(0, checkpointing? TimeUnit.MINUTES.toNanos(CHECKPOINT_MINUTES): 0);
+    	}
+    	if (userInterface.isRecording() != recording){
+    		recording = userInterface.isRecording();
+    		PopulationRecorder old = simulation.setRecorder(recording? openRecorder(): null);
+    		try {
+    			if (old != null)
+    				old.close();
+    		} catch (IOException e) {
+    			UI.exceptionThrower(e);
+    		}
+    	}
+    }
+    
+    private void stopSimulation(){
+    	if (simulation != null)
+    		simulation.shutdown();
+    	try {
+    		if (checkpointer != null)
+    			checkpointer.close();
+    		PopulationRecorder last = simulation == null? null: simulation.setRecorder(null);
+    		if (last != null)
+    			last.close();
+    	} catch (IOException e) {
+    		UI.exceptionThrower(e);
+    	}
+    }
+    
+    private void registerMetrics(){
+    	try {
+    		cells.getMetrics().register();
+    	} catch (IOException e) {
+    		UI.exceptionThrower(e);
+    	}
+    }
+    
+    private void initCells(double type, SimulationData data) throws IOException{
     	switch ((int) type){
     	case 0:
-    		cells = new SquareCellGroup(configInfo);
+    		cells = new SquareCellGroup(data, CellGroup.AUTO_ENGINE);
     		break;
     	case 1:
-    		cells = new HexCellGroup(configInfo);
+    		cells = new HexCellGroup(data, CellGroup.AUTO_ENGINE);
     		break;
     	case 2:
-    		cells = new TriCellGroup(configInfo);
+    		cells = new TriCellGroup(data, CellGroup.AUTO_ENGINE);
     		break;
+    	default:
+    		throw new IOException("Unrecognized shape! Use square, hex, or tri!");
     	}
     }
     
@@ -174,59 +288,50 @@ public class Game extends Application implements Runnable{
 			aCS = new AreaChartSample(cellStateNames, "ERROR ON TITLE");
 		}
 		root.getChildren().add(aCS.getAreaChart());
-    	plot();
+    	plot(cells.getGeneration(), cells.getCellStates());
     }
     
-    private void plot() {
-		int[] cellStates = cells.getCellStates();
-		for(int i = 0; i < cellStates.length; i++) {
-        	dataQ.add(cellStates[i]);
-		}
-		aCS.addDataToSeries(dataQ);
+    private void plot(long generation, int[] cellStates) {
+    	long start = cells.getMetrics().startPhase();
+		aCS.addData(generation, cellStates);
+		cells.getMetrics().endPhase(StepMetrics.PLOT_PHASE, start);
 	}
     
     private void draw(){
     	pauseText.setFont(Font.font(Font.getDefault().toString(), PAUSE_FONT_SIZE));
     	
-    	for (Polygon p: cells.drawShapes())
-	    	root.getChildren().add(p);
+    	root.getChildren().add(cells.drawGrid());
     	
     	for (Button b: userInterface.getButtons())
     		root.getChildren().add(b);
     	
     	root.getChildren().add(userInterface.getSlider());
+    	root.getChildren().add(userInterface.getTurbo());
+    	root.getChildren().add(userInterface.getCheckpoint());
+    	root.getChildren().add(userInterface.getRecord());
     	root.getChildren().add(pauseText);    	
     }
     
-	private void step(double elapsedTime){
+	private void step(){
 		speed = userInterface.getSpeed();
+		simulation.setGenerationsPerSecond(speed/UPDATE_FREQ);
+		simulation.setGenerationsPerFrame(generationsPerFrame());
+		if (!ended)
+			pauseText.setText(speed == 0? simText.get(PAUSETEXT_DEX): "");
+		if (userInterface.step())
+			simulation.requestStep();
 		
-		if (speed != 0)
-		{
-			totalTime+=elapsedTime;
-			pauseText.setText("");
-			stopGraphing = false;
-		}
-		try{
-			if (totalTime>nextUpdate){
-				cells.update();
-				if(!stopGraphing) 
-					plot();
-				nextUpdate+=UPDATE_FREQ/speed;
-			}
-			else if (userInterface.step()) {
-				cells.update();
-				plot();
-			}
-			else if (speed==0) {
-				pauseText.setText(simText.get(PAUSETEXT_DEX));
-				stopGraphing = true;
-			}
-		} catch(Exception e){
+		showLatest();
+		Exception e = simulation.takeFailure();
+		if (e != null){
 			UI.exceptionThrower(e);
 			endScreen();
 		}
+		IOException saveFailure = checkpointer.takeFailure();
+		if (saveFailure != null)
+			UI.exceptionThrower(saveFailure);
 		
+		applyCheckBoxes();
 		if (userInterface.restart())
 			restart();
 		if(userInterface.shouldSave())
@@ -234,21 +339,60 @@ public class Game extends Application implements Runnable{
 
 	}
 
+	/**
+	 * In turbo the slider picks generations per frame instead of per second,
+	 * up to as many as fit in a frame at its top
+	 * 
+	 * @return	generations per frame for the simulation thread, or zero outside turbo
+	 */
+	private int generationsPerFrame(){
+		if (!userInterface.isTurbo())
+			return 0;
+		if (speed >= 2*SpeedSlider.START_VAL)
+			return SimulationThread.UNCAPPED;
+		return (int) Math.max(1, Math.round(speed*TURBO_GENERATIONS));
+	}
+	
+	/**
+	 * Draws the newest generation the simulation thread published, and plots
+	 * it if it is a new generation rather than only a mouse edit
+	 */
+	private void showLatest(){
+		Snapshot latest = simulation.getExchange().take();
+		if (latest == null)
+			return;
+		shown = latest;
+		cells.show(latest);
+		if (latest.getGeneration() > plottedGeneration){
+			plottedGeneration = latest.getGeneration();
+			plot(plottedGeneration, latest.getStateCounts());
+		}
+	}
+	
 	private void saveToFile(){
 		speed = 0;
 		File f = userInterface.getSaveLocation();
-		if (f != null) {
+		if (f != null && SnapshotFile.isSnapshot(f))
+			saveSnapshot(f);
+		else if (f != null) {
 			try {
-				List<String> simInfo = new LinkedList<String>();
-				simInfo.addAll(cells.getSimInfoCopy());
-				simInfo.add(0, "" + (int) cellShapes);
-				util.saveFile(simInfo, f);
+				SimulationData data = cells.getSimData((int) cellShapes, shown);
+				data.setStateNames(cellStateNames.toArray(new String[cellStateNames.size()]));
+				util.saveFile(data, f, COMPACT_SAVES);
 			} catch (IOException e) {
 				UI.exceptionThrower(e);
 			}
 		}
 	}
 	
+	/**
+	 * Has the simulation thread copy its next generation, with the cells' extra
+	 * fields, for the checkpointer to write in binary in the background
+	 */
+	private void saveSnapshot(File f){
+		checkpointer.request(f);
+	}
+	
 	/**
 	 * Create game to run in a thread
 	 * 
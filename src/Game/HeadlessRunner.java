@@ -0,0 +1,298 @@
+package Game;
+/**
+ * Runs a simulation from an XML file, binary snapshot or Life RLE or macrocell
+ * pattern with no JavaFX window, for long runs on machines without a display.
+ * Loads the file the same way Game does, steps the cells as fast as possible
+ * for a number of generations or until a time budget runs out, then prints
+ * generations per second and the final count of each state.
+ * 
+ * Usage: HeadlessRunner file generations [engine [k]] [png directory every [drop]]
+ *            [checkpoint file generations [minutes]] [record file [every]]
+ *        HeadlessRunner file seconds s [engine [k]] [png ...] [checkpoint ...] [record ...]
+ * where engine is auto, object, array, parallel, hashlife or bitwise. Auto never picks hashlife, whose
+ * pattern grows past the edge of the grid instead of dying there, so asking for it prints a reminder.
+ * hashlife k jumps 2^k generations each step, so a run of generations may end up to 2^k - 1 past it;
+ * exports, checkpoints and rows are then taken on the first step at or past each multiple asked for.
+ * A file name that does not exist is looked for in data/. With png, every
+ * Nth generation is written to the directory by a FrameExporter, which waits
+ * for the writers when they fall behind unless drop is given. With checkpoint,
+ * a Checkpointer saves a snapshot to the file every so many generations
+ * (0 for never) and/or minutes, which can be given back as the file to resume;
+ * .csim is added to the file name if it is missing, since that is how a
+ * snapshot is recognized.
+ * With record, a PopulationRecorder writes the count of each state every
+ * generation, or every Nth, to the file for PopulationFile to read back.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import CellGroup.CellGroup;
+import CellGroup.HexCellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.StepMetrics;
+import CellGroup.TriCellGroup;
+import Util.PopulationRecorder;
+import Util.SimulationData;
+import Util.SimulationReader;
+
+public class HeadlessRunner {
+	public static final String DATA_DIRECTORY = "data/";
+	public static final String SECONDS_FLAG = "s";
+	public static final String EXPORT_FLAG = "png";
+	public static final String DROP_FLAG = "drop";
+	public static final String CHECKPOINT_FLAG = "checkpoint";
+	public static final String RECORD_FLAG = "record";
+	public static final List<String> FLAGS = Arrays.asList(new String[] {EXPORT_FLAG, CHECKPOINT_FLAG, RECORD_FLAG});
+	public static final int BUFFERS_PER_WRITER = 2;
+	public static final List<String> ENGINE_NAMES = Arrays.asList(new String[] {
+			"object", "array", "parallel", "hashlife", "bitwise"});
+	public static final int CHECK_CLOCK_EVERY = 16;
+	
+	private CellGroup cells;
+	private FrameExporter exporter;
+	private Checkpointer checkpointer;
+	private PopulationRecorder recorder;
+	private int shape;
+	private List<String> cellStateNames;
+	private long generations;
+	
+	/**
+	 * @param args	file, then generations or seconds followed by s, then optionally the engine
+	 */
+	public static void main(String[] args){
+		if (args.length < 2){
+			System.err.println("Usage: HeadlessRunner file (generations | seconds s) [engine [k]] [png directory every [drop]]"
+					+ " [checkpoint file generations [minutes]] [record file [every]]");
+			System.exit(1);
+		}
+		try{
+			boolean timed = args.length > 2 && SECONDS_FLAG.equals(args[2]);
+			List<String> options = new ArrayList<>(Arrays.asList(args).subList(timed? 3: 2, args.length));
+			List<String> checkpointOptions = splitOptions(options, CHECKPOINT_FLAG);
+			List<String> recordOptions = splitOptions(options, RECORD_FLAG);
+			List<String> exportOptions = splitOptions(options, EXPORT_FLAG);
+			int engine = options.isEmpty()? CellGroup.AUTO_ENGINE: engineMode(options.get(0));
+			if (engine == CellGroup.HASHLIFE_ENGINE)
+				System.err.println("hashlife: the grid is a window onto an unbounded plane, so cells past its edge keep living");
+			
+			HeadlessRunner runner = new HeadlessRunner(findFile(args[0]), engine);
+			if (options.size() > 1)
+				runner.getCells().setStepLog2(Integer.parseInt(options.get(1)));
+			if (exportOptions != null){
+				if (exportOptions.size() < 2) throw new IOException("Usage: png directory every [drop]");
+				int policy = exportOptions.contains(DROP_FLAG)? FrameExporter.DROP: FrameExporter.BLOCK;
+				runner.export(new File(exportOptions.get(0)), Integer.parseInt(exportOptions.get(1)), policy);
+			}
+			if (checkpointOptions != null){
+				if (checkpointOptions.size() < 2) throw new IOException("Usage: checkpoint file generations [minutes]");
+				double minutes = checkpointOptions.size() > 2? Double.parseDouble(checkpointOptions.get(2)): 0;
+				runner.checkpoint(new File(checkpointOptions.get(0)), Long.parseLong(checkpointOptions.get(1)),
+						(long) (minutes * 60e9));
+			}
+			if (recordOptions != null){
+				if (recordOptions.isEmpty()) throw new IOException("Usage: record file [every]");
+				runner.record(new File(recordOptions.get(0)), recordOptions.size() > 1? Integer.parseInt(recordOptions.get(1)): 1);
+			}
+			long start = System.nanoTime();
+			if (timed)
+				runner.runFor((long) (Double.parseDouble(args[1]) * 1e9));
+			else
+				runner.run(Long.parseLong(args[1]));
+			runner.finish();
+			runner.report(System.nanoTime() - start);
+		} catch (Exception e){
+			System.err.println(e);
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Removes a flag and the options after it, up to the next flag, from the options
+	 * 
+	 * @return	the options after the flag, or null if it is not given
+	 */
+	private static List<String> splitOptions(List<String> options, String flag){
+		int start = options.indexOf(flag);
+		if (start < 0)
+			return null;
+		int end = start + 1;
+		while (end < options.size() && !FLAGS.contains(options.get(end)))
+			end++;
+		List<String> flagged = new ArrayList<>(options.subList(start + 1, end));
+		options.subList(start, end).clear();
+		return flagged;
+	}
+	
+	/**
+	 * Loads a simulation from an XML file
+	 * 
+	 * @param dataFile	XML file describing the simulation
+	 * @param engine	which engine steps the cells, one of the CellGroup engine constants
+	 * @throws IOException	if the file or its parameters are invalid
+	 */
+	public HeadlessRunner(File dataFile, int engine) throws IOException{
+		SimulationData data = SimulationReader.read(dataFile);
+		cellStateNames = Arrays.asList(data.getStateNames());
+		shape = data.getGridShape();
+		cells = createCells(data, engine);
+		cells.getMetrics().register();
+	}
+	
+	private static CellGroup createCells(SimulationData data, int engine) throws IOException{
+		switch (data.getGridShape()){
+			case 0: return new SquareCellGroup(data, engine);
+			case 1: return new HexCellGroup(data, engine);
+			case 2: return new TriCellGroup(data, engine);
+		}
+		throw new IOException("Unrecognized shape! Use square, hex, or tri!");
+	}
+	
+	private static int engineMode(String name) throws IOException{
+		if ("auto".equalsIgnoreCase(name))
+			return CellGroup.AUTO_ENGINE;
+		int mode = ENGINE_NAMES.indexOf(name.toLowerCase());
+		if (mode < 0) throw new IOException("Unrecognized engine! Use auto or one of " + ENGINE_NAMES);
+		return mode;
+	}
+	
+	private static File findFile(String name){
+		File file = new File(name);
+		return file.exists()? file: new File(DATA_DIRECTORY + name);
+	}
+	
+	/**
+	 * Steps the cells until they have advanced at least a number of generations
+	 * 
+	 * @param numGenerations	how many generations to step
+	 * @throws Exception	if the cells cannot update
+	 */
+	public void run(long numGenerations) throws Exception{
+		while (generations < numGenerations)
+			step();
+	}
+	
+	/**
+	 * Steps the cells until the time budget runs out, reading the clock only
+	 * every few generations so small grids are not slowed down by it
+	 * 
+	 * @param nanos		time budget in nanoseconds
+	 * @throws Exception	if the cells cannot update
+	 */
+	public void runFor(long nanos) throws Exception{
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end)
+			for (int k = 0; k < CHECK_CLOCK_EVERY; k++)
+				step();
+	}
+	
+	/**
+	 * Steps without drawing, and only reads the states for a frame that is due,
+	 * since an engine like HashLife has to export its window to give them
+	 */
+	private void step() throws Exception{
+		cells.step();
+		generations += cells.getGenerationsPerUpdate();
+		if (exporter != null && exporter.isDue(cells.getGeneration()))
+			exporter.offer(cells.getGeneration(), cells.getEngine().getStates());
+		if (checkpointer != null)
+			checkpointer.afterStep(cells);
+		if (recorder != null)
+			recorder.record(cells);
+	}
+	
+	/**
+	 * Writes the current generation and every Nth one after it to PNG files
+	 * 
+	 * @param directory		where the files go
+	 * @param every			export every this many generations
+	 * @param policy		FrameExporter.BLOCK or FrameExporter.DROP
+	 * @throws Exception	if the directory cannot be made
+	 */
+	public void export(File directory, int every, int policy) throws Exception{
+		int writers = Runtime.getRuntime().availableProcessors();
+		exporter = new FrameExporter(cells, directory, every, writers, writers*BUFFERS_PER_WRITER, policy);
+		exporter.offer(cells.getGeneration(), cells.getEngine().getStates());
+	}
+	
+	/**
+	 * Saves a snapshot of the run every so many generations and/or nanoseconds
+	 * 
+	 * @param file			file replaced by each checkpoint; .csim is added if missing
+	 * @param every			checkpoint every this many generations, or 0 for never
+	 * @param nanos			checkpoint every this many nanoseconds, or 0 for never
+	 */
+	public void checkpoint(File file, long every, long nanos){
+		checkpointer = new Checkpointer(cells, shape, cellStateNames, file, every, nanos);
+	}
+	
+	/**
+	 * Records the count of each state in the current generation and every Nth one after it
+	 * 
+	 * @param file			file to write
+	 * @param every			record generations that are a multiple of this
+	 * @throws IOException	if the file cannot be opened or written
+	 */
+	public void record(File file, int every) throws IOException{
+		recorder = new PopulationRecorder(file, cellStateNames, cells.getNumStates(), every);
+		recorder.record(cells);
+	}
+	
+	/**
+	 * Waits for any frames and checkpoints still being written, and writes the last rows recorded
+	 * 
+	 * @throws IOException	if a frame, checkpoint or row could not be written
+	 */
+	public void finish() throws IOException{
+		if (exporter != null)
+			exporter.close();
+		if (checkpointer != null)
+			checkpointer.close();
+		if (recorder != null)
+			recorder.close();
+	}
+	
+	/**
+	 * Prints how fast the run went and how many cells ended in each state
+	 * 
+	 * @param elapsedNanos	how long the run took
+	 */
+	public void report(long elapsedNanos){
+		double seconds = elapsedNanos / 1e9;
+		System.out.printf("%d generations in %.3f s: %.1f generations/sec%n", generations, seconds, generations / seconds);
+		
+		StepMetrics metrics = cells.getMetrics();
+		for (int phase = 0; phase < StepMetrics.PHASE_NAMES.size(); phase++)
+			System.out.printf("%s: %.3f ms%n", StepMetrics.PHASE_NAMES.get(phase), metrics.getPhaseNanos(phase) / 1e6);
+		System.out.printf("cells processed: %d, allocated: %d bytes%n", metrics.getCellsProcessed(), metrics.getAllocatedBytes());
+		if (exporter != null)
+			System.out.printf("frames written: %d, dropped: %d%n", exporter.getWritten(), exporter.getDropped());
+		if (checkpointer != null)
+			System.out.printf("checkpoints written to %s: %d, skipped: %d, final generation: %d%n",
+					checkpointer.getFile(), checkpointer.getWritten(), checkpointer.getSkipped(), cells.getGeneration());
+		if (recorder != null)
+			System.out.printf("population rows recorded: %d%n", recorder.getRows());
+		
+		int[] counts = cells.getCellStates();
+		for (int i = 0; i < counts.length; i++){
+			String name = i < cellStateNames.size()? cellStateNames.get(i): "state " + i;
+			System.out.println(name + ": " + counts[i]);
+		}
+	}
+	
+	/**
+	 * @return	number of generations stepped so far
+	 */
+	public long getGenerations(){
+		return generations;
+	}
+	
+	/**
+	 * @return	the cells being simulated
+	 */
+	public CellGroup getCells(){
+		return cells;
+	}
+}
@@ -0,0 +1,205 @@
+package Game;
+/**
+ * Steps a CellGroup on its own thread so a slow generation never freezes the
+ * window, and so the simulation can run faster than the frame rate. After each
+ * generation (or mouse edit) the cells are copied into a SnapshotExchange, from
+ * which the JavaFX thread takes the newest snapshot every frame without waiting.
+ * 
+ * The thread paces itself to the requested generations per second; at zero it
+ * only steps when asked to with requestStep. In turbo it instead steps a set
+ * number of generations each frame, or as many as fit in a frame (UNCAPPED),
+ * and only publishes the last one, since that is the only one drawn. If
+ * stepping throws, the thread stops and keeps the exception for the JavaFX
+ * thread to report. A Checkpointer, if set, is given each generation stepped
+ * and any save the JavaFX thread asked it for, and a PopulationRecorder, if
+ * set, records each one, including those turbo never publishes.
+ */
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import CellGroup.CellGroup;
+import CellGroup.SnapshotExchange;
+import Util.PopulationRecorder;
+
+public class SimulationThread extends Thread {
+	public static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(Game.MILLISECOND_DELAY);
+	public static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / Game.FRAMES_PER_SECOND;
+	public static final int UNCAPPED = Integer.MAX_VALUE;
+	
+	private final CellGroup cells;
+	private final SnapshotExchange exchange;
+	private final AtomicInteger requestedSteps = new AtomicInteger();
+	private final AtomicReference<Exception> failure = new AtomicReference<>();
+	private volatile double generationsPerSecond;
+	private volatile int generationsPerFrame;
+	private volatile boolean running = true;
+	private volatile Checkpointer checkpointer;
+	private final Object recorderLock = new Object();
+	private PopulationRecorder recorder;
+	
+	/**
+	 * Publishes the cells' current generation, so a snapshot is ready before
+	 * the thread starts. The cells must not be stepped by anything else after this.
+	 * 
+	 * @param cellGroup		cells to step
+	 */
+	public SimulationThread(CellGroup cellGroup){
+		super("Simulation");
+		setDaemon(true);
+		cells = cellGroup;
+		exchange = cells.createExchange();
+		cells.setEditsQueued(true);
+		cells.publish(exchange);
+	}
+	
+	@Override
+	public void run(){
+		long nextStep = System.nanoTime();
+		while (running){
+			try{
+				boolean edited = cells.applyEdits();
+				Checkpointer saver = checkpointer;
+				if (saver != null)
+					saver.takeRequest(cells);
+				double rate = generationsPerSecond;
+				int perFrame = generationsPerFrame;
+				long now = System.nanoTime();
+				if (rate <= 0)
+					nextStep = now;
+				
+				if (takeRequestedStep()){
+					step();
+					cells.publish(exchange);
+				}
+				else if (rate > 0 && perFrame > 0 && now >= nextStep){
+					stepFrame(perFrame, now);
+					cells.publish(exchange);
+					nextStep = perFrame == UNCAPPED? now: Math.max(nextStep + FRAME_NANOS, now);
+				}
+				else if (rate > 0 && now >= nextStep){
+					step();
+					cells.publish(exchange);
+					long period = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(rate, 1e-9));
+					nextStep = Math.max(nextStep + period, now);
+				}
+				else{
+					if (edited)
+						cells.publish(exchange);
+					LockSupport.parkNanos(rate > 0? Math.min(nextStep - now, IDLE_NANOS): IDLE_NANOS);
+				}
+			} catch (Exception e){
+				failure.set(e);
+				running = false;
+			}
+		}
+	}
+	
+	/**
+	 * Steps a number of generations, or until a frame's time has passed if UNCAPPED
+	 */
+	private void stepFrame(int generations, long start) throws Exception{
+		for (int k = 0; k < generations; k++){
+			step();
+			if (generations == UNCAPPED && System.nanoTime() - start >= FRAME_NANOS)
+				return;
+		}
+	}
+	
+	private void step() throws Exception{
+		cells.step();
+		Checkpointer saver = checkpointer;
+		if (saver != null)
+			saver.afterStep(cells);
+		synchronized (recorderLock){
+			if (recorder != null)
+				recorder.record(cells);
+		}
+	}
+	
+	private boolean takeRequestedStep(){
+		return requestedSteps.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+	}
+	
+	/**
+	 * @param rate	generations to step each second; zero pauses
+	 */
+	public void setGenerationsPerSecond(double rate){
+		if (rate != generationsPerSecond){
+			generationsPerSecond = rate;
+			LockSupport.unpark(this);
+		}
+	}
+	
+	/**
+	 * @param generations	generations to step per frame before publishing, UNCAPPED
+	 * 						for as many as fit in a frame, or zero to pace by
+	 * 						generations per second; either way a rate of zero pauses
+	 */
+	public void setGenerationsPerFrame(int generations){
+		if (generations != generationsPerFrame){
+			generationsPerFrame = generations;
+			LockSupport.unpark(this);
+		}
+	}
+	
+	/**
+	 * @param saver		checkpointer made for these cells, or null for none
+	 */
+	public void setCheckpointer(Checkpointer saver){
+		checkpointer = saver;
+	}
+	
+	/**
+	 * Swaps the recorder while the thread runs. Once this returns the thread is
+	 * done with the old recorder, so the caller may close it.
+	 * 
+	 * @param population	recorder to give each generation stepped, or null for none
+	 * @return	the recorder it replaces, or null if there was none
+	 */
+	public PopulationRecorder setRecorder(PopulationRecorder population){
+		synchronized (recorderLock){
+			PopulationRecorder old = recorder;
+			recorder = population;
+			return old;
+		}
+	}
+	
+	/**
+	 * Asks for one more generation, even while paused
+	 */
+	public void requestStep(){
+		requestedSteps.incrementAndGet();
+		LockSupport.unpark(this);
+	}
+	
+	/**
+	 * @return	exchange the JavaFX thread takes snapshots from
+	 */
+	public SnapshotExchange getExchange(){
+		return exchange;
+	}
+	
+	/**
+	 * @return	the exception that stopped the thread, once; otherwise null
+	 */
+	public Exception takeFailure(){
+		return failure.getAndSet(null);
+	}
+	
+	/**
+	 * Stops stepping and waits for the current generation to finish, after
+	 * which the cells can be used from the calling thread again
+	 */
+	public void shutdown(){
+		running = false;
+		LockSupport.unpark(this);
+		try{
+			join();
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		cells.setEditsQueued(false);
+	}
+}
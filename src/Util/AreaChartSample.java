@@ -14,6 +14,8 @@ import javafx.scene.chart.XYChart.Series;
  * be passing a string for the title of the graph. If either of these are null or of invalid data types, the class constructor would not work.
  * Dependencies: Depends on CellGroup data for the number of cells in each state and the Game class to pass on this information.
  * Example of how to use it: create the chart, graph/don't graph according to pauses, add data to graph every step
+ * The whole run is kept in a PopulationHistory, and each series only ever shows up to MAX_POINTS of it, picked so the
+ * shape of the line is kept, so the chart stays smooth and cheap to draw however long the simulation runs.
  * Credit to a StackOverFlow post--borrowed a lot of code from there
  * 
  * @author Owen Smith
@@ -21,6 +23,8 @@ import javafx.scene.chart.XYChart.Series;
  */
 
 public class AreaChartSample {
+    public static final int HISTORY_CAPACITY = 4096;
+    public static final int MAX_POINTS = 250;
     private int xSeriesData=0;
     private int maxWidth = 500;
     private int maxHeight = 155;
@@ -28,6 +32,8 @@ public class AreaChartSample {
     private int startY = 0;
     private List<Series<Number, Number>> series = new ArrayList<Series<Number, Number>>();
     private AreaChart<Number,Number> sc;
+    private PopulationHistory history;
+    private int[] chosen = new int[MAX_POINTS];
 	
 	public AreaChartSample(List<String> cellStateNames,String title) {
 		NumberAxis xAxis = new NumberAxis();
@@ -40,6 +46,8 @@ public class AreaChartSample {
         sc = new AreaChart<Number,Number>(xAxis,yAxis);
         sc.setId("liveAreaChart");
         sc.setTitle(title);
+        sc.setAnimated(false);
+        history = new PopulationHistory(cellStateNames.size(), HISTORY_CAPACITY);
 
         //-- Chart Series
         for(int i = 0; i < cellStateNames.size(); i++) {
@@ -68,17 +76,55 @@ public class AreaChartSample {
 	 */
 	
 	public void addDataToSeries(Queue<Number> dataQ){
-		int it = 0;
-        while(!dataQ.isEmpty() && it<series.size())   {
-            series.get(it).getData().add(new AreaChart.Data<Number, Number>(xSeriesData,dataQ.remove()));
-
-            //-- Get rid of a bunch from the chart
-            if (series.get(it).getData().size() > 1000) {
-                series.get(it).getData().remove(0,999);
-            }
-            it++;
-        }
-        xSeriesData++;
+		int[] counts = new int[series.size()];
+		for (int it = 0; !dataQ.isEmpty() && it < counts.length; it++)
+			counts[it] = dataQ.remove().intValue();
+		addData(xSeriesData, counts);
+		xSeriesData++;
     }
+	
+	/** addData(long generation, int[] counts) purpose: to record one generation's counts and redraw every series from the history
+	 * Assumptions: generations are added in increasing order
+	 * @param generation--the generation the counts are from, used as the x value
+	 * @param counts--the number of cells of each state
+	 */
+	public void addData(long generation, int[] counts){
+		history.add(generation, counts);
+		for (int s = 0; s < series.size(); s++)
+			showSeries(s);
+	}
+	
+	/** replot(PopulationFile file, long fromGeneration, long toGeneration) purpose: to redraw every series from a recorded range of a run
+	 * Assumptions: the file counts the same states the chart was made with; later calls to addData add to the range shown
+	 * @param file--population file a PopulationRecorder wrote
+	 * @param fromGeneration--first generation to show
+	 * @param toGeneration--last generation to show
+	 */
+	public void replot(PopulationFile file, long fromGeneration, long toGeneration){
+		history = new PopulationHistory(series.size(), HISTORY_CAPACITY);
+		file.fill(history, fromGeneration, toGeneration, HISTORY_CAPACITY);
+		for (int s = 0; s < series.size(); s++)
+			showSeries(s);
+	}
+	
+	/**
+	 * Reuses the series' points when there are as many as before, so the chart does not rebuild its nodes
+	 */
+	private void showSeries(int s){
+		int count = history.decimate(s, MAX_POINTS, chosen);
+		List<AreaChart.Data<Number, Number>> data = series.get(s).getData();
+		if (data.size() == count){
+			for (int k = 0; k < count; k++){
+				data.get(k).setXValue(history.getGeneration(chosen[k]));
+				data.get(k).setYValue(history.getValue(s, chosen[k]));
+			}
+			return;
+		}
+		
+		List<AreaChart.Data<Number, Number>> points = new ArrayList<>(count);
+		for (int k = 0; k < count; k++)
+			points.add(new AreaChart.Data<Number, Number>(history.getGeneration(chosen[k]), history.getValue(s, chosen[k])));
+		series.get(s).getData().setAll(points);
+	}
 
 }
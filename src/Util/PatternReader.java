@@ -0,0 +1,332 @@
+package Util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import CellGroup.CellGroup;
+import CellGroup.Cell.LifeCell;
+
+/**
+ * Class PatternReader Purpose: To load Game of Life patterns in the standard RLE (.rle) and macrocell (.mc) formats
+ * straight into the state array of a square Life grid, without writing them out as XML cells or building a String
+ * per cell. RLE is decoded a buffer of characters at a time with each run filled in at once; a macrocell quadtree is
+ * read node by node, keeping each node's bounding box, and only its non-empty nodes are painted into a grid cropped to
+ * the live cells. Either way the pattern is surrounded by a margin of dead cells, since every engine but HashLife
+ * treats cells past the edge of the grid as dead for good, and a pattern that grows would otherwise be cut off.
+ * Assumptions: Patterns have two states and a Life-like rule with one birth count and a range of survival counts
+ * (B3/S23 if none is given), since those are the rules LifeCell supports. The grid does not wrap, so anything that
+ * reaches the edge of the margin, such as a glider a gun fires, still breaks up there.
+ * Dependencies: Fills in a SimulationData like SimulationReader does, which CellGroup builds its cells from.
+ * Example of how to use it: new SquareCellGroup(PatternReader.read(new File("gosper.rle")), CellGroup.BITWISE_ENGINE);
+ */
+public class PatternReader {
+	public static final String RLE_EXTENSION = ".rle";
+	public static final String MACROCELL_EXTENSION = ".mc";
+	public static final String[] FILE_EXTENSIONS = {"*" + RLE_EXTENSION, "*" + MACROCELL_EXTENSION};
+	public static final String DEFAULT_RULE = "B3/S23";
+	public static final String[] STATE_NAMES = {"", "Dead", "Alive"};
+	public static final int LEAF_LEVEL = 3;
+	public static final int LEAF_SIZE = 1 << LEAF_LEVEL;
+	public static final int READ_BUFFER = 1 << 16;
+	// dead cells added on each side of a pattern
+	public static final int DEFAULT_MARGIN = 64;
+	private static final Pattern RLE_HEADER = Pattern.compile(
+			"\\s*x\\s*=\\s*(\\d+)\\s*,\\s*y\\s*=\\s*(\\d+)\\s*(?:,\\s*rule\\s*=\\s*(\\S+))?\\s*");
+	private static final Pattern RULE = Pattern.compile("(?i)B(\\d*)/S(\\d*)|S?(\\d*)/B?(\\d*)");
+
+	/**
+	 * @param file	any file
+	 * @return	whether the file's name marks it as an RLE or macrocell pattern
+	 */
+	public static boolean isPattern(File file){
+		String name = file.getName().toLowerCase();
+		return name.endsWith(RLE_EXTENSION) || name.endsWith(MACROCELL_EXTENSION);
+	}
+
+	/**
+	 * Reads an RLE or macrocell pattern, chosen by the file's extension, with DEFAULT_MARGIN dead cells around it
+	 *
+	 * @param file	pattern file
+	 * @return	a square Life grid holding the pattern
+	 * @throws IOException	if the file cannot be read, is malformed, or uses a rule or states Life does not have
+	 */
+	public static SimulationData read(File file) throws IOException{
+		return read(file, DEFAULT_MARGIN);
+	}
+
+	/**
+	 * Reads an RLE or macrocell pattern, chosen by the file's extension
+	 *
+	 * @param file		pattern file
+	 * @param margin	dead cells to add on each side of the pattern, for it to grow into
+	 * @return	a square Life grid holding the pattern
+	 * @throws IOException	if the file cannot be read, is malformed, or uses a rule or states Life does not have
+	 */
+	public static SimulationData read(File file, int margin) throws IOException{
+		if (file == null)
+			throw new IOException("Data file is null!");
+		try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)){
+			if (file.getName().toLowerCase().endsWith(MACROCELL_EXTENSION))
+				return readMacrocell(new BufferedReader(in, READ_BUFFER), margin);
+			return readRle(in, margin);
+		}
+	}
+
+	/**
+	 * Decodes an RLE pattern: comment lines starting with #, a header giving the size and rule, then runs of
+	 * b (dead) or o (alive) cells and $ (end of row), each optionally preceded by a count, up to a !
+	 *
+	 * @param in		the pattern's characters
+	 * @param margin	dead cells to add on each side of the pattern
+	 * @return	a grid the size the header gives plus the margins
+	 * @throws IOException	if the file cannot be read or is malformed
+	 */
+	public static SimulationData readRle(Reader in, int margin) throws IOException{
+		BufferedReader lines = new BufferedReader(in, READ_BUFFER);
+		String line = lines.readLine();
+		while (line != null && (line.startsWith("#") || line.trim().isEmpty()))
+			line = lines.readLine();
+		Matcher header = line == null? null: RLE_HEADER.matcher(line);
+		if (header == null || !header.matches())
+			throw new IOException("RLE pattern has no x = .., y = .. header!");
+		int width = Integer.parseInt(header.group(1));
+		int height = Integer.parseInt(header.group(2));
+		SimulationData data = lifeGrid(width, height, margin, header.group(3) == null? DEFAULT_RULE: header.group(3));
+		byte[] states = data.getStates();
+		int rowLength = data.getGridWidth();
+
+		char[] buffer = new char[READ_BUFFER];
+		int x = 0, y = 0, count = 0;
+		for (int read = lines.read(buffer); read > 0; read = lines.read(buffer)){
+			for (int k = 0; k < read; k++){
+				char c = buffer[k];
+				if (c >= '0' && c <= '9'){
+					count = count*10 + (c - '0');
+					continue;
+				}
+				int run = Math.max(1, count);
+				count = 0;
+				switch (c){
+				case 'b': case '.':
+					x += run;
+					break;
+				case 'o': case 'A':
+					if (x + (long) run > width || y >= height)
+						throw new IOException(String.format("RLE pattern has cells outside its %dx%d header!", width, height));
+					int start = (y + margin)*rowLength + margin + x;
+					Arrays.fill(states, start, start + run, (byte) LifeCell.ALIVE);
+					x += run;
+					break;
+				case '$':
+					y += run;
+					x = 0;
+					break;
+				case '!':
+					return data;
+				default:
+					if (!Character.isWhitespace(c))
+						throw new IOException("RLE pattern has a state Life does not have: " + c);
+				}
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Decodes a macrocell pattern: a header line starting with [M2], lines starting with # (of which #R gives
+	 * the rule), then one node per line, numbered from 1. A line of ., * and $ is an 8 by 8 leaf, listed row by
+	 * row; a line "level nw ne sw se" is a node made of four earlier nodes, where 0 is an empty node. The last
+	 * node is the whole pattern.
+	 *
+	 * @param lines		the pattern's lines
+	 * @param margin	dead cells to add on each side of the pattern's live cells
+	 * @return	a grid just big enough for the pattern's live cells and the margins
+	 * @throws IOException	if the file cannot be read or is malformed
+	 */
+	public static SimulationData readMacrocell(BufferedReader lines, int margin) throws IOException{
+		String line = lines.readLine();
+		if (line == null || !line.startsWith("[M2]"))
+			throw new IOException("Macrocell pattern does not start with [M2]!");
+		String rule = DEFAULT_RULE;
+		Quadtree tree = new Quadtree();
+		for (line = lines.readLine(); line != null; line = lines.readLine()){
+			if (line.startsWith("#R"))
+				rule = line.substring(2).trim();
+			else if (line.startsWith("#") || line.trim().isEmpty())
+				continue;
+			else if (line.charAt(0) == '.' || line.charAt(0) == '*' || line.charAt(0) == '$')
+				tree.addLeaf(line);
+			else
+				tree.addNode(line);
+		}
+		if (tree.size == 0)
+			throw new IOException("Macrocell pattern has no nodes!");
+
+		int root = tree.size;
+		long width = tree.isEmpty(root)? 1: tree.maxX[root] - tree.minX[root] + 1;
+		long height = tree.isEmpty(root)? 1: tree.maxY[root] - tree.minY[root] + 1;
+		if ((width + 2L*margin) * (height + 2L*margin) > Integer.MAX_VALUE - 8)
+			throw new IOException(String.format("Macrocell pattern is too big for one grid (%dx%d)!", width, height));
+		SimulationData data = lifeGrid((int) width, (int) height, margin, rule);
+		if (!tree.isEmpty(root))
+			tree.paint(root, margin - tree.minX[root], margin - tree.minY[root], data.getStates(), data.getGridWidth());
+		return data;
+	}
+
+	/**
+	 * @return	an all dead square Life grid with the given rule, big enough for a pattern and a margin on each side
+	 */
+	private static SimulationData lifeGrid(int patternWidth, int patternHeight, int margin, String rule) throws IOException{
+		long width = patternWidth + 2L*margin, height = patternHeight + 2L*margin;
+		if (width * height > Integer.MAX_VALUE - 8 || patternWidth <= 0 || patternHeight <= 0 || margin < 0)
+			throw new IOException(String.format("Pattern cannot be held in one grid (%dx%d)!", width, height));
+		SimulationData data = new SimulationData();
+		data.setGlobals(0, 0, 2, 0, CellGroup.LIFE, (int) width, (int) height, STATE_NAMES.length);
+		byte[] states = new byte[(int) (width*height)];
+		Arrays.fill(states, (byte) LifeCell.DEAD);
+		data.setGrid(0, states, 0, null);
+		data.setSettings(lifeSettings(rule));
+		data.setStateNames(STATE_NAMES.clone());
+		return data;
+	}
+
+	/**
+	 * Turns a rule in B/S or S/B notation into LifeCell's settings
+	 *
+	 * @param rule	e.g. B3/S23 or 23/3
+	 * @return	fewest and most living neighbors to survive, and living neighbors to be born
+	 * @throws IOException	if LifeCell cannot follow the rule
+	 */
+	static double[] lifeSettings(String rule) throws IOException{
+		Matcher m = RULE.matcher(rule.trim());
+		if (!m.matches())
+			throw new IOException("Unrecognized rule: " + rule);
+		String birth = m.group(1) != null? m.group(1): m.group(4);
+		String survival = m.group(1) != null? m.group(2): m.group(3);
+		if (birth.length() != 1 || survival.isEmpty())
+			throw new IOException("Life cells need exactly one birth count and some survival counts: " + rule);
+
+		char[] counts = survival.toCharArray();
+		Arrays.sort(counts);
+		for (int i = 1; i < counts.length; i++)
+			if (counts[i] != counts[i-1] + 1)
+				throw new IOException("Life cells need survival counts without gaps: " + rule);
+		return new double[] {counts[0] - '0', counts[counts.length-1] - '0', birth.charAt(0) - '0'};
+	}
+
+	/**
+	 * Nodes of a macrocell pattern, each with the bounding box of its live cells relative to its top left corner
+	 */
+	private static class Quadtree {
+		private int size;
+		private byte[] level = new byte[16];
+		private int[][] children = new int[16][];
+		private long[] leaves = new long[16];
+		private long[] minX = new long[16];
+		private long[] minY = new long[16];
+		private long[] maxX = new long[16];
+		private long[] maxY = new long[16];
+
+		private int add(int nodeLevel){
+			size++;
+			if (size == level.length){
+				int grown = size + size/2;
+				level = Arrays.copyOf(level, grown);
+				children = Arrays.copyOf(children, grown);
+				leaves = Arrays.copyOf(leaves, grown);
+				minX = Arrays.copyOf(minX, grown);
+				minY = Arrays.copyOf(minY, grown);
+				maxX = Arrays.copyOf(maxX, grown);
+				maxY = Arrays.copyOf(maxY, grown);
+			}
+			level[size] = (byte) nodeLevel;
+			minX[size] = minY[size] = Long.MAX_VALUE;
+			maxX[size] = maxY[size] = Long.MIN_VALUE;
+			return size;
+		}
+
+		private boolean isEmpty(int node){
+			return node == 0 || maxX[node] < minX[node];
+		}
+
+		private void include(int node, long x, long y){
+			minX[node] = Math.min(minX[node], x);
+			minY[node] = Math.min(minY[node], y);
+			maxX[node] = Math.max(maxX[node], x);
+			maxY[node] = Math.max(maxY[node], y);
+		}
+
+		private void addLeaf(String line) throws IOException{
+			int node = add(LEAF_LEVEL);
+			int row = 0, column = 0;
+			for (int k = 0; k < line.length(); k++){
+				char c = line.charAt(k);
+				if (c == '$'){
+					row++;
+					column = 0;
+				}
+				else if (c == '.')
+					column++;
+				else if (c == '*'){
+					if (row >= LEAF_SIZE || column >= LEAF_SIZE)
+						throw new IOException("Macrocell leaf is bigger than 8x8: " + line);
+					leaves[node] |= 1L << (row*LEAF_SIZE + column);
+					include(node, column, row);
+					column++;
+				}
+				else if (!Character.isWhitespace(c))
+					throw new IOException("Macrocell pattern has a state Life does not have: " + c);
+			}
+		}
+
+		private void addNode(String line) throws IOException{
+			String[] parts = line.trim().split("\\s+");
+			if (parts.length != 5)
+				throw new IOException("Macrocell node is not a level and four children: " + line);
+			int nodeLevel = Integer.parseInt(parts[0]);
+			if (nodeLevel <= LEAF_LEVEL || nodeLevel > 62)
+				throw new IOException("Macrocell node level must be between 4 and 62: " + line);
+			int node = add(nodeLevel);
+			int[] quadrants = new int[4];
+			long half = 1L << (nodeLevel - 1);
+			for (int q = 0; q < 4; q++){
+				int child = Integer.parseInt(parts[q + 1]);
+				if (child < 0 || child >= node || (child != 0 && level[child] != nodeLevel - 1))
+					throw new IOException("Macrocell node refers to a missing or wrong sized node: " + line);
+				quadrants[q] = child;
+				if (!isEmpty(child)){
+					long dx = q % 2 * half, dy = q / 2 * half;
+					include(node, minX[child] + dx, minY[child] + dy);
+					include(node, maxX[child] + dx, maxY[child] + dy);
+				}
+			}
+			children[node] = quadrants;
+		}
+
+		/**
+		 * Sets the live cells of a node alive, with its top left corner at (x, y) in the grid
+		 */
+		private void paint(int node, long x, long y, byte[] states, int width){
+			if (isEmpty(node))
+				return;
+			if (level[node] == LEAF_LEVEL){
+				for (long bits = leaves[node]; bits != 0; bits &= bits - 1){
+					int bit = Long.numberOfTrailingZeros(bits);
+					states[(int) ((y + bit / LEAF_SIZE) * width + x + bit % LEAF_SIZE)] = (byte) LifeCell.ALIVE;
+				}
+				return;
+			}
+			long half = 1L << (level[node] - 1);
+			for (int q = 0; q < 4; q++)
+				paint(children[node][q], x + q % 2 * half, y + q / 2 * half, states, width);
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package Util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class PopulationFile Purpose: To read back the state counts and metrics a PopulationRecorder wrote, for analysis or
+ * to replot any range of a run, without loading the file. The file is memory-mapped, so only the pages of the rows
+ * asked for are ever read, and each column of a block is contiguous, so reading one state over many generations
+ * touches nothing else.
+ *
+ * Layout, big-endian: MAGIC, VERSION, rows per block, number of states, number of metrics (ints), each state's then
+ * each metric's name as its UTF-8 length (short) and bytes, then blocks of rows. Every block but the last holds
+ * exactly rows per block rows; within a block come the generation of every row (longs), then for each state its count
+ * in every row (ints), then for each metric its value in every row (doubles).
+ * Assumptions: Rows were recorded in increasing order of generation. The last block is cut short only by the end of
+ * the run, so the number of rows in it follows from the size of the file.
+ * Dependencies: Written by PopulationRecorder; fills a PopulationHistory for AreaChartSample to replot.
+ * Example of how to use it: try (PopulationFile file = new PopulationFile(f)){ long row = file.findRow(1000000);
+ * int alive = file.getCount(2, row); }
+ */
+public class PopulationFile implements Closeable {
+	public static final int MAGIC = 0x43504F50;
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".cpop";
+	// rows are written a block at a time
+	public static final int BLOCK_ROWS = 4096;
+
+	private FileChannel channel;
+	private String[] stateNames;
+	private String[] metricNames;
+	private int blockRows;
+	private int rowBytes;
+	private long blockBytes;
+	private long dataStart;
+	private long rows;
+	private MappedByteBuffer[] chunks;
+	private int blocksPerChunk;
+
+	/**
+	 * Opens a file for reading and maps it, a whole number of blocks at a time
+	 *
+	 * @param file	file written by a PopulationRecorder
+	 * @throws IOException	if the file cannot be read or is not a population file
+	 */
+	public PopulationFile(File file) throws IOException{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, SnapshotFile.MAX_MAPPED_BYTES));
+			if (header.getInt() != MAGIC)
+				throw new IOException(file.getName() + " is not a population file!");
+			int version = header.getInt();
+			if (version > VERSION)
+				throw new IOException(String.format("Population file version %d is newer than this program reads (%d)!", version, VERSION));
+			blockRows = header.getInt();
+			stateNames = new String[header.getInt()];
+			metricNames = new String[header.getInt()];
+			readNames(header, stateNames);
+			readNames(header, metricNames);
+			if (blockRows <= 0 || (long) blockRows * rowBytes(stateNames.length, metricNames.length) > SnapshotFile.MAX_MAPPED_BYTES)
+				throw new IOException(file.getName() + " is corrupt!");
+
+			dataStart = header.position();
+			rowBytes = rowBytes(stateNames.length, metricNames.length);
+			blockBytes = (long) blockRows * rowBytes;
+			long fullBlocks = (size - dataStart) / blockBytes;
+			rows = fullBlocks * blockRows + (size - dataStart - fullBlocks*blockBytes) / rowBytes;
+			map(size);
+		} catch (BufferUnderflowException | NegativeArraySizeException e){
+			channel.close();
+			throw new IOException(file.getName() + " is cut short or corrupt!", e);
+		} catch (IOException e){
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static void readNames(ByteBuffer header, String[] names){
+		for (int i = 0; i < names.length; i++){
+			byte[] name = new byte[header.getShort() & 0xFFFF];
+			header.get(name);
+			names[i] = new String(name, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * @return	bytes one row takes: its generation, a count per state and a value per metric
+	 */
+	static int rowBytes(int numStates, int numMetrics){
+		return Long.BYTES + numStates*Integer.BYTES + numMetrics*Double.BYTES;
+	}
+
+	private void map(long size) throws IOException{
+		blocksPerChunk = (int) Math.max(1, SnapshotFile.MAX_MAPPED_BYTES / blockBytes);
+		long blocks = (rows + blockRows - 1) / blockRows;
+		chunks = new MappedByteBuffer[(int) ((blocks + blocksPerChunk - 1) / blocksPerChunk)];
+		for (int c = 0; c < chunks.length; c++){
+			long start = dataStart + c * blocksPerChunk * blockBytes;
+			chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(blocksPerChunk * blockBytes, size - start));
+		}
+	}
+
+	/**
+	 * Finds where a column's value for a row is within its chunk
+	 *
+	 * @param column	0 for the generation, then 1 + each state, then 1 + numStates + each metric
+	 */
+	private int offset(long row, int column){
+		long block = row / blockRows;
+		int inBlock = (int) (row - block*blockRows);
+		int rowsInBlock = (int) Math.min(blockRows, rows - block*blockRows);
+		int before = column == 0? 0: Long.BYTES + Math.min(column - 1, stateNames.length)*Integer.BYTES
+				+ Math.max(0, column - 1 - stateNames.length)*Double.BYTES;
+		int width = column == 0? Long.BYTES: column <= stateNames.length? Integer.BYTES: Double.BYTES;
+		return (int) ((block % blocksPerChunk) * blockBytes) + before*rowsInBlock + inBlock*width;
+	}
+
+	private ByteBuffer chunk(long row){
+		if (row < 0 || row >= rows)
+			throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+		return chunks[(int) (row / blockRows / blocksPerChunk)];
+	}
+
+	/**
+	 * @return	number of rows recorded
+	 */
+	public long getRows(){
+		return rows;
+	}
+
+	/**
+	 * @return	name of each state counted
+	 */
+	public String[] getStateNames(){
+		return stateNames.clone();
+	}
+
+	/**
+	 * @return	name of each metric recorded
+	 */
+	public String[] getMetricNames(){
+		return metricNames.clone();
+	}
+
+	/**
+	 * @param row	index of a row, oldest first
+	 * @return	the generation the row was recorded at
+	 */
+	public long getGeneration(long row){
+		return chunk(row).getLong(offset(row, 0));
+	}
+
+	/**
+	 * @param state		the state
+	 * @param row		index of a row, oldest first
+	 * @return	how many cells were in the state
+	 */
+	public int getCount(int state, long row){
+		return chunk(row).getInt(offset(row, 1 + state));
+	}
+
+	/**
+	 * @param metric	index of the metric, in the order the recorder was given them
+	 * @param row		index of a row, oldest first
+	 * @return	the metric's value
+	 */
+	public double getMetric(int metric, long row){
+		return chunk(row).getDouble(offset(row, 1 + stateNames.length + metric));
+	}
+
+	/**
+	 * Copies one state's counts for a range of rows, a block's column at a time
+	 *
+	 * @param state		the state
+	 * @param fromRow	first row to copy
+	 * @param counts	filled with the counts; as many rows as it holds are copied
+	 */
+	public void getCounts(int state, long fromRow, int[] counts){
+		int copied = 0;
+		while (copied < counts.length){
+			long row = fromRow + copied;
+			int length = (int) Math.min(counts.length - copied, blockRows - row % blockRows);
+			ByteBuffer column = chunk(row).duplicate();
+			column.position(offset(row, 1 + state));
+			column.asIntBuffer().get(counts, copied, length);
+			copied += length;
+		}
+	}
+
+	/**
+	 * Finds the first row at or after a generation by binary search
+	 *
+	 * @param generation	generation to look for
+	 * @return	index of the row, or the number of rows if every row is earlier
+	 */
+	public long findRow(long generation){
+		long low = 0, high = rows;
+		while (low < high){
+			long middle = (low + high) >>> 1;
+			if (getGeneration(middle) < generation)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Offers the counts of the rows from one generation up to another to a history, skipping rows evenly
+	 * so that no more than about twice the history's capacity are read however long the range is
+	 *
+	 * @param history			history to add the counts to, usually new
+	 * @param fromGeneration	first generation to replot
+	 * @param toGeneration		last generation to replot
+	 * @param capacity			the history's capacity
+	 */
+	public void fill(PopulationHistory history, long fromGeneration, long toGeneration, int capacity){
+		long first = findRow(fromGeneration);
+		long end = findRow(toGeneration + 1);
+		long every = Math.max(1, (end - first) / Math.max(1, capacity));
+		int[] counts = new int[stateNames.length];
+		for (long row = first; row < end; row += every){
+			for (int s = 0; s < counts.length; s++)
+				counts[s] = getCount(s, row);
+			history.add(getGeneration(row), counts);
+		}
+	}
+
+	@Override
+	public void close() throws IOException{
+		channel.close();
+	}
+}
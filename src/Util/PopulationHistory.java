@@ -0,0 +1,139 @@
+package Util;
+
+/**
+ * Class PopulationHistory Purpose: To keep how many cells were in each state over a whole run in a fixed amount of memory.
+ * Counts are kept in primitive arrays of a fixed capacity. When they fill up, every other sample is dropped and from then
+ * on only every other generation offered is kept (the stride doubles), so the history always spans the whole run at
+ * the finest resolution that fits.
+ * Assumptions: Generations are offered in increasing order, with the same number of states each time.
+ * Example of how to use it: add the state counts every step, then decimate each series to as many points as the chart
+ * should draw.
+ */
+public class PopulationHistory {
+	private long[] generations;
+	private int[][] values;
+	private int size = 0;
+	private int stride = 1;
+	private long offered = 0;
+
+	/**
+	 * @param numSeries		number of states counted
+	 * @param capacity		most samples kept per state; rounded up to an even number
+	 */
+	public PopulationHistory(int numSeries, int capacity){
+		int even = Math.max(2, capacity + capacity % 2);
+		generations = new long[even];
+		values = new int[numSeries][even];
+	}
+
+	/**
+	 * Offers one generation's counts, which are kept if the generation falls on the current stride
+	 *
+	 * @param generation	generation the counts are from
+	 * @param counts		number of cells in each state
+	 */
+	public void add(long generation, int[] counts){
+		if (offered++ % stride != 0)
+			return;
+		if (size == generations.length)
+			compact();
+		generations[size] = generation;
+		for (int s = 0; s < values.length; s++)
+			values[s][size] = s < counts.length? counts[s]: 0;
+		size++;
+	}
+
+	/**
+	 * Keeps every other sample, which are exactly those on the doubled stride
+	 */
+	private void compact(){
+		int half = size / 2;
+		for (int k = 0; k < half; k++){
+			generations[k] = generations[2*k];
+			for (int[] series: values)
+				series[k] = series[2*k];
+		}
+		size = half;
+		stride *= 2;
+	}
+
+	/**
+	 * @return number of samples kept
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @return how many generations offered there are per sample kept
+	 */
+	public int getStride(){
+		return stride;
+	}
+
+	/**
+	 * @param i index of a sample, oldest first
+	 * @return the generation the sample is from
+	 */
+	public long getGeneration(int i){
+		return generations[i];
+	}
+
+	/**
+	 * @param series	the state
+	 * @param i			index of a sample, oldest first
+	 * @return how many cells were in the state
+	 */
+	public int getValue(int series, int i){
+		return values[series][i];
+	}
+
+	/**
+	 * Picks the samples of one state that best keep the shape of its line (largest-triangle-three-buckets):
+	 * the first and last samples, plus from each of the buckets between them the sample making the largest
+	 * triangle with the sample picked from the bucket before and the average of the bucket after.
+	 *
+	 * @param series	the state
+	 * @param maxPoints	most samples to pick, at least 3
+	 * @param chosen	filled with the indices of the samples picked, oldest first; at least maxPoints long
+	 * @return how many samples were picked
+	 */
+	public int decimate(int series, int maxPoints, int[] chosen){
+		if (size <= maxPoints){
+			for (int i = 0; i < size; i++)
+				chosen[i] = i;
+			return size;
+		}
+
+		int[] y = values[series];
+		double every = (double) (size - 2) / (maxPoints - 2);
+		int a = 0;
+		chosen[0] = 0;
+		for (int b = 0; b < maxPoints - 2; b++){
+			int nextStart = (int) ((b + 1) * every) + 1;
+			int nextEnd = Math.min((int) ((b + 2) * every) + 1, size);
+			double averageX = 0, averageY = 0;
+			for (int i = nextStart; i < nextEnd; i++){
+				averageX += generations[i];
+				averageY += y[i];
+			}
+			averageX /= nextEnd - nextStart;
+			averageY /= nextEnd - nextStart;
+
+			double maxArea = -1;
+			int picked = nextStart - 1;
+			for (int i = (int) (b * every) + 1; i < nextStart; i++){
+				double area = Math.abs((generations[a] - averageX) * (y[i] - y[a])
+						- (generations[a] - generations[i]) * (averageY - y[a]));
+				if (area > maxArea){
+					maxArea = area;
+					picked = i;
+				}
+			}
+			chosen[b + 1] = picked;
+			a = picked;
+		}
+		chosen[maxPoints - 1] = size - 1;
+		return maxPoints;
+	}
+}
@@ -0,0 +1,227 @@
+package Util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import CellGroup.CellGroup;
+
+/**
+ * Class PopulationRecorder Purpose: To record how many cells are in each state, and any custom metrics, every
+ * generation (or every Nth) of a run to a PopulationFile, which keeps all of it where AreaChartSample only keeps enough
+ * to draw. Rows are kept in one array per column until a block of them is full, then copied into a direct buffer and
+ * written through a FileChannel in one call. The counts are the ones the engine keeps up to date as cells change, so
+ * a row costs a copy of a few ints (plus any metrics) and never a scan of the grid, and there is one write per
+ * PopulationFile.BLOCK_ROWS rows, cheap enough to leave on for runs of billions of generations.
+ * Assumptions: Generations are recorded in increasing order. Metrics are added before the first row. The last block
+ * is only written by close, so rows of a run that is killed since the last full block are lost.
+ * Dependencies: Counts the states of a CellGroup; read back with PopulationFile.
+ * Example of how to use it: recorder = new PopulationRecorder(file, names, cells.getNumStates(), 1); recorder.addMetric
+ * ("energy", c -> ...); then recorder.record(cells) after every step, and recorder.close() at the end.
+ */
+public class PopulationRecorder implements Closeable {
+
+	/**
+	 * A value worked out from the cells each generation recorded
+	 */
+	public interface Metric {
+		double measure(CellGroup cells);
+	}
+
+	private FileChannel channel;
+	private String[] stateNames;
+	private List<String> metricNames = new ArrayList<>();
+	private List<Metric> metrics = new ArrayList<>();
+	private int every;
+	private int blockRows;
+	private ByteBuffer buffer;
+	private long[] generations;
+	private int[] counts;
+	private double[] values;
+	private int[] stateCounts;
+	private int size = 0;
+	private long rows = 0;
+	private long nextRow = 0;
+
+	/**
+	 * Opens the file, replacing it if it exists
+	 *
+	 * @param file			file to write
+	 * @param names			name of each state; states past the end are named by number
+	 * @param numStates		number of states to count
+	 * @param everyN		record a generation each time the run reaches another multiple of this
+	 * @throws IOException	if the file cannot be opened
+	 */
+	public PopulationRecorder(File file, List<String> names, int numStates, int everyN) throws IOException{
+		this(file, names, numStates, everyN, PopulationFile.BLOCK_ROWS);
+	}
+
+	/**
+	 * @param file			file to write
+	 * @param names			name of each state; states past the end are named by number
+	 * @param numStates		number of states to count
+	 * @param everyN		record a generation each time the run reaches another multiple of this
+	 * @param rowsPerBlock	rows kept before each write
+	 * @throws IOException	if the file cannot be opened
+	 */
+	public PopulationRecorder(File file, List<String> names, int numStates, int everyN, int rowsPerBlock) throws IOException{
+		stateNames = new String[numStates];
+		for (int s = 0; s < numStates; s++)
+			stateNames[s] = s < names.size()? names.get(s): "state " + s;
+		every = Math.max(1, everyN);
+		blockRows = rowsPerBlock;
+		stateCounts = new int[numStates];
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Records another value each generation, after the state counts
+	 *
+	 * @param name		name kept in the file
+	 * @param metric	works the value out from the cells
+	 * @throws IllegalStateException	if a row has already been recorded
+	 */
+	public void addMetric(String name, Metric metric){
+		if (buffer != null)
+			throw new IllegalStateException("Metrics must be added before the first row is recorded!");
+		metricNames.add(name);
+		metrics.add(metric);
+	}
+
+	/**
+	 * Records the cells' current generation if it is the first or has reached the next multiple of every
+	 *
+	 * @param cells		the cells whose states are counted
+	 * @return	whether a row was recorded
+	 * @throws IOException	if a full block cannot be written
+	 */
+	public boolean record(CellGroup cells) throws IOException{
+		long generation = cells.getGeneration();
+		if (!isDue(generation))
+			return false;
+		if (buffer == null)
+			start();
+		cells.countStates(stateCounts);
+		for (int s = 0; s < stateNames.length; s++)
+			counts[s*blockRows + size] = stateCounts[s];
+		for (int m = 0; m < metrics.size(); m++)
+			values[m*blockRows + size] = metrics.get(m).measure(cells);
+		add(generation);
+		return true;
+	}
+
+	/**
+	 * Records one row of counts and metrics worked out elsewhere, if its generation is due as in record(CellGroup)
+	 *
+	 * @param generation	generation the row is from
+	 * @param stateCounts	how many cells are in each state
+	 * @param metricValues	value of each metric added, or null if there are none
+	 * @return	whether a row was recorded
+	 * @throws IOException	if a full block cannot be written
+	 */
+	public boolean record(long generation, int[] stateCounts, double[] metricValues) throws IOException{
+		if (!isDue(generation))
+			return false;
+		if (buffer == null)
+			start();
+		for (int s = 0; s < stateNames.length; s++)
+			counts[s*blockRows + size] = stateCounts[s];
+		for (int m = 0; m < metrics.size(); m++)
+			values[m*blockRows + size] = metricValues[m];
+		add(generation);
+		return true;
+	}
+
+	/**
+	 * Steps that jump several generations may pass a multiple of every without landing on it
+	 */
+	private boolean isDue(long generation){
+		return generation >= nextRow;
+	}
+
+	private void add(long generation) throws IOException{
+		nextRow = (generation / every + 1) * every;
+		generations[size++] = generation;
+		rows++;
+		if (size == blockRows)
+			writeBlock();
+	}
+
+	/**
+	 * Writes the header and makes the columns, now that the metrics are known
+	 */
+	private void start() throws IOException{
+		generations = new long[blockRows];
+		counts = new int[blockRows*stateNames.length];
+		values = new double[blockRows*metrics.size()];
+		buffer = ByteBuffer.allocateDirect(blockRows*PopulationFile.rowBytes(stateNames.length, metrics.size()));
+
+		byte[][] names = new byte[stateNames.length + metrics.size()][];
+		int length = 5*Integer.BYTES;
+		for (int i = 0; i < names.length; i++){
+			names[i] = (i < stateNames.length? stateNames[i]: metricNames.get(i - stateNames.length)).getBytes(StandardCharsets.UTF_8);
+			length += Short.BYTES + names[i].length;
+		}
+		ByteBuffer header = ByteBuffer.allocate(length);
+		header.putInt(PopulationFile.MAGIC).putInt(PopulationFile.VERSION).putInt(blockRows)
+				.putInt(stateNames.length).putInt(metrics.size());
+		for (byte[] name: names)
+			header.putShort((short) name.length).put(name);
+		header.flip();
+		write(header);
+	}
+
+	/**
+	 * Copies the rows kept into the buffer a column at a time and writes them
+	 */
+	private void writeBlock() throws IOException{
+		buffer.clear();
+		buffer.asLongBuffer().put(generations, 0, size);
+		buffer.position(size*Long.BYTES);
+		for (int s = 0; s < stateNames.length; s++){
+			buffer.asIntBuffer().put(counts, s*blockRows, size);
+			buffer.position(buffer.position() + size*Integer.BYTES);
+		}
+		for (int m = 0; m < metrics.size(); m++){
+			buffer.asDoubleBuffer().put(values, m*blockRows, size);
+			buffer.position(buffer.position() + size*Double.BYTES);
+		}
+		buffer.flip();
+		write(buffer);
+		size = 0;
+	}
+
+	private void write(ByteBuffer from) throws IOException{
+		while (from.hasRemaining())
+			channel.write(from);
+	}
+
+	/**
+	 * @return	number of rows recorded so far
+	 */
+	public long getRows(){
+		return rows;
+	}
+
+	/**
+	 * Writes the rows kept, as the last block, and closes the file
+	 */
+	@Override
+	public void close() throws IOException{
+		try {
+			if (buffer == null)
+				start();
+			if (size > 0)
+				writeBlock();
+		} finally {
+			channel.close();
+		}
+	}
+}
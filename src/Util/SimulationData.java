@@ -0,0 +1,284 @@
+package Util;
+
+import java.util.Arrays;
+
+/**
+ * Class SimulationData Purpose: To hold everything a simulation XML file specifies, in primitive fields and arrays instead
+ * of a list of Strings, so large files take little memory and no parsing of numbers twice.
+ * A saved generation may instead give the state of every cell in one array, along with any extra fields the cells keep.
+ * Assumptions: Filled in by SimulationReader, SnapshotFile or CellGroup.getSimData; cell indices are already converted
+ * from x and y to index numbers.
+ * Dependencies: Read by CellGroup to build its cells.
+ * Example of how to use it: SimulationData data = SimulationReader.read(file); new SquareCellGroup(data, engine);
+ */
+public class SimulationData {
+	int gridShape;
+	int stroke;
+	int neighborConfig;
+	int torus;
+	int simType;
+	int gridWidth;
+	int gridHeight;
+	int numStates;
+	int specifiedCount;
+	int[] cellIndices = new int[0];
+	int[] cellRows = new int[0];
+	byte[] cellStates = new byte[0];
+	int[] stateCounts = new int[0];
+	String[] stateNames = new String[0];
+	double[] settings = new double[0];
+	int runCount;
+	int[] runStarts = new int[0];
+	int[] runLengths = new int[0];
+	byte[] runStates = new byte[0];
+	long generation;
+	byte[] states;
+	int fieldCount;
+	int[] fields;
+	
+	/**
+	 * @return 0 for squares, 1 for hexagons, 2 for triangles
+	 */
+	public int getGridShape(){
+		return gridShape;
+	}
+	
+	/**
+	 * @return 1 if cells are outlined, otherwise 0
+	 */
+	public int getStroke(){
+		return stroke;
+	}
+	
+	/**
+	 * @return 0 for sides, 1 for diagonals, 2 for all neighbors
+	 */
+	public int getNeighborConfig(){
+		return neighborConfig;
+	}
+	
+	/**
+	 * @return 1 if the left and right edges wrap, otherwise 0
+	 */
+	public int getTorus(){
+		return torus;
+	}
+	
+	/**
+	 * @return the simulation type, one of the CellGroup simulation constants
+	 */
+	public int getSimType(){
+		return simType;
+	}
+	
+	/**
+	 * @return number of cells in a row
+	 */
+	public int getGridWidth(){
+		return gridWidth;
+	}
+	
+	/**
+	 * @return number of rows
+	 */
+	public int getGridHeight(){
+		return gridHeight;
+	}
+	
+	/**
+	 * @return number of possible states
+	 */
+	public int getNumStates(){
+		return numStates;
+	}
+	
+	/**
+	 * @return number of cells whose state is given individually
+	 */
+	public int getSpecifiedCount(){
+		return specifiedCount;
+	}
+	
+	/**
+	 * @param k which specified cell
+	 * @return its index number in the grid
+	 */
+	public int getCellIndex(int k){
+		return cellIndices[k];
+	}
+	
+	/**
+	 * @param k which specified cell
+	 * @return its state
+	 */
+	public int getCellState(int k){
+		return cellStates[k];
+	}
+	
+	/**
+	 * @return how many of the remaining cells start in each state
+	 */
+	public int[] getStateCounts(){
+		return stateCounts;
+	}
+	
+	/**
+	 * @return the name of each state, for the graph
+	 */
+	public String[] getStateNames(){
+		return stateNames;
+	}
+	
+	/**
+	 * @return the simulation's own settings, in file order
+	 */
+	public double[] getSettings(){
+		return settings;
+	}
+	
+	/**
+	 * @return the generation the data was saved at, 0 for a new simulation
+	 */
+	public long getGeneration(){
+		return generation;
+	}
+	
+	/**
+	 * @return number of runs of cells given the same state together
+	 */
+	public int getRunCount(){
+		return runCount;
+	}
+	
+	/**
+	 * @param k which run
+	 * @return index number of its first cell
+	 */
+	public int getRunStart(int k){
+		return runStarts[k];
+	}
+	
+	/**
+	 * @param k which run
+	 * @return number of cells in it, in increasing index order from its start
+	 */
+	public int getRunLength(int k){
+		return runLengths[k];
+	}
+	
+	/**
+	 * @param k which run
+	 * @return the state of all of its cells
+	 */
+	public int getRunState(int k){
+		return runStates[k];
+	}
+	
+	/**
+	 * @return the state of every cell indexed by cell number, or null if only some cells are given
+	 */
+	public byte[] getStates(){
+		return states;
+	}
+	
+	/**
+	 * @return number of extra fields each cell keeps besides its state
+	 */
+	public int getFieldCount(){
+		return fieldCount;
+	}
+	
+	/**
+	 * @return every cell's extra fields, field k of cell i at k*cells + i, or null if there are none
+	 */
+	public int[] getFields(){
+		return fields;
+	}
+	
+	/**
+	 * Sets the fields every simulation file has
+	 */
+	public void setGlobals(int shape, int cellStroke, int neigh, int wraps, int type, int width, int height, int states){
+		gridShape = shape;
+		stroke = cellStroke;
+		neighborConfig = neigh;
+		torus = wraps;
+		simType = type;
+		gridWidth = width;
+		gridHeight = height;
+		numStates = states;
+		stateCounts = new int[states];
+	}
+	
+	/**
+	 * Gives the state and extra fields of every cell, as a saved generation does
+	 * 
+	 * @param savedAt		generation the cells are in
+	 * @param cellStates	state of every cell, indexed by cell number
+	 * @param count			number of extra fields per cell
+	 * @param cellFields	every cell's extra fields, as getFields returns them; may be null if count is 0
+	 */
+	public void setGrid(long savedAt, byte[] cellStates, int count, int[] cellFields){
+		generation = savedAt;
+		states = cellStates;
+		fieldCount = count;
+		fields = cellFields;
+	}
+	
+	/**
+	 * @param simSettings	the simulation's own settings
+	 */
+	public void setSettings(double[] simSettings){
+		settings = simSettings;
+	}
+	
+	/**
+	 * @param names			the name of each state, for the graph
+	 */
+	public void setStateNames(String[] names){
+		stateNames = names;
+	}
+	
+	/**
+	 * Adds one individually specified cell, growing the arrays by half when full.
+	 * The column is kept in place of the index until toIndices is called, since
+	 * the grid width may come later in the file.
+	 */
+	void addCell(int x, int y, int state){
+		if (specifiedCount == cellIndices.length){
+			int grown = Math.max(16, specifiedCount + specifiedCount/2);
+			cellIndices = Arrays.copyOf(cellIndices, grown);
+			cellRows = Arrays.copyOf(cellRows, grown);
+			cellStates = Arrays.copyOf(cellStates, grown);
+		}
+		cellIndices[specifiedCount] = x;
+		cellRows[specifiedCount] = y;
+		cellStates[specifiedCount] = (byte) state;
+		specifiedCount++;
+	}
+	
+	/**
+	 * Adds a run of cells in the same state, growing the arrays by half when full
+	 */
+	void addRun(int start, int length, int state){
+		if (runCount == runStarts.length){
+			int grown = Math.max(16, runCount + runCount/2);
+			runStarts = Arrays.copyOf(runStarts, grown);
+			runLengths = Arrays.copyOf(runLengths, grown);
+			runStates = Arrays.copyOf(runStates, grown);
+		}
+		runStarts[runCount] = start;
+		runLengths[runCount] = length;
+		runStates[runCount] = (byte) state;
+		runCount++;
+	}
+	
+	/**
+	 * Turns every specified cell's column and row into its index number
+	 */
+	void toIndices(){
+		for (int k = 0; k < specifiedCount && gridWidth > 0; k++)
+			cellIndices[k] = gridWidth * cellRows[k] + cellIndices[k] % gridWidth;
+		cellRows = null;
+	}
+}
@@ -0,0 +1,156 @@
+package Util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Class SimulationReader Purpose: To read a simulation XML file in one pass with a streaming (StAX) parser, straight into
+ * a SimulationData, without building a document tree or a list of Strings first. Memory stays proportional to the number
+ * of cells given individually, at five bytes each, so saved grids of millions of cells load quickly.
+ * Assumptions: The file has the same fields Util.parseText reads, in any order; Cell elements hold state, x and y, and
+ * Run elements give a state to length cells from index start.
+ * Dependencies: Uses Util's names for the fields and its conversions of shape and neighbor names.
+ * Example of how to use it: SimulationData data = SimulationReader.read(file);
+ */
+public class SimulationReader {
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+	private static final String CELL = Util.DATA_FIELDS.get(Util.GLOBAL_DATA_FIELDS);
+	private static final String CELL_DIST = Util.DATA_FIELDS.get(Util.CELLSTATE_DEX);
+	private static final String CELL_CONFIG = Util.DATA_FIELDS.get(Util.LAST_ELEMENT);
+	private static final String STATE_NAME_ATTRIBUTE = "type";
+
+	/**
+	 * Reads a simulation file, or a binary snapshot or Life pattern if its name ends in their extension
+	 *
+	 * @param dataFile	XML file to be parsed
+	 * @return	everything the file specifies
+	 * @throws IOException	if the file cannot be read or is missing a field
+	 * @throws XMLException	if the file is not well formed or not a simulation
+	 */
+	public static SimulationData read(File dataFile) throws IOException{
+		if (dataFile == null)
+			throw new IOException("Data file is null!");
+		if (SnapshotFile.isSnapshot(dataFile))
+			return SnapshotFile.read(dataFile);
+		if (PatternReader.isPattern(dataFile))
+			return PatternReader.read(dataFile);
+		try (InputStream in = new BufferedInputStream(new FileInputStream(dataFile))){
+			XMLStreamReader xml = FACTORY.createXMLStreamReader(in);
+			try {
+				return read(xml);
+			} finally {
+				xml.close();
+			}
+		} catch (XMLStreamException | NumberFormatException e){
+			throw new XMLException(e);
+		}
+	}
+
+	private static SimulationData read(XMLStreamReader xml) throws XMLStreamException, IOException{
+		xml.nextTag();
+		if (!Util.DATA_TYPE.equals(xml.getAttributeValue(null, Util.TYPE_ATTRIBUTE)))
+			throw new XMLException("XML file does not represent a %s", Util.DATA_TYPE);
+
+		SimulationData data = new SimulationData();
+		boolean[] found = new boolean[Util.GLOBAL_DATA_FIELDS];
+		List<String> stateNames = new ArrayList<>();
+		List<Double> dist = new ArrayList<>();
+		List<Double> config = new ArrayList<>();
+		while (xml.hasNext()){
+			if (xml.next() != XMLStreamConstants.START_ELEMENT)
+				continue;
+			String name = xml.getLocalName();
+			int field = Util.DATA_FIELDS.indexOf(name);
+			if (field >= 0 && field < Util.GLOBAL_DATA_FIELDS){
+				setGlobal(data, field, xml.getElementText().trim());
+				found[field] = true;
+			}
+			else if (name.equals(CELL))
+				readCell(xml, data);
+			else if (name.equals(Util.RUN_ELEMENT))
+				data.addRun(integer(xml.getAttributeValue(null, Util.RUN_ATTRIBUTES.get(1))),
+						integer(xml.getAttributeValue(null, Util.RUN_ATTRIBUTES.get(2))),
+						integer(xml.getAttributeValue(null, Util.RUN_ATTRIBUTES.get(0))));
+			else if (name.equals(CELL_DIST)){
+				String type = xml.getAttributeValue(null, STATE_NAME_ATTRIBUTE);
+				stateNames.add(type == null? "": type);
+				dist.add(number(xml.getElementText()));
+			}
+			else if (name.equals(CELL_CONFIG))
+				config.add(number(xml.getElementText()));
+		}
+
+		for (boolean f: found)
+			if (!f) throw new IOException("Invalid parameters in XML file!");
+		finish(data, stateNames, dist, config);
+		return data;
+	}
+
+	private static void setGlobal(SimulationData data, int field, String text) throws IOException{
+		switch (field){
+		case 0: data.gridShape = Integer.parseInt(Util.getGridShape(text)); break;
+		case 1: data.stroke = integer(text); break;
+		case 2: data.neighborConfig = Integer.parseInt(Util.getNeighConfig(text)); break;
+		case 3: data.torus = integer(text); break;
+		case 4: data.simType = integer(text); break;
+		case 5: data.gridWidth = integer(text); break;
+		case 6: data.gridHeight = integer(text); break;
+		case 7: data.numStates = integer(text); break;
+		}
+	}
+
+	/**
+	 * Reads the state, x and y of one Cell element, leaving the reader on its end tag
+	 */
+	private static void readCell(XMLStreamReader xml, SimulationData data) throws XMLStreamException{
+		int state = 0, x = 0, y = 0;
+		while (xml.nextTag() == XMLStreamConstants.START_ELEMENT){
+			switch (Util.INNER_DATA_FIELDS.indexOf(xml.getLocalName())){
+			case 0: state = integer(xml.getElementText()); break;
+			case 1: x = integer(xml.getElementText()); break;
+			case 2: y = integer(xml.getElementText()); break;
+			default: xml.getElementText();
+			}
+		}
+		data.addCell(x, y, state);
+	}
+
+	/**
+	 * Splits the distribution like CellGroup splits parseText's list: the first numStates
+	 * values are the state counts, the rest are settings ahead of the cellConfig values
+	 */
+	private static void finish(SimulationData data, List<String> stateNames, List<Double> dist, List<Double> config){
+		data.toIndices();
+		data.stateNames = stateNames.toArray(new String[stateNames.size()]);
+		int counted = Math.max(0, Math.min(data.numStates, dist.size()));
+		data.stateCounts = new int[counted];
+		for (int i = 0; i < counted; i++)
+			data.stateCounts[i] = dist.get(i).intValue();
+		data.settings = new double[dist.size() - counted + config.size()];
+		int k = 0;
+		for (int i = counted; i < dist.size(); i++)
+			data.settings[k++] = dist.get(i);
+		for (double d: config)
+			data.settings[k++] = d;
+	}
+
+	private static double number(String text){
+		if (text == null)
+			throw new NumberFormatException("Missing number");
+		return Double.parseDouble(text.trim());
+	}
+
+	private static int integer(String text){
+		return (int) number(text);
+	}
+}
@@ -0,0 +1,173 @@
+package Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import CellGroup.CellGroup;
+
+/**
+ * Class SnapshotFile Purpose: To save and load a whole generation as a compact binary file instead of XML, so grids of
+ * millions of cells save and load in about the time it takes to copy them. The file is a versioned header followed by
+ * one byte per cell for its state and then each extra cell field as a block of ints, and is read and written through
+ * memory-mapped buffers of a FileChannel.
+ *
+ * Layout, big-endian: MAGIC, VERSION, gridShape, stroke, neigh, torus, simType, gridWidth, gridHeight, numStates (ints),
+ * generation (long), number of settings (int) and the settings (doubles), number of state names (int) and each name as
+ * its UTF-8 length (short) and bytes, fields per cell (int), the state of every cell (bytes), then for each field its
+ * value for every cell (ints).
+ * Assumptions: The data holds the state of every cell, as CellGroup.getSimData gives it. Segregation grids are refused,
+ * since each cell remembers other cells it has moved to, which cannot be kept as fields of ints.
+ * Dependencies: Fills in a SimulationData for CellGroup, like SimulationReader does for XML, which stays for interchange.
+ * Example of how to use it: SnapshotFile.write(cells.getSimData(shape), file); SimulationData data = SnapshotFile.read(file);
+ */
+public class SnapshotFile {
+	public static final int MAGIC = 0x4353494D;
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".csim";
+	public static final String FILE_EXTENSION = "*" + EXTENSION;
+	// largest piece of the file mapped at once; a single buffer cannot pass 2 GB
+	public static final int MAX_MAPPED_BYTES = 1 << 30;
+
+	/**
+	 * @param file	any file
+	 * @return	whether the file's name marks it as a binary snapshot
+	 */
+	public static boolean isSnapshot(File file){
+		return file.getName().toLowerCase().endsWith(EXTENSION);
+	}
+
+	/**
+	 * @param file	any file
+	 * @return	the file, with EXTENSION added to its name unless it already marks it as a snapshot, so it can be read back
+	 */
+	public static File withExtension(File file){
+		return isSnapshot(file)? file: new File(file.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Saves a generation, replacing the file if it exists
+	 *
+	 * @param data	data holding the state of every cell
+	 * @param file	file to write
+	 * @throws IOException	if the file cannot be written
+	 */
+	public static void write(SimulationData data, File file) throws IOException{
+		if (data.states == null)
+			throw new IOException("Only a generation with every cell's state can be saved as a snapshot!");
+		if (data.simType == CellGroup.SEG)
+			throw new IOException("Segregation cells remember where they have been, which a snapshot cannot keep!");
+		byte[][] names = new byte[data.stateNames.length][];
+		int namesLength = 0;
+		for (int i = 0; i < names.length; i++){
+			names[i] = data.stateNames[i].getBytes(StandardCharsets.UTF_8);
+			namesLength += Short.BYTES + names[i].length;
+		}
+		int headerLength = 10*Integer.BYTES + Long.BYTES + Integer.BYTES + data.settings.length*Double.BYTES
+				+ Integer.BYTES + namesLength + Integer.BYTES;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerLength);
+			header.putInt(MAGIC).putInt(VERSION);
+			header.putInt(data.gridShape).putInt(data.stroke).putInt(data.neighborConfig).putInt(data.torus)
+					.putInt(data.simType).putInt(data.gridWidth).putInt(data.gridHeight).putInt(data.numStates);
+			header.putLong(data.generation);
+			header.putInt(data.settings.length);
+			for (double d: data.settings)
+				header.putDouble(d);
+			header.putInt(names.length);
+			for (byte[] name: names)
+				header.putShort((short) name.length).put(name);
+			header.putInt(data.fieldCount);
+
+			long position = headerLength;
+			for (int start = 0; start < data.states.length; start += MAX_MAPPED_BYTES){
+				int length = Math.min(MAX_MAPPED_BYTES, data.states.length - start);
+				channel.map(FileChannel.MapMode.READ_WRITE, position, length).put(data.states, start, length);
+				position += length;
+			}
+			int cellsPerMap = MAX_MAPPED_BYTES / Integer.BYTES;
+			int fieldValues = data.fieldCount * data.states.length;
+			for (int start = 0; start < fieldValues; start += cellsPerMap){
+				int length = Math.min(cellsPerMap, fieldValues - start);
+				channel.map(FileChannel.MapMode.READ_WRITE, position, (long) length*Integer.BYTES)
+						.asIntBuffer().put(data.fields, start, length);
+				position += (long) length*Integer.BYTES;
+			}
+		}
+	}
+
+	/**
+	 * Loads a generation saved by write
+	 *
+	 * @param file	file to read
+	 * @return	the saved data, holding the state of every cell
+	 * @throws IOException	if the file cannot be read, is not a snapshot, or is cut short
+	 */
+	public static SimulationData read(File file) throws IOException{
+		if (file == null)
+			throw new IOException("Data file is null!");
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+			long size = channel.size();
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_MAPPED_BYTES));
+			if (header.getInt() != MAGIC)
+				throw new IOException(file.getName() + " is not a simulation snapshot!");
+			int version = header.getInt();
+			if (version > VERSION)
+				throw new IOException(String.format("Snapshot version %d is newer than this program reads (%d)!", version, VERSION));
+
+			SimulationData data = readHeader(header);
+			int cells = data.gridWidth * data.gridHeight;
+			long position = header.position();
+			if (cells < 0 || position + cells + (long) data.fieldCount*cells*Integer.BYTES > size)
+				throw new IOException(file.getName() + " is shorter than its header says!");
+
+			byte[] states = new byte[cells];
+			for (int start = 0; start < cells; start += MAX_MAPPED_BYTES){
+				int length = Math.min(MAX_MAPPED_BYTES, cells - start);
+				channel.map(FileChannel.MapMode.READ_ONLY, position, length).get(states, start, length);
+				position += length;
+			}
+			int[] fields = data.fieldCount == 0? null: new int[data.fieldCount*cells];
+			int cellsPerMap = MAX_MAPPED_BYTES / Integer.BYTES;
+			for (int start = 0; fields != null && start < fields.length; start += cellsPerMap){
+				int length = Math.min(cellsPerMap, fields.length - start);
+				IntBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) length*Integer.BYTES).asIntBuffer();
+				values.get(fields, start, length);
+				position += (long) length*Integer.BYTES;
+			}
+			data.states = states;
+			data.fields = fields;
+			return data;
+		} catch (BufferUnderflowException | NegativeArraySizeException e){
+			throw new IOException(file.getName() + " is cut short or corrupt!", e);
+		}
+	}
+
+	private static SimulationData readHeader(ByteBuffer header){
+		SimulationData data = new SimulationData();
+		data.setGlobals(header.getInt(), header.getInt(), header.getInt(), header.getInt(),
+				header.getInt(), header.getInt(), header.getInt(), header.getInt());
+		data.generation = header.getLong();
+		double[] settings = new double[header.getInt()];
+		for (int i = 0; i < settings.length; i++)
+			settings[i] = header.getDouble();
+		data.settings = settings;
+		String[] names = new String[header.getInt()];
+		for (int i = 0; i < names.length; i++){
+			byte[] name = new byte[header.getShort() & 0xFFFF];
+			header.get(name);
+			names[i] = new String(name, StandardCharsets.UTF_8);
+		}
+		data.stateNames = names;
+		data.fieldCount = header.getInt();
+		return data;
+	}
+}
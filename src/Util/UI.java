@@ -17,6 +17,7 @@ import javafx.event.ActionEvent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ColorPicker;
 import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
@@ -44,8 +45,14 @@ public class UI {
 	public static final int NUMBUTTONS = 4;
 	public static final int PAUSE_DEX = 6;
 	public static final int RESUME_DEX = 7;
+	public static final int TURBO_DEX = 8;
+	public static final int CHECKPOINT_DEX = 9;
+	public static final int RECORD_DEX = 10;
+	public static final int CHECK_BOX_GAP = 25;
 	public static final String UITEXT_DIRECTORY = "data/Labels.txt";
 	
+	private static volatile boolean showsDialogs = false;
+	
 	private List<Button> buttons = new ArrayList<Button>();
 	private double oldSpeed = 1;
 	private boolean restart = false;
@@ -54,6 +61,9 @@ public class UI {
 	private List<String> UItext;
 	private SpeedSlider slider;
 	private ColorPicker colorPicker;
+	private CheckBox turbo;
+	private CheckBox checkpoint;
+	private CheckBox record;
 	
 	
 	/**
@@ -69,6 +79,15 @@ public class UI {
 		buttonInit();		
 		colorPicker = new ColorPicker();
 		colorPickerInit();
+		turbo = new CheckBox(UItext.get(TURBO_DEX));
+		turbo.setLayoutX(BUTTON_X);
+		turbo.setLayoutY(BUTTON_Y_TOP + BUTTON_GAP*NUMBUTTONS);
+		checkpoint = new CheckBox(UItext.get(CHECKPOINT_DEX));
+		checkpoint.setLayoutX(BUTTON_X);
+		checkpoint.setLayoutY(BUTTON_Y_TOP + BUTTON_GAP*NUMBUTTONS + CHECK_BOX_GAP);
+		record = new CheckBox(UItext.get(RECORD_DEX));
+		record.setLayoutX(BUTTON_X);
+		record.setLayoutY(BUTTON_Y_TOP + BUTTON_GAP*NUMBUTTONS + 2*CHECK_BOX_GAP);
 	}
 	
 	/** buttonInit: Initializes the buttons with equal spacing depending on the number of buttons present
@@ -183,7 +202,9 @@ public class UI {
 
 	private FileChooser configureFileChooser() {
 		FileChooser fc = new FileChooser();
-		fc.getExtensionFilters().setAll(new ExtensionFilter("Text Files", Util.DATA_FILE_EXTENSION));
+		fc.getExtensionFilters().setAll(new ExtensionFilter("Text Files", Util.DATA_FILE_EXTENSION),
+				new ExtensionFilter("Snapshots", SnapshotFile.FILE_EXTENSION),
+				new ExtensionFilter("Life Patterns", PatternReader.FILE_EXTENSIONS));
 		fc.setInitialDirectory(new File(System.getProperty("user.dir")));
 		shouldSave = false;
 		return fc;
@@ -210,6 +231,54 @@ public class UI {
 		return slider.getSlider();
 	}
 	
+	/**
+	 * @return	whether turbo is checked, running many generations per frame
+	 */
+	public boolean isTurbo(){
+		return turbo.isSelected();
+	}
+	
+	/**
+	 * returns the turbo check box so it can be added to the group
+	 * 
+	 * @return the turbo check box
+	 */
+	public CheckBox getTurbo(){
+		return turbo;
+	}
+	
+	/**
+	 * @return	whether checkpoint is checked, saving the run every so often to resume it later
+	 */
+	public boolean isCheckpointing(){
+		return checkpoint.isSelected();
+	}
+	
+	/**
+	 * returns the checkpoint check box so it can be added to the group
+	 * 
+	 * @return the checkpoint check box
+	 */
+	public CheckBox getCheckpoint(){
+		return checkpoint;
+	}
+	
+	/**
+	 * @return	whether record is checked, writing the state counts of every generation to a population file
+	 */
+	public boolean isRecording(){
+		return record.isSelected();
+	}
+	
+	/**
+	 * returns the record check box so it can be added to the group
+	 * 
+	 * @return the record check box
+	 */
+	public CheckBox getRecord(){
+		return record;
+	}
+	
 	/** getColorPicker--returns the colorPicker from the UI so that game can add it to the root
 	 *  Assumptions: the private variable colorPicker is already initialized
 	 * @return
@@ -218,15 +287,30 @@ public class UI {
 		return colorPicker;
 	}
 	
+	/**
+	 * Chooses whether exceptionThrower shows a dialog or prints to standard error. Only the
+	 * JavaFX application turns dialogs on, so tools without a display never start the toolkit.
+	 * 
+	 * @param dialogs	true once a JavaFX window is up to show dialogs on
+	 */
+	public static void setShowsDialogs(boolean dialogs){
+		showsDialogs = dialogs;
+	}
+	
 	/**
 	 * Generic error thrower. Creates dialog box for user to see the error that occurred
 	 * before the program takes appropriate measures to either correct the error or quit
 	 * gracefully if unrecoverable. USERS MUST SPECIFY WHAT HAPPENS AFTER THIS ERROR DIALOG
 	 * IS SHOWN. Method is static to allow other classes to be able to also throw errors.
+	 * Until the game's window turns dialogs on (e.g. running headless) the error is printed instead.
 	 * 
 	 * @param e error thrown, used to get message of what specifically went wrong
 	 */
 	public static void exceptionThrower(Exception e){
+		if (!showsDialogs){
+			System.err.println(ERROR_MESSAGE + " " + e.getMessage());
+			return;
+		}
 		Alert err = new Alert(AlertType.ERROR);
 		err.setHeaderText(ERROR_MESSAGE);
 		err.setContentText(e.getMessage());
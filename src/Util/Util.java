@@ -1,12 +1,18 @@
 package Util;
 
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
 
@@ -47,7 +53,7 @@ import org.xml.sax.SAXException;
 public class Util {
     public static final int GLOBAL_DATA_FIELDS = 8;
 	// name of root attribute that notes the type of file expecting to parse
-    public final String TYPE_ATTRIBUTE = "animation";
+    public static final String TYPE_ATTRIBUTE = "animation";
     // keep only one documentBuilder because it is expensive to make and can reset it before parsing
     public final DocumentBuilder DOCUMENT_BUILDER = getDocumentBuilder();
     // it is generally accepted behavior that the chooser remembers where user left it last
@@ -86,7 +92,11 @@ public class Util {
 	// kind of data files to look for
 	public static final String DATA_FILE_EXTENSION = "*.xml";
     public static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Simulation animation=\"Simulation\">\n";
-    public static final String PLACEHOLDER = "\t<cellDist type=\"%d\">0</cellDist>\n";
+    public static final String PLACEHOLDER = "\t<cellDist type=\"%s\">0</cellDist>\n";
+    public static final String RUN_ELEMENT = "Run";
+    public static final List<String> RUN_ATTRIBUTES = Arrays.asList(new String[] {"state", "start", "length"});
+    public static final String RUN_FORMAT = "\t<Run state=\"%d\" start=\"%d\" length=\"%d\"/>\n";
+    public static final int WRITE_BUFFER = 1 << 16;
     public static final String FOOTER = "</Simulation>";
     
     private Element root;
@@ -138,7 +148,7 @@ public class Util {
 		}
 	}
     
-    private String getGridShape(String s) throws IOException{
+    static String getGridShape(String s) throws IOException{
 		switch(s.toLowerCase()){
 		case "square": return "" + 0;
 		case "hex": return "" + 1;
@@ -152,7 +162,7 @@ public class Util {
 	}
 
 	private void handleSpecificCells(Element root, ArrayList<String> results) throws IOException {
-		int cellWidth = Integer.parseInt(results.get(GLOBAL_DATA_FIELDS - 2));
+		int cellWidth = Integer.parseInt(results.get(GLOBAL_DATA_FIELDS - 3));
 		ArrayList<String> state = getTextValue(root, INNER_DATA_FIELDS.get(0));
 		ArrayList<String> x = getTextValue(root, INNER_DATA_FIELDS.get(1));
 		ArrayList<String> y = getTextValue(root, INNER_DATA_FIELDS.get(2));
@@ -160,9 +170,32 @@ public class Util {
 		for(i = 0; i < x.size(); i++){ 
 			handleAddCellsToRet(results, cellWidth, state, x, y, i);
 		}
+		i += handleRuns(root, results);
 		results.add(GLOBAL_DATA_FIELDS, "" + i);
 	}
 
+	/**
+	 * Adds every cell of each Run element as if it were given by its own Cell element
+	 * 
+	 * @return number of cells added
+	 */
+	private int handleRuns(Element root, ArrayList<String> results) {
+		NodeList runs = root.getElementsByTagName(RUN_ELEMENT);
+		int added = 0;
+		for (int k = 0; k < runs.getLength(); k++){
+			Element run = (Element) runs.item(k);
+			String state = run.getAttribute(RUN_ATTRIBUTES.get(0));
+			int start = Integer.parseInt(run.getAttribute(RUN_ATTRIBUTES.get(1)));
+			int length = Integer.parseInt(run.getAttribute(RUN_ATTRIBUTES.get(2)));
+			for (int index = start; index < start + length; index++){
+				results.add(state);
+				results.add("" + index);
+			}
+			added += Math.max(0, length);
+		}
+		return added;
+	}
+
 
 	private void handleAddCellsToRet(ArrayList<String> results, int cellWidth, ArrayList<String> state,
 			ArrayList<String> x, ArrayList<String> y, int i) {
@@ -279,32 +312,98 @@ public class Util {
      * 			selected. 
      */
     public void saveFile(List<String> simData, File file) throws IOException{
-	    try{
-    		FileWriter fileWrite = new FileWriter(file);
-	    	String toWrite = getWritableString(simData);
-	    	writeToFile(fileWrite, toWrite);
-	    }catch(IOException e){
-	    	throw new IOException("Could not write to chosen file! Do you have the right permissions?");
-	    }
+    	Iterator<String> values = simData.iterator();
+    	SimulationData data = new SimulationData();
+    	data.setGlobals(nextInt(values), nextInt(values), nextInt(values), nextInt(values), 
+    			nextInt(values), nextInt(values), nextInt(values), nextInt(values));
+    	byte[] states = new byte[nextInt(values)];
+    	for (int i = 0; i < states.length; i++)
+    		states[i] = (byte) nextInt(values);
+    	data.setGrid(0, states, 0, null);
+    	List<Double> settings = new ArrayList<>();
+    	while (values.hasNext())
+    		settings.add(Double.parseDouble(values.next()));
+    	data.setSettings(settings.stream().mapToDouble(Double::doubleValue).toArray());
+    	saveFile(data, file, false);
     }
     
-	private void writeToFile(FileWriter fileWrite, String toWrite) throws IOException {
-		fileWrite.write(toWrite);
-		fileWrite.flush();
-		fileWrite.close();
-	}
-
-	private String getWritableString(List<String> simData) {
-		StringBuilder toWrite = new StringBuilder();
-		toWrite.append(HEADER);
-		int numCells = Integer.parseInt(simData.remove(GLOBAL_DATA_FIELDS));
-		createOutputStrBldr(simData, toWrite, numCells);
-		toWrite.append(FOOTER);
-		return toWrite.toString();
-	}
-
+    private static int nextInt(Iterator<String> values){
+    	return (int) Double.parseDouble(values.next());
+    }
+    
+    /**
+     * Save a generation to an XML file, writing it out as it goes so that memory
+     * use does not grow with the grid
+     * 
+     * @param data	data holding the state of every cell, e.g. from CellGroup.getSimData
+     * @param file	File that this will save to
+     * @param runs	whether to write each run of cells in the same state as one Run
+     * 				element instead of a Cell element per cell
+     * @throws IOException	if the file cannot be written
+     */
+    public void saveFile(SimulationData data, File file, boolean runs) throws IOException{
+    	try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, 
+    			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    			Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), WRITE_BUFFER), WRITE_BUFFER)){
+    		out.write(HEADER);
+    		writeGlobals(out, data);
+    		if (runs)
+    			writeRuns(out, data.getStates());
+    		else
+    			writeCells(out, data.getStates(), data.getGridWidth());
+    		writeStatesAndSettings(out, data);
+    		out.write(FOOTER);
+    	}catch(IOException e){
+    		throw new IOException("Could not write to chosen file! Do you have the right permissions?", e);
+    	}
+    }
+    
+    private void writeGlobals(Writer out, SimulationData data) throws IOException{
+    	int[] globals = {data.getGridShape(), data.getStroke(), data.getNeighborConfig(), data.getTorus(),
+    			data.getSimType(), data.getGridWidth(), data.getGridHeight(), data.getNumStates()};
+    	for (int i = 0; i < GLOBAL_DATA_FIELDS; i++)
+    		writeElement(out, 1, DATA_FIELDS.get(i), "" + globals[i]);
+    }
+    
+    private void writeCells(Writer out, byte[] states, int width) throws IOException{
+    	for (int index = 0; index < states.length; index++){
+    		out.write("\t<Cell>\n");
+    		writeElement(out, 2, INNER_DATA_FIELDS.get(0), "" + states[index]);
+    		writeElement(out, 2, INNER_DATA_FIELDS.get(1), "" + index % width);
+    		writeElement(out, 2, INNER_DATA_FIELDS.get(2), "" + index / width);
+    		out.write("\t</Cell>\n");
+    	}
+    }
+    
+    private void writeRuns(Writer out, byte[] states) throws IOException{
+    	int start = 0;
+    	for (int index = 1; index <= states.length; index++){
+    		if (index < states.length && states[index] == states[start])
+    			continue;
+    		out.write(String.format(RUN_FORMAT, states[start], start, index - start));
+    		start = index;
+    	}
+    }
+    
+    private void writeStatesAndSettings(Writer out, SimulationData data) throws IOException{
+    	String[] names = data.getStateNames();
+    	for (int j = 0; j < data.getNumStates(); j++)
+    		out.write(String.format(PLACEHOLDER, j < names.length? escape(names[j]): "" + j));
+    	for (double d: data.getSettings())
+    		writeElement(out, 1, DATA_FIELDS.get(LAST_ELEMENT), "" + d);
+    }
+    
+    private static void writeElement(Writer out, int depth, String name, String value) throws IOException{
+    	for (int i = 0; i < depth; i++)
+    		out.write('\t');
+    	out.write("<" + name + ">" + value + "</" + name + ">\n");
+    }
+    
+    private static String escape(String s){
+    	return s.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;");
+    }
 
-    private String getNeighConfig(String s) throws XMLException{
+    static String getNeighConfig(String s) throws XMLException{
     	switch(s.toLowerCase()){
     	case "adj": return "" + 0;
     	case "dia": return "" + 1;
@@ -317,36 +416,6 @@ public class Util {
     	}
     }
     
-	private void createOutputStrBldr(List<String> simData, StringBuilder toWrite, int numCells) {
-		int width = Integer.parseInt(simData.get(GLOBAL_DATA_FIELDS - 2));
-		boolean write = true;
-		for(int i = 0; i < simData.size(); i++){
-    		if(i < GLOBAL_DATA_FIELDS)
-		    	toWrite.append("\t<" + DATA_FIELDS.get(i) + ">" + simData.get(i) + "</" + DATA_FIELDS.get(i) + ">\n");
-    		else if(i < numCells + GLOBAL_DATA_FIELDS){
-		    	createIndividualCell(simData, i, toWrite, width);
-    		}
-    		else{
-    			if(write){
-    				for(int j = 0; j < Integer.parseInt(simData.get(GLOBAL_DATA_FIELDS - 1)); j++){
-    				toWrite.append(String.format(PLACEHOLDER, j));
-    				}
-    				write = false;
-    			}
-    			toWrite.append("\t<" + DATA_FIELDS.get(LAST_ELEMENT) + ">" + simData.get(i) + "</" + DATA_FIELDS.get(LAST_ELEMENT) + ">\n");
-    		}
-		}
-	}
-	
-	private void createIndividualCell(List<String> simData, int i, StringBuilder toWrite, int width) {
-		int index = i - GLOBAL_DATA_FIELDS;
-		toWrite.append("\t<Cell>\n");
-		toWrite.append("\t\t<" + INNER_DATA_FIELDS.get(0) + ">" + simData.get(i) +"</" + INNER_DATA_FIELDS.get(0) + ">\n");
-		toWrite.append("\t\t<" + INNER_DATA_FIELDS.get(1) + ">" + index % width +"</" + INNER_DATA_FIELDS.get(1) + ">\n");
-		toWrite.append("\t\t<" + INNER_DATA_FIELDS.get(2) + ">" + index/width + "</" + INNER_DATA_FIELDS.get(2) + ">\n");
-		toWrite.append("\t</Cell>\n");
-	}
-
 	/**
 	 * Read a .txt file with information for the sim like button labels or other text
 	 * 
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import CellGroup.CellGroup;
+import CellGroup.HexCellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.TriCellGroup;
+import Util.SimulationReader;
+import Util.Util;
+import testers.Configs;
+
+/**
+ * Baseline for the hot paths: for every simulation type, grid shape and grid size,
+ * measures CellGroup.update(), building a CellGroup (which runs initCells),
+ * getCellStates(), and saving and parsing the simulation as XML. Updates are
+ * measured in short batches, each on a freshly built grid, since fire and
+ * other simulations settle within a few generations and would otherwise be
+ * measured doing nothing.
+ * 
+ * Usage: CellGroupBenchmark [sizes, e.g. 10,50,200] [measure millis]
+ */
+public class CellGroupBenchmark {
+	public static final int[] DEFAULT_SIZES = {10, 50, 200};
+	public static final int[] SIM_TYPES = {CellGroup.FIRE, CellGroup.LIFE, CellGroup.WATOR, CellGroup.SEG, CellGroup.RPS};
+	public static final List<String> SIM_NAMES = Arrays.asList(new String[] {"", "fire", "life", "wator", "seg", "rps"});
+	public static final List<String> SHAPE_NAMES = Arrays.asList(new String[] {"square", "hex", "tri"});
+	public static final double[][] SIM_SETTINGS = {
+			{},
+			{0.5},
+			{2, 3, 3},
+			{2, 2, 1, 3},
+			{0.3, 5},
+			{1},
+	};
+	public static final int[] NUM_STATES = {0, 3, 3, 3, 3, 4};
+	public static final int UPDATES_PER_BATCH = 10;
+	
+	public static void main(String[] args) throws Exception{
+		int[] sizes = DEFAULT_SIZES;
+		if (args.length > 0)
+			sizes = Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray();
+		Harness harness = args.length > 1? new Harness(Harness.DEFAULT_WARMUP_MILLIS, Long.parseLong(args[1])): new Harness();
+		
+		System.out.println(Harness.HEADER);
+		for (int simType: SIM_TYPES)
+			for (int shape = 0; shape < SHAPE_NAMES.size(); shape++)
+				for (int size: sizes)
+					benchmark(harness, simType, shape, size);
+	}
+	
+	private static void benchmark(Harness harness, int simType, int shape, int size) throws Exception{
+		String name = SIM_NAMES.get(simType) + "/" + SHAPE_NAMES.get(shape) + "/" + size + "x" + size;
+		
+		harness.measure(name + " construct", () -> createCells(shape, config(simType, size)));
+		CellGroup cells = createCells(shape, config(simType, size));
+		harness.measure(name + " getCellStates", () -> cells.getCellStates());
+		saveAndParse(harness, name, cells, shape);
+		CellGroup[] live = new CellGroup[1];
+		harness.measure(name + " update", () -> live[0] = createCells(shape, config(simType, size)), 
+				() -> live[0].update(), UPDATES_PER_BATCH);
+	}
+	
+	private static void saveAndParse(Harness harness, String name, CellGroup cells, int shape) throws Exception{
+		Util util = new Util();
+		File file = File.createTempFile("benchmark", ".xml");
+		file.deleteOnExit();
+		List<String> simInfo = cells.getSimInfoCopy();
+		simInfo.add(0, "" + shape);
+		
+		harness.measure(name + " saveFile", () -> util.saveFile(new LinkedList<>(simInfo), file));
+		harness.measure(name + " saveFile runs", () -> util.saveFile(cells.getSimData(shape), file, true));
+		harness.measure(name + " parseText", () -> util.parseText(file));
+		harness.measure(name + " SimulationReader", () -> SimulationReader.read(file));
+	}
+	
+	/**
+	 * @return	config for a size by size grid with the cells split evenly between states
+	 */
+	public static LinkedList<Double> config(int simType, int size){
+		return Configs.counts(simType, 2, 0, size, size, Configs.evenly(NUM_STATES[simType], size*size), SIM_SETTINGS[simType]);
+	}
+	
+	/**
+	 * @param shape		0 for squares, 1 for hexagons, 2 for triangles
+	 */
+	public static CellGroup createCells(int shape, List<Double> configInfo) throws IOException{
+		switch (shape){
+			case 1: return new HexCellGroup(configInfo);
+			case 2: return new TriCellGroup(configInfo);
+		}
+		return new SquareCellGroup(configInfo);
+	}
+}
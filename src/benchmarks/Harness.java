@@ -0,0 +1,163 @@
+package benchmarks;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Small timing harness for the benchmarks in this package. Each benchmark runs
+ * for a warmup period so the JIT settles, then for a measured period, and reports
+ * operations per second, bytes allocated per operation (by the calling thread,
+ * read from com.sun.management.ThreadMXBean) and the collections that ran while
+ * it was measured.
+ */
+public class Harness {
+	public static final long DEFAULT_WARMUP_MILLIS = 500;
+	public static final long DEFAULT_MEASURE_MILLIS = 1000;
+	public static final String HEADER = String.format("%-44s %14s %14s %8s %10s", 
+			"benchmark", "ops/s", "B/op", "gc", "gc ms");
+	
+	private static final com.sun.management.ThreadMXBean THREADS = 
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	
+	private long warmupNanos;
+	private long measureNanos;
+	
+	/**
+	 * Something to measure, run over and over
+	 */
+	public interface Operation {
+		public void run() throws Exception;
+	}
+	
+	/**
+	 * Result of one benchmark
+	 */
+	public static class Result {
+		public final String name;
+		public final double opsPerSecond;
+		public final double bytesPerOp;
+		public final long gcCount;
+		public final long gcMillis;
+		
+		private Result(String benchmark, double ops, double bytes, long collections, long collectionMillis){
+			name = benchmark;
+			opsPerSecond = ops;
+			bytesPerOp = bytes;
+			gcCount = collections;
+			gcMillis = collectionMillis;
+		}
+		
+		@Override
+		public String toString(){
+			return String.format("%-44s %14.1f %14.1f %8d %10d", name, opsPerSecond, bytesPerOp, gcCount, gcMillis);
+		}
+	}
+	
+	public Harness(){
+		this(DEFAULT_WARMUP_MILLIS, DEFAULT_MEASURE_MILLIS);
+	}
+	
+	/**
+	 * @param warmupMillis		how long each benchmark runs before it is measured
+	 * @param measureMillis		how long each benchmark is measured
+	 */
+	public Harness(long warmupMillis, long measureMillis){
+		warmupNanos = warmupMillis * 1000000;
+		measureNanos = measureMillis * 1000000;
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+	}
+	
+	/**
+	 * Runs one benchmark and prints its result
+	 * 
+	 * @param name		what is being measured
+	 * @param op		the operation to repeat
+	 * @return	the measured result
+	 * @throws Exception	if the operation fails
+	 */
+	public Result measure(String name, Operation op) throws Exception{
+		runFor(op, warmupNanos);
+		
+		long threadId = Thread.currentThread().getId();
+		long gcCountBefore = gcCount();
+		long gcMillisBefore = gcMillis();
+		long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		long ops = runFor(op, measureNanos);
+		long elapsed = System.nanoTime() - start;
+		long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+		
+		Result result = new Result(name, ops / (elapsed / 1e9), (double) bytes / ops, 
+				gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+		System.out.println(result);
+		return result;
+	}
+	
+	/**
+	 * Runs one benchmark in batches, each after a setup that is not measured, and prints its result.
+	 * For operations that use up what they work on, like steps of a grid that dies out.
+	 * 
+	 * @param name		what is being measured
+	 * @param setup		run before each batch, untimed
+	 * @param op		the operation to repeat
+	 * @param batchOps	times op runs after each setup
+	 * @return	the measured result
+	 * @throws Exception	if the setup or operation fails
+	 */
+	public Result measure(String name, Operation setup, Operation op, int batchOps) throws Exception{
+		long warmupEnd = System.nanoTime() + warmupNanos;
+		do{
+			setup.run();
+			for (int i = 0; i < batchOps; i++)
+				op.run();
+		} while (System.nanoTime() < warmupEnd);
+		
+		long threadId = Thread.currentThread().getId();
+		long ops = 0, elapsed = 0, bytes = 0, collections = 0, collectionMillis = 0;
+		do{
+			setup.run();
+			long gcCountBefore = gcCount();
+			long gcMillisBefore = gcMillis();
+			long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+			long start = System.nanoTime();
+			for (int i = 0; i < batchOps; i++)
+				op.run();
+			elapsed += System.nanoTime() - start;
+			bytes += THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+			collections += gcCount() - gcCountBefore;
+			collectionMillis += gcMillis() - gcMillisBefore;
+			ops += batchOps;
+		} while (elapsed < measureNanos);
+		
+		Result result = new Result(name, ops / (elapsed / 1e9), (double) bytes / ops, collections, collectionMillis);
+		System.out.println(result);
+		return result;
+	}
+	
+	/**
+	 * @return	number of operations run
+	 */
+	private static long runFor(Operation op, long nanos) throws Exception{
+		long ops = 0;
+		long end = System.nanoTime() + nanos;
+		do{
+			op.run();
+			ops++;
+		} while (System.nanoTime() < end);
+		return ops;
+	}
+	
+	private static long gcCount(){
+		long total = 0;
+		for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans())
+			total += Math.max(0, gc.getCollectionCount());
+		return total;
+	}
+	
+	private static long gcMillis(){
+		long total = 0;
+		for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans())
+			total += Math.max(0, gc.getCollectionTime());
+		return total;
+	}
+}
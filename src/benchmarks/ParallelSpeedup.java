@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.LifeCell;
+import CellGroup.Engine.ArrayEngine;
+import testers.Configs;
+
+/**
+ * Steps one random Game of Life grid with the array engine on 1 up to N threads
+ * and prints generations per second and speedup over one thread for each.
+ * 
+ * Usage: ParallelSpeedup [size] [generations] [maxThreads]
+ */
+public class ParallelSpeedup {
+	public static final int DEFAULT_SIZE = 1000;
+	public static final int DEFAULT_GENERATIONS = 200;
+	public static final int WARMUP_GENERATIONS = 50;
+
+	public static void main(String[] args) throws IOException{
+		int size = args.length > 0? Integer.parseInt(args[0]): DEFAULT_SIZE;
+		int generations = args.length > 1? Integer.parseInt(args[1]): DEFAULT_GENERATIONS;
+		int maxThreads = args.length > 2? Integer.parseInt(args[2]): Runtime.getRuntime().availableProcessors();
+		
+		CellGroup group = new SquareCellGroup(lifeConfig(size), CellGroup.ARRAY_ENGINE);
+		byte[] start = group.getEngine().getStates().clone();
+		
+		double base = 0;
+		for (int threads = 1; threads <= maxThreads; threads++){
+			ArrayEngine engine = new ArrayEngine(start.clone(), group.getNeighborTable().heardFrom(),
+					new LifeCell.Kernel(Arrays.asList(2.0, 3.0, 3.0)), CellGroup.STATE_COLORS.length, size, threads);
+			for (int k = 0; k < WARMUP_GENERATIONS; k++)
+				engine.update();
+			
+			long begin = System.nanoTime();
+			for (int k = 0; k < generations; k++)
+				engine.update();
+			double gensPerSec = generations / ((System.nanoTime() - begin) / 1e9);
+			if (threads == 1)
+				base = gensPerSec;
+			System.out.printf("%2d threads: %10.1f gens/sec  %5.2fx%n", threads, gensPerSec, gensPerSec / base);
+		}
+	}
+	
+	/**
+	 * @param size	width and height of the grid
+	 * @return	config for a square Moore neighborhood Life grid, half alive
+	 */
+	private static LinkedList<Double> lifeConfig(int size){
+		int cells = size*size;
+		return Configs.counts(CellGroup.LIFE, 2, 0, size, size, new int[] {0, cells/2, cells - cells/2}, 2, 3, 3);
+	}
+}
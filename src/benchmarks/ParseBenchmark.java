@@ -0,0 +1,46 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import CellGroup.CellGroup;
+import Util.SimulationReader;
+import Util.Util;
+
+/**
+ * Saves a Game of Life grid of each size with every cell given individually, as
+ * Game saves, then reads it back both with Util.parseText (a DOM tree, then a list
+ * of Strings) and with SimulationReader (one streaming pass into arrays), and
+ * compares time and bytes allocated per parse.
+ *
+ * Usage: ParseBenchmark [sizes, e.g. 100,300,1000] [measure millis]
+ */
+public class ParseBenchmark {
+	public static final int[] DEFAULT_SIZES = {100, 300, 1000};
+
+	public static void main(String[] args) throws Exception{
+		int[] sizes = DEFAULT_SIZES;
+		if (args.length > 0)
+			sizes = Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray();
+		Harness harness = args.length > 1? new Harness(Harness.DEFAULT_WARMUP_MILLIS, Long.parseLong(args[1])): new Harness();
+
+		System.out.println(Harness.HEADER);
+		for (int size: sizes)
+			benchmark(harness, size);
+	}
+
+	private static void benchmark(Harness harness, int size) throws Exception{
+		Util util = new Util();
+		File file = File.createTempFile("parse", ".xml");
+		file.deleteOnExit();
+		List<String> simInfo = CellGroupBenchmark.createCells(0, CellGroupBenchmark.config(CellGroup.LIFE, size)).getSimInfoCopy();
+		simInfo.add(0, "0");
+		util.saveFile(new LinkedList<>(simInfo), file);
+
+		String name = size + "x" + size + " (" + file.length()/1024 + " KB)";
+		harness.measure(name + " parseText", () -> util.parseText(file));
+		harness.measure(name + " SimulationReader", () -> SimulationReader.read(file));
+	}
+}
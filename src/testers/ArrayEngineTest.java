@@ -0,0 +1,105 @@
+package testers;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.LifeCell;
+import CellGroup.Engine.ArrayEngine;
+import junit.framework.TestCase;
+
+public class ArrayEngineTest extends TestCase{
+	
+	public static final int WIDTH = 12;
+	public static final int HEIGHT = 10;
+	
+	/**
+	 * Builds the list CellGroup expects with every cell's state specified
+	 */
+	private static LinkedList<Double> config(int simType, int neigh, int[] states, double... params){
+		return Configs.states(simType, neigh, 0, WIDTH, HEIGHT, 3, states, params);
+	}
+	
+	private static int[] randomStates(long seed, int min){
+		Random rand = new Random(seed);
+		int[] states = new int[WIDTH*HEIGHT];
+		for (int i = 0; i < states.length; i++)
+			states[i] = min + rand.nextInt(3 - min);
+		return states;
+	}
+	
+	private static void assertSameRun(int simType, int neigh, int[] states, double... params) throws Exception{
+		CellGroup objects = new SquareCellGroup(config(simType, neigh, states, params), CellGroup.OBJECT_ENGINE);
+		CellGroup arrays = new SquareCellGroup(config(simType, neigh, states, params), CellGroup.ARRAY_ENGINE);
+		for (int k = 0; k < 10; k++){
+			assertEquals(objects.getSimInfoCopy(), arrays.getSimInfoCopy());
+			objects.getEngine().update();
+			arrays.getEngine().update();
+		}
+		assertEquals(objects.getSimInfoCopy(), arrays.getSimInfoCopy());
+	}
+	
+	@Test
+	public void testLifeMatchesObjects() throws Exception{
+		for (int neigh = 0; neigh < 3; neigh++)
+			assertSameRun(CellGroup.LIFE, neigh, randomStates(neigh, 1), 2, 3, 3);
+	}
+	
+	@Test
+	public void testCertainFireMatchesObjects() throws Exception{
+		assertSameRun(CellGroup.FIRE, 0, randomStates(7, 0), 1);
+	}
+	
+	@Test
+	public void testParallelLifeMatchesSequential() throws Exception{
+		CellGroup group = new SquareCellGroup(config(CellGroup.LIFE, 2, randomStates(11, 1), 2, 3, 3), CellGroup.ARRAY_ENGINE);
+		byte[] states = group.getEngine().getStates();
+		LinkedList<Double> rules = new LinkedList<>(Arrays.asList(2.0, 3.0, 3.0));
+		ArrayEngine sequential = new ArrayEngine(states.clone(), group.getNeighborTable().heardFrom(), 
+				new LifeCell.Kernel(rules), 4, WIDTH, 1);
+		ArrayEngine parallel = new ArrayEngine(states.clone(), group.getNeighborTable().heardFrom(), 
+				new LifeCell.Kernel(rules), 4, WIDTH, 3);
+		for (int k = 0; k < 20; k++){
+			sequential.update();
+			parallel.update();
+			assertTrue(Arrays.equals(sequential.getStates(), parallel.getStates()));
+		}
+	}
+	
+	@Test
+	public void testStillLifeLeavesNothingActive() throws Exception{
+		int[] states = new int[WIDTH*HEIGHT];
+		Arrays.fill(states, LifeCell.DEAD);
+		for (int block: new int[] {2*WIDTH+2, 2*WIDTH+3, 3*WIDTH+2, 3*WIDTH+3})
+			states[block] = LifeCell.ALIVE;
+		states[7*WIDTH+8] = LifeCell.ALIVE;
+		ArrayEngine engine = (ArrayEngine) new SquareCellGroup(config(CellGroup.LIFE, 2, states, 2, 3, 3), 
+				CellGroup.ARRAY_ENGINE).getEngine();
+		
+		engine.update();
+		assertEquals(1, engine.getChangedCount());
+		assertEquals(7*WIDTH+8, engine.getChangedCells()[0]);
+		assertEquals(9, engine.getActiveCount());
+		engine.update();
+		assertEquals(0, engine.getActiveCount());
+		
+		engine.setState(0, LifeCell.ALIVE);
+		assertEquals(4, engine.getActiveCount());
+		engine.update();
+		assertEquals(LifeCell.DEAD, engine.getStates()[0]);
+	}
+	
+	@Test
+	public void testArrayEngineRejectsMovingCells(){
+		try{
+			new SquareCellGroup(config(CellGroup.SEG, 2, randomStates(3, 0), 0.4, 5), CellGroup.ARRAY_ENGINE);
+			fail("Segregation cells cannot run as a kernel");
+		} catch (Exception e){
+			assertTrue(e.getMessage().contains("array engine"));
+		}
+	}
+}
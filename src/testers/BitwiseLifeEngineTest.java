@@ -0,0 +1,86 @@
+package testers;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.HexCellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.Cell;
+import CellGroup.Cell.LifeCell;
+import CellGroup.Engine.BitwiseLifeEngine;
+import CellGroup.Engine.Engine;
+import junit.framework.TestCase;
+
+public class BitwiseLifeEngineTest extends TestCase{
+	
+	public static final int HEIGHT = 9;
+	public static final int[] WIDTHS = {3, 4, 63, 64, 70, 130};
+	
+	/**
+	 * Builds the list CellGroup expects with every cell's state picked at random
+	 */
+	private static LinkedList<Double> config(int width, int neigh, int torus, long seed, double... thresholds){
+		Random rand = new Random(seed);
+		int[] states = new int[width*HEIGHT];
+		for (int i = 0; i < states.length; i++){
+			int roll = rand.nextInt(10);
+			states[i] = roll == 0? Cell.EMPTY: roll < 4? LifeCell.ALIVE: LifeCell.DEAD;
+		}
+		return Configs.states(CellGroup.LIFE, neigh, torus, width, HEIGHT, 3, states, thresholds);
+	}
+	
+	private static void assertSameRun(int width, int neigh, int torus, double... thresholds) throws Exception{
+		long seed = width*31 + neigh*7 + torus;
+		CellGroup arrays = new SquareCellGroup(config(width, neigh, torus, seed, thresholds), CellGroup.ARRAY_ENGINE);
+		CellGroup bits = new SquareCellGroup(config(width, neigh, torus, seed, thresholds), CellGroup.BITWISE_ENGINE);
+		for (int k = 0; k < 12; k++){
+			assertEquals(arrays.getSimInfoCopy(), bits.getSimInfoCopy());
+			arrays.getEngine().update();
+			bits.getEngine().update();
+		}
+		assertEquals(arrays.getSimInfoCopy(), bits.getSimInfoCopy());
+	}
+	
+	@Test
+	public void testMatchesArrayEngine() throws Exception{
+		for (int width: WIDTHS)
+			for (int neigh = 0; neigh < 3; neigh++)
+				for (int torus = 0; torus < 2; torus++)
+					assertSameRun(width, neigh, torus, 2, 3, 3);
+	}
+	
+	@Test
+	public void testOtherThresholds() throws Exception{
+		assertSameRun(70, 2, 1, 1, 4, 2);
+		assertSameRun(64, 0, 0, 0, 2, 1);
+	}
+	
+	@Test
+	public void testChangedCells() throws Exception{
+		Engine engine = new SquareCellGroup(config(70, 2, 0, 5, 2, 3, 3), CellGroup.BITWISE_ENGINE).getEngine();
+		assertTrue(engine instanceof BitwiseLifeEngine);
+		byte[] before = engine.getStates().clone();
+		engine.update();
+		int count = 0;
+		for (int i = 0; i < before.length; i++){
+			if (before[i] != engine.getStates()[i]){
+				assertEquals(i, engine.getChangedCells()[count]);
+				count++;
+			}
+		}
+		assertEquals(count, engine.getChangedCount());
+	}
+	
+	@Test
+	public void testRejectsOtherGrids(){
+		try{
+			new HexCellGroup(config(8, 2, 0, 1, 2, 3, 3), CellGroup.BITWISE_ENGINE);
+			fail("Hexagons do not line up in bit rows");
+		} catch (Exception e){
+			assertTrue(e.getMessage().contains("bitwise"));
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package testers;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import Game.Checkpointer;
+import Util.SimulationData;
+import Util.SimulationReader;
+import Util.SnapshotFile;
+import junit.framework.TestCase;
+
+public class CheckpointerTest extends TestCase{
+	private static final List<String> NAMES = Arrays.asList("Empty", "Fish", "Shark");
+
+	private static LinkedList<Double> wator(int size){
+		int cells = size*size;
+		return Configs.counts(CellGroup.WATOR, 2, 0, size, size, new int[] {cells/2, cells/4, cells - cells/2 - cells/4}, 2, 2, 1, 3);
+	}
+
+	private static File tempFile() throws Exception{
+		File file = Files.createTempFile("checkpoint", SnapshotFile.EXTENSION).toFile();
+		file.delete();
+		file.deleteOnExit();
+		return file;
+	}
+
+	@Test
+	public void testResumesAtCheckpointedGeneration() throws Exception{
+		File file = tempFile();
+		CellGroup cells = new SquareCellGroup(wator(16));
+		Checkpointer checkpointer = new Checkpointer(cells, 0, NAMES, file, 4, 0);
+		for (int k = 0; k < 7; k++){
+			cells.step();
+			assertEquals(k == 3, checkpointer.afterStep(cells));
+		}
+		checkpointer.close();
+		assertEquals(1, checkpointer.getWritten());
+		assertFalse(new File(file.getPath() + Checkpointer.TEMP_SUFFIX).exists());
+
+		SimulationData saved = SimulationReader.read(file);
+		assertEquals(4, saved.getGeneration());
+		assertEquals(NAMES, Arrays.asList(saved.getStateNames()));
+		CellGroup resumed = new SquareCellGroup(saved, CellGroup.AUTO_ENGINE);
+		for (int k = 4; k < 7; k++)
+			resumed.step();
+		assertEquals(cells.getGeneration(), resumed.getGeneration());
+		for (int k = 0; k < 5; k++){
+			cells.step();
+			resumed.step();
+			assertTrue(Arrays.equals(cells.getEngine().getStates(), resumed.getEngine().getStates()));
+		}
+	}
+
+	@Test
+	public void testIntervalChangesWhileRunning() throws Exception{
+		CellGroup cells = new SquareCellGroup(wator(8));
+		Checkpointer checkpointer = new Checkpointer(cells, 0, NAMES, tempFile(), 0, 0);
+		cells.step();
+		assertFalse(checkpointer.afterStep(cells));
+		checkpointer.setInterval(2, 0);
+		cells.step();
+		assertTrue(checkpointer.afterStep(cells));
+		cells.step();
+		assertFalse(checkpointer.afterStep(cells));
+		checkpointer.setInterval(0, 0);
+		for (int k = 0; k < 4; k++){
+			cells.step();
+			assertFalse(checkpointer.afterStep(cells));
+		}
+		checkpointer.close();
+		assertEquals(1, checkpointer.getWritten());
+	}
+
+	@Test
+	public void testRequestedSave() throws Exception{
+		File checkpoint = tempFile();
+		File requested = tempFile();
+		CellGroup cells = new SquareCellGroup(wator(8));
+		Checkpointer checkpointer = new Checkpointer(cells, 0, NAMES, checkpoint, 0, 0);
+		cells.step();
+		assertFalse(checkpointer.takeRequest(cells));
+		checkpointer.request(requested);
+		assertTrue(checkpointer.takeRequest(cells));
+		assertFalse(checkpointer.takeRequest(cells));
+		cells.step();
+		assertFalse(checkpointer.afterStep(cells));
+		checkpointer.close();
+
+		assertEquals(1, checkpointer.getWritten());
+		assertFalse(checkpoint.exists());
+		assertEquals(1, SimulationReader.read(requested).getGeneration());
+	}
+
+	@Test
+	public void testAddsSnapshotExtension() throws Exception{
+		File bare = tempFile();
+		File named = new File(bare.getPath().substring(0, bare.getPath().length() - SnapshotFile.EXTENSION.length()));
+		CellGroup cells = new SquareCellGroup(wator(8));
+		Checkpointer checkpointer = new Checkpointer(cells, 0, NAMES, named, 1, 0);
+		assertEquals(bare, checkpointer.getFile());
+		cells.step();
+		assertTrue(checkpointer.afterStep(cells));
+		checkpointer.close();
+
+		assertFalse(named.exists());
+		assertEquals(1, SimulationReader.read(checkpointer.getFile()).getGeneration());
+	}
+}
@@ -0,0 +1,72 @@
+package testers;
+
+import java.util.LinkedList;
+
+/**
+ * Builds the list CellGroup reads a grid from, for the tests and benchmarks: stroke,
+ * neighborhood, torus, simulation type, width, height, number of states, the cells whose
+ * state is given (state, then index), how many of each state to place at random, then the
+ * settings of the simulation type.
+ */
+public class Configs {
+
+	/**
+	 * @param values	every number of the list, in order
+	 * @return	the values as the list CellGroup expects
+	 */
+	public static LinkedList<Double> list(double... values){
+		LinkedList<Double> config = new LinkedList<>();
+		for (double d: values)
+			config.add(d);
+		return config;
+	}
+
+	/**
+	 * Builds a grid whose cells are placed at random
+	 *
+	 * @param counts	how many cells start in each state, one per state
+	 * @param settings	settings of the simulation type
+	 * @return	the list CellGroup expects
+	 */
+	public static LinkedList<Double> counts(int simType, int neigh, int torus, int width, int height, int[] counts,
+			double... settings){
+		LinkedList<Double> config = list(0, neigh, torus, simType, width, height, counts.length, 0);
+		for (int count: counts)
+			config.add((double) count);
+		for (double d: settings)
+			config.add(d);
+		return config;
+	}
+
+	/**
+	 * Builds a grid with the state of every cell given
+	 *
+	 * @param numStates	number of states of the simulation type
+	 * @param states	state of each cell, row by row
+	 * @param settings	settings of the simulation type
+	 * @return	the list CellGroup expects
+	 */
+	public static LinkedList<Double> states(int simType, int neigh, int torus, int width, int height, int numStates,
+			int[] states, double... settings){
+		LinkedList<Double> config = list(0, neigh, torus, simType, width, height, numStates, states.length);
+		for (int i = 0; i < states.length; i++){
+			config.add((double) states[i]);
+			config.add((double) i);
+		}
+		for (int s = 0; s < numStates; s++)
+			config.add(0.0);
+		for (double d: settings)
+			config.add(d);
+		return config;
+	}
+
+	/**
+	 * @return	counts splitting the cells as evenly as possible between the states
+	 */
+	public static int[] evenly(int numStates, int cells){
+		int[] counts = new int[numStates];
+		for (int s = 0; s < numStates; s++)
+			counts[s] = cells/numStates + (s < cells%numStates? 1: 0);
+		return counts;
+	}
+}
@@ -0,0 +1,54 @@
+package testers;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.RasterRenderer;
+import CellGroup.SquareCellGroup;
+import Game.FrameExporter;
+import javafx.scene.paint.Color;
+import junit.framework.TestCase;
+
+public class FrameExporterTest extends TestCase{
+	
+	private static CellGroup cells() throws IOException{
+		return new SquareCellGroup(Configs.list(0, 2, 0, CellGroup.LIFE, 4, 4, 3, 1, 2, 0, 0, 8, 7, 2, 3, 3));
+	}
+	
+	@Test
+	public void testWritesEveryNthGeneration() throws Exception{
+		CellGroup cells = cells();
+		File directory = Files.createTempDirectory("frames").toFile();
+		FrameExporter exporter = new FrameExporter(cells, directory, 3, 2, 2, FrameExporter.BLOCK);
+		for (long generation = 0; generation < 10; generation++)
+			exporter.offer(generation, cells.getEngine().getStates());
+		exporter.close();
+		
+		assertEquals(4, exporter.getWritten());
+		assertEquals(0, exporter.getDropped());
+		assertEquals(4, directory.list().length);
+		BufferedImage image = ImageIO.read(new File(directory, String.format(FrameExporter.FILE_NAME, 9)));
+		assertEquals(CellGroup.INNER_SIZE, image.getWidth());
+		assertEquals(RasterRenderer.argb((Color) CellGroup.STATE_COLORS[2]), image.getRGB(10, 10));
+	}
+	
+	@Test
+	public void testDropPolicyNeverBlocks() throws Exception{
+		CellGroup cells = cells();
+		File directory = Files.createTempDirectory("frames").toFile();
+		FrameExporter exporter = new FrameExporter(cells, directory, 1, 1, 1, FrameExporter.DROP);
+		for (long generation = 0; generation < 50; generation++)
+			exporter.offer(generation, cells.getEngine().getStates());
+		exporter.close();
+		
+		assertEquals(50, exporter.getWritten() + exporter.getDropped());
+		assertEquals(exporter.getWritten(), directory.list().length);
+	}
+}
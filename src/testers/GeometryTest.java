@@ -0,0 +1,80 @@
+package testers;
+
+import java.io.IOException;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.HexCellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.TriCellGroup;
+import junit.framework.TestCase;
+
+public class GeometryTest extends TestCase{
+	private static final int WIDTH = 7;
+	private static final int HEIGHT = 9;
+	
+	private static LinkedList<Double> config(){
+		return Configs.counts(CellGroup.LIFE, 2, 0, WIDTH, HEIGHT, new int[] {0, 30, 33}, 2, 3, 3);
+	}
+	
+	private static class Square extends SquareCellGroup{
+		Square() throws IOException{ super(config()); }
+		double[][] points(){ return getVertices(); }
+	}
+	
+	private static class Hex extends HexCellGroup{
+		Hex() throws IOException{ super(config()); }
+		double[][] points(){ return getVertices(); }
+	}
+	
+	private static class Tri extends TriCellGroup{
+		Tri() throws IOException{ super(config()); }
+		double[][] points(){ return getVertices(); }
+	}
+	
+	/**
+	 * The average of a convex polygon's corners is inside it
+	 */
+	private static void checkCenters(CellGroup group, double[][] points){
+		for (int i = 0; i < points.length; i++){
+			double x = 0, y = 0;
+			for (int k = 0; k < points[i].length; k += 2){
+				x += points[i][k];
+				y += points[i][k+1];
+			}
+			int corners = points[i].length / 2;
+			assertEquals(i, group.cellAt(x / corners, y / corners));
+		}
+		assertEquals(CellGroup.NO_CELL, group.cellAt(0, 0));
+		assertEquals(CellGroup.NO_CELL, group.cellAt(10000, 10000));
+	}
+	
+	@Test
+	public void testSquareCenters() throws IOException{
+		Square group = new Square();
+		checkCenters(group, group.points());
+	}
+	
+	@Test
+	public void testHexCenters() throws IOException{
+		Hex group = new Hex();
+		checkCenters(group, group.points());
+	}
+	
+	@Test
+	public void testTriCenters() throws IOException{
+		Tri group = new Tri();
+		checkCenters(group, group.points());
+	}
+	
+	@Test
+	public void testTriShareEdge() throws IOException{
+		Tri group = new Tri();
+		double[] up = group.points()[0];
+		double[] down = group.points()[1];
+		assertEquals(up[2], down[0], 1e-9);
+		assertEquals(up[3], down[1], 1e-9);
+	}
+}
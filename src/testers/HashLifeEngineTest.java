@@ -0,0 +1,145 @@
+package testers;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.HexCellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.LifeCell;
+import CellGroup.Engine.Engine;
+import CellGroup.Engine.HashLifeEngine;
+import junit.framework.TestCase;
+
+public class HashLifeEngineTest extends TestCase{
+	
+	public static final int SIZE = 32;
+	public static final int[] GLIDER = {1, 2+SIZE, 2*SIZE, 2*SIZE+1, 2*SIZE+2};
+	
+	/**
+	 * Builds the list CellGroup expects for a dead grid with the given cells alive
+	 */
+	private static LinkedList<Double> config(int torus, int[] alive, double... thresholds){
+		int[] states = new int[SIZE*SIZE];
+		Arrays.fill(states, LifeCell.DEAD);
+		for (int dex: alive)
+			states[dex] = LifeCell.ALIVE;
+		return Configs.states(CellGroup.LIFE, 2, torus, SIZE, SIZE, 3, states, thresholds);
+	}
+	
+	private static int[] glider(int offset){
+		int[] cells = new int[GLIDER.length];
+		for (int i = 0; i < cells.length; i++)
+			cells[i] = GLIDER[i] + offset;
+		return cells;
+	}
+	
+	@Test
+	public void testMatchesArrayEngineAwayFromEdges() throws Exception{
+		int[] alive = glider(4*SIZE + 4);
+		Engine arrays = new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.ARRAY_ENGINE).getEngine();
+		Engine hashLife = new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.HASHLIFE_ENGINE).getEngine();
+		for (int k = 0; k < 40; k++){
+			assertTrue(Arrays.equals(arrays.getStates(), hashLife.getStates()));
+			arrays.update();
+			hashLife.update();
+		}
+	}
+	
+	@Test
+	public void testBigStepsMatchSingleSteps() throws Exception{
+		int[] alive = glider(10*SIZE + 10);
+		HashLifeEngine single = (HashLifeEngine) new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.HASHLIFE_ENGINE).getEngine();
+		HashLifeEngine jumps = (HashLifeEngine) new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.HASHLIFE_ENGINE).getEngine();
+		jumps.setStepLog2(3);
+		for (int k = 0; k < 4; k++){
+			for (int i = 0; i < 8; i++)
+				single.update();
+			jumps.update();
+			assertEquals(single.getGeneration(), jumps.getGeneration());
+			assertTrue(Arrays.equals(single.getStates(), jumps.getStates()));
+		}
+		assertEquals(32, jumps.getGeneration());
+	}
+	
+	@Test
+	public void testGroupCountsGenerationsPerJump() throws Exception{
+		int[] alive = glider(10*SIZE + 10);
+		CellGroup single = new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.HASHLIFE_ENGINE);
+		CellGroup jumps = new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.HASHLIFE_ENGINE);
+		jumps.setStepLog2(3);
+		assertEquals(8, jumps.getGenerationsPerUpdate());
+		for (int k = 1; k <= 3; k++){
+			for (int i = 0; i < 8; i++)
+				single.step();
+			jumps.step();
+			assertEquals(8*k, jumps.getGeneration());
+			assertEquals(single.getGeneration(), jumps.getGeneration());
+			assertTrue(Arrays.equals(single.getEngine().getStates(), jumps.getEngine().getStates()));
+		}
+		
+		try {
+			new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.ARRAY_ENGINE).setStepLog2(1);
+			fail("only HashLife jumps");
+		} catch (IllegalArgumentException e){
+			// expected
+		}
+	}
+	
+	@Test
+	public void testGliderLeavesWindow() throws Exception{
+		HashLifeEngine engine = (HashLifeEngine) new SquareCellGroup(config(0, glider(0), 2, 3, 3), CellGroup.HASHLIFE_ENGINE).getEngine();
+		engine.setStepLog2(20);
+		engine.update();
+		assertEquals(1L << 20, engine.getGeneration());
+		assertEquals(5, engine.getPopulation());
+		for (byte state: engine.getStates())
+			assertEquals(LifeCell.DEAD, state);
+	}
+	
+	@Test
+	public void testAutoKeepsEdgeDead() throws Exception{
+		Engine auto = new SquareCellGroup(config(0, glider(0), 2, 3, 3), CellGroup.AUTO_ENGINE).getEngine();
+		assertFalse(auto instanceof HashLifeEngine);
+		for (int k = 0; k < 4*SIZE; k++)
+			auto.update();
+		int[] counts = new int[Engine.MAX_STATES];
+		auto.countStates(counts);
+		assertEquals(4, counts[LifeCell.ALIVE]);
+	}
+	
+	@Test
+	public void testCollectingKeepsPattern() throws Exception{
+		int[] alive = glider(4*SIZE + 4);
+		Engine arrays = new SquareCellGroup(config(0, alive, 2, 3, 3), CellGroup.ARRAY_ENGINE).getEngine();
+		HashLifeEngine hashLife = new HashLifeEngine(arrays.getStates().clone(), SIZE, SIZE, 64);
+		for (int k = 0; k < 40; k++){
+			arrays.update();
+			hashLife.update();
+			assertTrue(Arrays.equals(arrays.getStates(), hashLife.getStates()));
+		}
+	}
+	
+	@Test
+	public void testRejectsOtherRules(){
+		LinkedList<LinkedList<Double>> configs = new LinkedList<>();
+		configs.add(config(1, GLIDER, 2, 3, 3));
+		configs.add(config(0, GLIDER, 1, 3, 3));
+		for (LinkedList<Double> config: configs){
+			try{
+				new SquareCellGroup(config, CellGroup.HASHLIFE_ENGINE);
+				fail("HashLife only runs standard Life without a torus");
+			} catch (Exception e){
+				assertTrue(e.getMessage().contains("HashLife"));
+			}
+		}
+		try{
+			new HexCellGroup(config(0, GLIDER, 2, 3, 3), CellGroup.HASHLIFE_ENGINE);
+			fail("HashLife only runs on square grids");
+		} catch (Exception e){
+			assertTrue(e.getMessage().contains("HashLife"));
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package testers;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.NeighborTable;
+import CellGroup.SquareCellGroup;
+import junit.framework.TestCase;
+
+public class NeighborTableTest extends TestCase{
+	
+	public static final int WIDTH = 5;
+	public static final int HEIGHT = 4;
+	
+	private static CellGroup lifeGrid(int neigh, int torus) throws Exception{
+		return new SquareCellGroup(Configs.counts(CellGroup.LIFE, neigh, torus, WIDTH, HEIGHT, new int[] {0, 10, 10}, 2, 3, 3));
+	}
+	
+	private static int[] neighborsOf(NeighborTable table, int i){
+		int[] offsets = table.getOffsets();
+		int[] neighbors = Arrays.copyOfRange(table.getNeighborIndices(), offsets[i], offsets[i+1]);
+		Arrays.sort(neighbors);
+		return neighbors;
+	}
+	
+	@Test
+	public void testSquareMooreNeighborhood() throws Exception{
+		NeighborTable table = lifeGrid(2, 0).getNeighborTable();
+		assertTrue(Arrays.equals(new int[] {1, 5, 6}, neighborsOf(table, 0)));
+		assertTrue(Arrays.equals(new int[] {0, 1, 2, 5, 7, 10, 11, 12}, neighborsOf(table, 6)));
+		assertTrue(Arrays.equals(new int[] {8, 9, 13, 18, 19}, neighborsOf(table, 14)));
+		assertTrue(table.heardFrom() == table);
+	}
+	
+	@Test
+	public void testTorusWrapsSides() throws Exception{
+		NeighborTable table = lifeGrid(0, 1).getNeighborTable();
+		assertTrue(Arrays.equals(new int[] {0, 6, 9, 10}, neighborsOf(table, 5)));
+		assertTrue(Arrays.equals(new int[] {4, 5, 8, 14}, neighborsOf(table, 9)));
+	}
+	
+	@Test
+	public void testSameLayoutReusesTable() throws Exception{
+		assertTrue(lifeGrid(2, 0).getNeighborTable() == lifeGrid(2, 0).getNeighborTable());
+		assertFalse(lifeGrid(2, 0).getNeighborTable() == lifeGrid(2, 1).getNeighborTable());
+	}
+}
@@ -0,0 +1,109 @@
+package testers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.LifeCell;
+import Util.PatternReader;
+import Util.SimulationData;
+import junit.framework.TestCase;
+
+public class PatternReaderTest extends TestCase{
+	private static final byte D = LifeCell.DEAD;
+	private static final byte A = LifeCell.ALIVE;
+	private static final String GOSPER_GUN = "#N Gosper glider gun\nx = 36, y = 9, rule = B3/S23\n"
+			+ "24bo$22bobo$12b2o6b2o12b2o$11bo3bo4b2o12b2o$2o8bo5bo3b2o$2o8bo3bob2o4bobo$10bo5bo7bo$11bo3bo$12b2o!\n";
+	private static final byte[] GLIDER = {
+			D, A, D,
+			D, D, A,
+			A, A, A};
+	
+	@Test
+	public void testRle() throws IOException{
+		SimulationData data = PatternReader.readRle(new StringReader(
+				"#N Glider\n#C a comment\nx = 3, y = 3, rule = B3/S23\nbo$2bo$3o!\n"), 0);
+		assertEquals(3, data.getGridWidth());
+		assertEquals(3, data.getGridHeight());
+		assertEquals(CellGroup.LIFE, data.getSimType());
+		assertTrue(Arrays.equals(GLIDER, data.getStates()));
+		assertTrue(Arrays.equals(new double[] {2, 3, 3}, data.getSettings()));
+	}
+	
+	@Test
+	public void testRleRunsAcrossRows() throws IOException{
+		SimulationData data = PatternReader.readRle(new StringReader("x = 4, y = 5\n4o2$\n2b\n2o!"), 0);
+		byte[] expected = {A, A, A, A,  D, D, D, D,  D, D, A, A,  D, D, D, D,  D, D, D, D};
+		assertTrue(Arrays.equals(expected, data.getStates()));
+	}
+	
+	@Test
+	public void testMacrocellCropsToLiveCells() throws IOException{
+		SimulationData data = PatternReader.readMacrocell(new BufferedReader(new StringReader(
+				"[M2] (test)\n#R B3/S23\n.*$..*$***$\n4 0 0 0 1\n5 2 2 0 0\n")), 0);
+		assertEquals(3 + 16, data.getGridWidth());
+		assertEquals(3, data.getGridHeight());
+		byte[] states = data.getStates();
+		for (int row = 0; row < 3; row++)
+			for (int column = 0; column < 3; column++){
+				assertEquals(GLIDER[row*3 + column], states[row*19 + column]);
+				assertEquals(GLIDER[row*3 + column], states[row*19 + column + 16]);
+			}
+		
+		CellGroup cells = new SquareCellGroup(data, CellGroup.AUTO_ENGINE);
+		assertEquals(10, cells.getCellStates()[LifeCell.ALIVE]);
+	}
+	
+	@Test
+	public void testMarginSurroundsPattern() throws IOException{
+		SimulationData data = PatternReader.readRle(new StringReader("x = 3, y = 3\nbo$2bo$3o!"), 2);
+		assertEquals(7, data.getGridWidth());
+		assertEquals(7, data.getGridHeight());
+		byte[] states = data.getStates();
+		for (int row = 0; row < 7; row++)
+			for (int column = 0; column < 7; column++){
+				boolean inside = row >= 2 && row < 5 && column >= 2 && column < 5;
+				assertEquals(inside? GLIDER[(row - 2)*3 + column - 2]: D, states[row*7 + column]);
+			}
+	}
+	
+	@Test
+	public void testGunKeepsFiringOnEveryEngine() throws Exception{
+		int[] engines = {CellGroup.AUTO_ENGINE, CellGroup.OBJECT_ENGINE, CellGroup.ARRAY_ENGINE, 
+				CellGroup.BITWISE_ENGINE, CellGroup.HASHLIFE_ENGINE};
+		for (int engine: engines){
+			CellGroup cells = new SquareCellGroup(PatternReader.readRle(new StringReader(GOSPER_GUN), 
+					PatternReader.DEFAULT_MARGIN), engine);
+			for (int k = 0; k < 120; k++)
+				cells.step();
+			// the gun every 30 generations, plus the four five-cell gliders it has fired
+			assertEquals("engine " + engine, 36 + 4*5, cells.getCellStates()[A]);
+		}
+	}
+	
+	/**
+	 * @return	the settings for a rule, read through an RLE header
+	 */
+	private static double[] settings(String rule) throws IOException{
+		return PatternReader.readRle(new StringReader("x = 1, y = 1, rule = " + rule + "\no!"), 0).getSettings();
+	}
+	
+	@Test
+	public void testRules() throws IOException{
+		assertTrue(Arrays.equals(new double[] {2, 3, 3}, settings("23/3")));
+		assertTrue(Arrays.equals(new double[] {1, 5, 3}, settings("b3/s12345")));
+		for (String rule: new String[] {"B36/S23", "B3/S13", "B3/S"}){
+			try {
+				settings(rule);
+				fail(rule + " cannot be followed by LifeCell");
+			} catch (IOException e){
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package testers;
+
+import org.junit.Test;
+
+import Util.PopulationHistory;
+import junit.framework.TestCase;
+
+public class PopulationHistoryTest extends TestCase{
+	
+	@Test
+	public void testKeepsWholeRunInCapacity(){
+		PopulationHistory history = new PopulationHistory(2, 100);
+		for (int g = 0; g < 1000; g++)
+			history.add(g, new int[] {g, 1000 - g});
+		
+		assertTrue(history.size() <= 100);
+		assertEquals(16, history.getStride());
+		assertEquals(0, history.getGeneration(0));
+		for (int i = 0; i < history.size(); i++){
+			assertEquals(i * history.getStride(), history.getGeneration(i));
+			assertEquals(1000 - history.getGeneration(i), history.getValue(1, i));
+		}
+		assertTrue(history.getGeneration(history.size() - 1) > 1000 - 2*history.getStride());
+	}
+	
+	@Test
+	public void testDecimateKeepsEndsAndSpike(){
+		PopulationHistory history = new PopulationHistory(1, 1000);
+		for (int g = 0; g < 500; g++)
+			history.add(g, new int[] {g == 237? 900: 10});
+		
+		int[] chosen = new int[20];
+		assertEquals(20, history.decimate(0, 20, chosen));
+		assertEquals(0, chosen[0]);
+		assertEquals(499, chosen[19]);
+		boolean spike = false;
+		for (int k = 0; k < 20; k++){
+			if (k > 0)
+				assertTrue(chosen[k] > chosen[k-1]);
+			spike |= chosen[k] == 237;
+		}
+		assertTrue(spike);
+	}
+	
+	@Test
+	public void testDecimateSmallHistoryKeepsAll(){
+		PopulationHistory history = new PopulationHistory(1, 10);
+		for (int g = 0; g < 5; g++)
+			history.add(g, new int[] {g});
+		int[] chosen = new int[20];
+		assertEquals(5, history.decimate(0, 20, chosen));
+		assertEquals(4, chosen[4]);
+	}
+}
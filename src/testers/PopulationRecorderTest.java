@@ -0,0 +1,219 @@
+package testers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.Snapshot;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.LifeCell;
+import Game.SimulationThread;
+import Util.PopulationFile;
+import Util.PopulationHistory;
+import Util.PopulationRecorder;
+import junit.framework.TestCase;
+
+public class PopulationRecorderTest extends TestCase{
+
+	private static File tempFile() throws IOException{
+		File file = Files.createTempFile("population", PopulationFile.EXTENSION).toFile();
+		file.deleteOnExit();
+		return file;
+	}
+
+	private static PopulationRecorder ramp(File file, int rows, int blockRows) throws IOException{
+		PopulationRecorder recorder = new PopulationRecorder(file, Arrays.asList("a", "b"), 3, 1, blockRows);
+		recorder.addMetric("half", null);
+		for (int g = 0; g < rows; g++)
+			recorder.record(10L*g, new int[] {g, 2*g, 7}, new double[] {g / 2.0});
+		recorder.close();
+		return recorder;
+	}
+
+	@Test
+	public void testRowsReadBackAcrossBlocks() throws IOException{
+		File file = tempFile();
+		assertEquals(1000, ramp(file, 1000, 64).getRows());
+		try (PopulationFile population = new PopulationFile(file)){
+			assertEquals(1000, population.getRows());
+			assertEquals(Arrays.asList("a", "b", "state 2"), Arrays.asList(population.getStateNames()));
+			assertEquals(Arrays.asList("half"), Arrays.asList(population.getMetricNames()));
+			for (long row = 0; row < 1000; row++){
+				assertEquals(10*row, population.getGeneration(row));
+				assertEquals(row, population.getCount(0, row));
+				assertEquals(2*row, population.getCount(1, row));
+				assertEquals(7, population.getCount(2, row));
+				assertEquals(row / 2.0, population.getMetric(0, row));
+			}
+
+			int[] counts = new int[200];
+			population.getCounts(1, 50, counts);
+			for (int k = 0; k < counts.length; k++)
+				assertEquals(2*(50 + k), counts[k]);
+		}
+	}
+
+	@Test
+	public void testFindsAndReplotsRange() throws IOException{
+		File file = tempFile();
+		ramp(file, 5000, 100);
+		try (PopulationFile population = new PopulationFile(file)){
+			assertEquals(0, population.findRow(-5));
+			assertEquals(123, population.findRow(1230));
+			assertEquals(124, population.findRow(1231));
+			assertEquals(5000, population.findRow(50000));
+
+			PopulationHistory history = new PopulationHistory(3, 64);
+			population.fill(history, 10000, 20000, 64);
+			assertTrue(history.size() > 0 && history.size() <= 64);
+			assertEquals(10000, history.getGeneration(0));
+			for (int i = 0; i < history.size(); i++){
+				long generation = history.getGeneration(i);
+				assertTrue(generation >= 10000 && generation <= 20000);
+				assertEquals(generation / 10, history.getValue(0, i));
+			}
+		}
+	}
+
+	@Test
+	public void testRecordsCellsAndMetrics() throws Exception{
+		CellGroup cells = new SquareCellGroup(Configs.counts(CellGroup.LIFE, 2, 0, 20, 20, new int[] {0, 300, 100}, 2, 3, 3),
+				CellGroup.ARRAY_ENGINE);
+		File file = tempFile();
+		PopulationRecorder recorder = new PopulationRecorder(file, Arrays.asList("", "Dead", "Alive"), cells.getNumStates(), 2);
+		recorder.addMetric("alive fraction", c -> c.getCellStates()[2] / 400.0);
+		int[][] expected = new int[6][];
+		for (int g = 0; g <= 10; g++){
+			assertEquals(g % 2 == 0, recorder.record(cells));
+			if (g % 2 == 0)
+				expected[g / 2] = cells.getCellStates();
+			cells.step();
+		}
+		try {
+			recorder.addMetric("late", c -> 0);
+			fail("metrics cannot be added once rows are recorded");
+		} catch (IllegalStateException e){
+			// expected
+		}
+		recorder.close();
+
+		try (PopulationFile population = new PopulationFile(file)){
+			assertEquals(6, population.getRows());
+			for (int row = 0; row < 6; row++){
+				assertEquals(2*row, population.getGeneration(row));
+				for (int s = 0; s < 3; s++)
+					assertEquals(expected[row][s], population.getCount(s, row));
+				assertEquals(expected[row][2] / 400.0, population.getMetric(0, row));
+			}
+		}
+	}
+
+	@Test
+	public void testRunningCountsMatchGrid() throws Exception{
+		int[] engines = {CellGroup.OBJECT_ENGINE, CellGroup.ARRAY_ENGINE, CellGroup.PARALLEL_ENGINE,
+				CellGroup.BITWISE_ENGINE, CellGroup.HASHLIFE_ENGINE};
+		for (int engine: engines){
+			CellGroup cells = new SquareCellGroup(Configs.counts(CellGroup.LIFE, 2, 0, 64, 64, new int[] {0, 2048, 2048}, 2, 3, 3),
+					engine);
+			int[] counts = new int[cells.getNumStates()];
+			for (int k = 0; k < 20; k++){
+				if (k == 10)
+					cells.getEngine().setState(0, LifeCell.ALIVE);
+				cells.step();
+				cells.countStates(counts);
+				int[] scanned = new int[counts.length];
+				for (byte state: cells.getEngine().getStates())
+					scanned[state]++;
+				assertTrue("engine " + engine, Arrays.equals(scanned, counts));
+			}
+		}
+	}
+
+	@Test
+	public void testRecorderSwapsWhileThreadRuns() throws Exception{
+		CellGroup cells = new SquareCellGroup(Configs.counts(CellGroup.LIFE, 2, 0, 16, 16, new int[] {0, 128, 128}, 2, 3, 3));
+		File first = tempFile();
+		File second = tempFile();
+		PopulationRecorder recorder = new PopulationRecorder(first, Arrays.asList("", "Dead", "Alive"), cells.getNumStates(), 1);
+		SimulationThread simulation = new SimulationThread(cells);
+		simulation.setRecorder(recorder);
+		simulation.start();
+		stepAndWait(simulation, cells, 3);
+		assertTrue(recorder == simulation.setRecorder(
+				new PopulationRecorder(second, Arrays.asList("", "Dead", "Alive"), cells.getNumStates(), 1)));
+		recorder.close();
+		stepAndWait(simulation, cells, 5);
+		simulation.shutdown();
+		simulation.setRecorder(null).close();
+
+		try (PopulationFile population = new PopulationFile(first)){
+			assertEquals(3, population.getRows());
+			assertEquals(3, population.getGeneration(2));
+		}
+		try (PopulationFile population = new PopulationFile(second)){
+			assertEquals(2, population.getRows());
+			assertEquals(4, population.getGeneration(0));
+		}
+	}
+
+	/**
+	 * Asks for steps up to a generation and waits until it is published, which is after it is recorded
+	 */
+	private static void stepAndWait(SimulationThread simulation, CellGroup cells, long generation) throws InterruptedException{
+		for (long g = cells.getGeneration(); g < generation; g++)
+			simulation.requestStep();
+		for (Snapshot shown = null; shown == null || shown.getGeneration() < generation; ){
+			Snapshot latest = simulation.getExchange().take();
+			if (latest != null)
+				shown = latest;
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void testRejectsOtherFiles() throws IOException{
+		File file = tempFile();
+		Files.write(file.toPath(), "<Simulation/>".getBytes());
+		try {
+			new PopulationFile(file).close();
+			fail("an XML file is not a population file");
+		} catch (IOException e){
+			// expected
+		}
+	}
+
+	@Test
+	public void testJumpsPastEveryStillRecord() throws IOException{
+		File file = tempFile();
+		PopulationRecorder recorder = new PopulationRecorder(file, Arrays.asList("a"), 1, 5);
+		for (int g = 0; g <= 40; g += 8)
+			recorder.record(g, new int[] {g}, null);
+		recorder.close();
+		try (PopulationFile population = new PopulationFile(file)){
+			long[] expected = {0, 8, 16, 24, 32, 40};
+			assertEquals(expected.length, population.getRows());
+			for (int row = 0; row < expected.length; row++)
+				assertEquals(expected[row], population.getGeneration(row));
+		}
+	}
+
+	@Test
+	public void testEveryAppliesToRowsWorkedOutElsewhere() throws IOException{
+		File file = tempFile();
+		PopulationRecorder recorder = new PopulationRecorder(file, Arrays.asList("a"), 1, 3);
+		for (int g = 0; g < 10; g++)
+			assertEquals(g % 3 == 0, recorder.record(g, new int[] {g}, null));
+		recorder.close();
+		try (PopulationFile population = new PopulationFile(file)){
+			assertEquals(4, population.getRows());
+			for (int row = 0; row < 4; row++){
+				assertEquals(3*row, population.getGeneration(row));
+				assertEquals(3*row, population.getCount(0, row));
+			}
+		}
+	}
+}
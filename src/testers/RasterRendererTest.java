@@ -0,0 +1,68 @@
+package testers;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.RasterRenderer;
+import javafx.scene.paint.Color;
+import junit.framework.TestCase;
+
+public class RasterRendererTest extends TestCase{
+	
+	/**
+	 * 3x2 grid of 10 pixel squares starting at (100, 50)
+	 */
+	private static double[][] squares(){
+		double[][] vertices = new double[6][];
+		for (int i = 0; i < vertices.length; i++){
+			double x = 100 + (i % 3) * 10;
+			double y = 50 + (i / 3) * 10;
+			vertices[i] = new double[] {x, y, x+10, y, x+10, y+10, x, y+10};
+		}
+		return vertices;
+	}
+	
+	@Test
+	public void testPixelsMapToCells(){
+		RasterRenderer renderer = new RasterRenderer(squares(), CellGroup.STATE_COLORS, false);
+		for (int i = 0; i < 6; i++){
+			assertEquals(i, renderer.cellAt((i % 3) * 10 + 5, (i / 3) * 10 + 5));
+			assertEquals(i, renderer.cellAt((i % 3) * 10, (i / 3) * 10));
+			assertEquals(i, renderer.cellAt((i % 3) * 10 + 9.9, (i / 3) * 10 + 9.9));
+		}
+		assertEquals(RasterRenderer.NO_CELL, renderer.cellAt(30, 5));
+		assertEquals(RasterRenderer.NO_CELL, renderer.cellAt(-1, 5));
+	}
+	
+	@Test
+	public void testTrianglesShareEdgeWithoutGaps(){
+		double[][] vertices = {{0, 0, 20, 0, 0, 20}, {20, 0, 20, 20, 0, 20}};
+		RasterRenderer renderer = new RasterRenderer(vertices, CellGroup.STATE_COLORS, false);
+		for (int y = 0; y < 20; y++)
+			for (int x = 0; x < 20; x++)
+				assertEquals(x + y < 19? 0: 1, renderer.cellAt(x + 0.5, y + 0.5));
+	}
+	
+	@Test
+	public void testChangedCellsMatchFullRender(){
+		RasterRenderer dirty = new RasterRenderer(squares(), CellGroup.STATE_COLORS, true);
+		RasterRenderer full = new RasterRenderer(squares(), CellGroup.STATE_COLORS, true);
+		byte[] states = {0, 1, 2, 0, 1, 2};
+		dirty.render(states);
+		
+		states[4] = 2;
+		dirty.render(states, new int[] {4}, 1);
+		full.render(states);
+		assertTrue(Arrays.equals(full.getPixels(), dirty.getPixels()));
+		assertEquals(RasterRenderer.argb((Color) CellGroup.STATE_COLORS[2]),
+				dirty.getPixels()[15 * dirty.getWidth() + 15]);
+	}
+	
+	@Test
+	public void testArgb(){
+		assertEquals(0xFFFFFFFF, RasterRenderer.argb(Color.WHITE));
+		assertEquals(0xFFFF0000, RasterRenderer.argb(Color.RED));
+	}
+}
@@ -0,0 +1,82 @@
+package testers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import Util.SimulationData;
+import Util.SimulationReader;
+import Util.Util;
+import junit.framework.TestCase;
+
+public class SaveFileTest extends TestCase{
+	private static final List<String> NAMES = Arrays.asList("Empty", "A & B", "C");
+	
+	/**
+	 * @return	a 20 by 10 Segregation grid: empty left half, one group at the top right, the other below it
+	 */
+	private static CellGroup clustered() throws IOException{
+		int[] states = new int[200];
+		for (int index = 0; index < 200; index++){
+			int x = index % 20, y = index / 20;
+			states[index] = x < 10? 0: y < 5? 1: 2;
+		}
+		return new SquareCellGroup(Configs.states(CellGroup.SEG, 2, 0, 20, 10, 3, states, 0.3, 5));
+	}
+	
+	private static File save(CellGroup cells, boolean runs) throws IOException{
+		File file = Files.createTempFile("save", ".xml").toFile();
+		file.deleteOnExit();
+		SimulationData data = cells.getSimData(0);
+		data.setStateNames(NAMES.toArray(new String[NAMES.size()]));
+		new Util().saveFile(data, file, runs);
+		return file;
+	}
+	
+	private static void assertReadsBack(CellGroup cells, File file, List<String> names) throws IOException{
+		Util util = new Util();
+		LinkedList<Double> config = new LinkedList<>();
+		List<String> parsed = util.parseText(file);
+		for (String s: parsed.subList(1, parsed.size()))
+			config.add(Double.parseDouble(s));
+		assertTrue(Arrays.equals(cells.getEngine().getStates(), new SquareCellGroup(config).getEngine().getStates()));
+		assertEquals(names, util.getCellStateNames());
+		
+		SimulationData data = SimulationReader.read(file);
+		assertTrue(Arrays.equals(cells.getEngine().getStates(), 
+				new SquareCellGroup(data, CellGroup.AUTO_ENGINE).getEngine().getStates()));
+	}
+	
+	@Test
+	public void testCellsReadBack() throws IOException{
+		CellGroup cells = clustered();
+		assertReadsBack(cells, save(cells, false), NAMES);
+	}
+	
+	@Test
+	public void testRunsReadBack() throws IOException{
+		CellGroup cells = clustered();
+		File runs = save(cells, true);
+		assertReadsBack(cells, runs, NAMES);
+		assertTrue(runs.length() * 5 < save(cells, false).length());
+	}
+	
+	@Test
+	public void testListSaveMatchesData() throws IOException{
+		CellGroup cells = clustered();
+		List<String> simInfo = new ArrayList<>(cells.getSimInfoCopy());
+		simInfo.add(0, "0");
+		File file = Files.createTempFile("list", ".xml").toFile();
+		file.deleteOnExit();
+		new Util().saveFile(simInfo, file);
+		assertReadsBack(cells, file, Arrays.asList("0", "1", "2"));
+	}
+}
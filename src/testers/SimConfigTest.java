@@ -0,0 +1,75 @@
+package testers;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.LifeCell;
+import CellGroup.Cell.WaTorCell;
+import Util.SimulationData;
+import junit.framework.TestCase;
+
+public class SimConfigTest extends TestCase{
+
+	private static LinkedList<Double> config(int simType, double... params){
+		return Configs.counts(simType, 2, 0, 6, 6, new int[] {18, 9, 9}, params);
+	}
+
+	@Test
+	public void testReadsSettingsInOrder(){
+		WaTorCell.Config wator = new WaTorCell.Config(Arrays.asList(5.0, 4.0, 3.0, 2.0));
+		assertEquals(5, wator.getStartingEnergy());
+		assertEquals(4, wator.getEnergyRegain());
+		assertEquals(3, wator.getEnergyLost());
+		assertEquals(2, wator.getReproduceNumber());
+		assertEquals(5, new WaTorCell(WaTorCell.SHARK, wator).getEnergy());
+
+		LifeCell.Config life = new LifeCell.Config(Arrays.asList(1.0, 4.0, 2.0, 99.0));
+		assertEquals(1, life.getUnderpop());
+		assertEquals(4, life.getOverpop());
+		assertEquals(2, life.getReproduction());
+		assertFalse(new LifeCell.Kernel(life).isStandard());
+		assertTrue(new LifeCell.Kernel(LifeCell.Config.CONWAY).isStandard());
+	}
+
+	@Test
+	public void testGridStepsWithSharedConfig() throws Exception{
+		int[] states = new int[36];
+		states[14] = WaTorCell.SHARK;
+		CellGroup cells = new SquareCellGroup(Configs.states(CellGroup.WATOR, 2, 0, 6, 6, 3, states, 20, 4, 3, 100),
+				CellGroup.OBJECT_ENGINE);
+		assertEquals(20, sharkEnergy(cells));
+		for (int k = 1; k <= 5; k++){
+			cells.step();
+			assertEquals(20 - 3*k, sharkEnergy(cells));
+		}
+	}
+
+	/**
+	 * @return	energy of the one shark in the grid
+	 */
+	private static int sharkEnergy(CellGroup cells){
+		SimulationData data = cells.getSimData(0);
+		int shark = -1;
+		for (int i = 0; i < data.getStates().length; i++)
+			if (data.getStates()[i] == WaTorCell.SHARK){
+				assertEquals("only one shark", -1, shark);
+				shark = i;
+			}
+		return data.getFields()[WaTorCell.ENERGY_FIELD*data.getStates().length + shark];
+	}
+
+	@Test
+	public void testRejectsMissingSettings(){
+		try {
+			new SquareCellGroup(config(CellGroup.WATOR, 2, 2), CellGroup.OBJECT_ENGINE);
+			fail("Wa-Tor needs four settings");
+		} catch (IOException e){
+			// expected
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package testers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import Util.SimulationData;
+import Util.SimulationReader;
+import Util.Util;
+import Util.XMLException;
+import junit.framework.TestCase;
+
+public class SimulationReaderTest extends TestCase{
+
+	/**
+	 * @return	the data in the order parseText lists it
+	 */
+	private static List<Double> asList(SimulationData data){
+		List<Double> list = new ArrayList<>();
+		double[] global = {data.getGridShape(), data.getStroke(), data.getNeighborConfig(), data.getTorus(),
+				data.getSimType(), data.getGridWidth(), data.getGridHeight(), data.getNumStates(), data.getSpecifiedCount()};
+		for (double d: global)
+			list.add(d);
+		for (int k = 0; k < data.getSpecifiedCount(); k++){
+			list.add((double) data.getCellState(k));
+			list.add((double) data.getCellIndex(k));
+		}
+		for (int count: data.getStateCounts())
+			list.add((double) count);
+		for (double d: data.getSettings())
+			list.add(d);
+		return list;
+	}
+
+	private static void assertSameAsParseText(File file) throws IOException{
+		Util util = new Util();
+		List<Double> expected = new ArrayList<>();
+		try {
+			for (String s: util.parseText(file))
+				expected.add(Double.parseDouble(s));
+		} catch (XMLException e){
+			assertRejected(file);
+			return;
+		}
+		SimulationData data = SimulationReader.read(file);
+
+		assertEquals(file.getName(), expected, asList(data));
+		assertEquals(file.getName(), util.getCellStateNames(), Arrays.asList(data.getStateNames()));
+	}
+
+	private static void assertRejected(File file){
+		try {
+			SimulationReader.read(file);
+			fail(file.getName() + " is not well formed and should not load");
+		} catch (XMLException e){
+			// expected
+		} catch (IOException e){
+			fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testDataFilesMatchParseText() throws IOException{
+		for (File file: new File("data").listFiles((dir, name) -> name.endsWith(".xml")))
+			assertSameAsParseText(file);
+	}
+
+	@Test
+	public void testSavedGridReadsBack() throws IOException{
+		CellGroup cells = new SquareCellGroup(Configs.list(0, 2, 1, CellGroup.LIFE, 7, 5, 3, 2, 1, 3, 2, 34, 0, 20, 13, 2, 3, 3));
+		List<String> simInfo = new LinkedList<>(cells.getSimInfoCopy());
+		simInfo.add(0, "0");
+		File file = Files.createTempFile("saved", ".xml").toFile();
+		file.deleteOnExit();
+		new Util().saveFile(simInfo, file);
+
+		assertSameAsParseText(file);
+		CellGroup loaded = new SquareCellGroup(SimulationReader.read(file), CellGroup.AUTO_ENGINE);
+		assertTrue(Arrays.equals(cells.getEngine().getStates(), loaded.getEngine().getStates()));
+		assertTrue(Arrays.equals(cells.getCellStates(), loaded.getCellStates()));
+	}
+
+	@Test
+	public void testMissingFieldIsRejected() throws IOException{
+		File file = Files.createTempFile("missing", ".xml").toFile();
+		file.deleteOnExit();
+		Files.write(file.toPath(), (Util.HEADER + "\t<gridShape>square</gridShape>\n" + Util.FOOTER).getBytes());
+		try {
+			SimulationReader.read(file);
+			fail("a file with only a shape should not load");
+		} catch (IOException e){
+			// expected
+		}
+	}
+}
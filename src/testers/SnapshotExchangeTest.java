@@ -0,0 +1,58 @@
+package testers;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import CellGroup.Snapshot;
+import CellGroup.SnapshotExchange;
+import junit.framework.TestCase;
+
+public class SnapshotExchangeTest extends TestCase{
+	
+	private static void fill(SnapshotExchange exchange, int value){
+		Arrays.fill(exchange.getBack().getStates(), (byte) value);
+		exchange.publish();
+	}
+	
+	@Test
+	public void testTakesNewestOnce(){
+		SnapshotExchange exchange = new SnapshotExchange(4, 2);
+		assertNull(exchange.take());
+		
+		fill(exchange, 1);
+		fill(exchange, 2);
+		Snapshot taken = exchange.take();
+		assertEquals(2, taken.getStates()[0]);
+		assertNull(exchange.take());
+		
+		fill(exchange, 3);
+		fill(exchange, 4);
+		assertEquals(2, taken.getStates()[0]);
+		assertEquals(4, exchange.take().getStates()[3]);
+	}
+	
+	@Test
+	public void testSnapshotsNeverTorn() throws InterruptedException{
+		SnapshotExchange exchange = new SnapshotExchange(10000, 2);
+		int last = 100;
+		Thread producer = new Thread(() -> {
+			for (int i = 1; i <= last; i++)
+				fill(exchange, i);
+		});
+		producer.start();
+		
+		int seen = 0;
+		while (seen < last){
+			Snapshot snapshot = exchange.take();
+			if (snapshot == null)
+				continue;
+			byte[] states = snapshot.getStates();
+			for (byte state: states)
+				assertEquals(states[0], state);
+			assertTrue(states[0] > seen);
+			seen = states[0];
+		}
+		producer.join();
+	}
+}
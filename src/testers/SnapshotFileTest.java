@@ -0,0 +1,117 @@
+package testers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.HexCellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.Cell.RPSCell;
+import CellGroup.Cell.WaTorCell;
+import Util.SimulationData;
+import Util.SimulationReader;
+import Util.SnapshotFile;
+import junit.framework.TestCase;
+
+public class SnapshotFileTest extends TestCase{
+
+	private static LinkedList<Double> config(int simType, int size, double... params){
+		int cells = size*size;
+		return Configs.counts(simType, 2, 0, size, size, new int[] {cells/2, cells/4, cells - cells/2 - cells/4}, params);
+	}
+
+	private static File saveAndLoad(SimulationData data) throws IOException{
+		File file = Files.createTempFile("snapshot", SnapshotFile.EXTENSION).toFile();
+		file.deleteOnExit();
+		SnapshotFile.write(data, file);
+		return file;
+	}
+
+	@Test
+	public void testWaTorResumesExactly() throws Exception{
+		CellGroup cells = new SquareCellGroup(config(CellGroup.WATOR, 12, 2, 2, 1, 3));
+		for (int k = 0; k < 5; k++)
+			cells.step();
+		SimulationData saved = cells.getSimData(0);
+		assertEquals(WaTorCell.FIELD_COUNT, saved.getFieldCount());
+		assertEquals(5, saved.getGeneration());
+
+		SimulationData loaded = SimulationReader.read(saveAndLoad(saved));
+		assertEquals(5, loaded.getGeneration());
+		assertTrue(Arrays.equals(saved.getFields(), loaded.getFields()));
+		CellGroup resumed = new SquareCellGroup(loaded, CellGroup.AUTO_ENGINE);
+		for (int k = 0; k < 10; k++){
+			cells.step();
+			resumed.step();
+			assertTrue(Arrays.equals(cells.getEngine().getStates(), resumed.getEngine().getStates()));
+		}
+	}
+
+	@Test
+	public void testHeaderRoundTrips() throws Exception{
+		CellGroup cells = new HexCellGroup(config(CellGroup.LIFE, 9, 2, 3, 3), CellGroup.ARRAY_ENGINE);
+		SimulationData saved = cells.getSimData(1);
+		saved.setStateNames(new String[] {"", "Dead", "Alive"});
+		SimulationData loaded = SnapshotFile.read(saveAndLoad(saved));
+
+		assertEquals(1, loaded.getGridShape());
+		assertEquals(CellGroup.LIFE, loaded.getSimType());
+		assertEquals(9, loaded.getGridWidth());
+		assertEquals(9, loaded.getGridHeight());
+		assertEquals(0, loaded.getFieldCount());
+		assertTrue(Arrays.equals(new double[] {2, 3, 3}, loaded.getSettings()));
+		assertTrue(Arrays.equals(saved.getStateNames(), loaded.getStateNames()));
+		assertTrue(Arrays.equals(cells.getEngine().getStates(), loaded.getStates()));
+		assertTrue(Arrays.equals(cells.getCellStates(), new HexCellGroup(loaded, CellGroup.AUTO_ENGINE).getCellStates()));
+	}
+
+	@Test
+	public void testRejectsOtherFiles() throws IOException{
+		File file = Files.createTempFile("notsnapshot", SnapshotFile.EXTENSION).toFile();
+		file.deleteOnExit();
+		Files.write(file.toPath(), "<Simulation/>".getBytes());
+		try {
+			SnapshotFile.read(file);
+			fail("an XML file is not a snapshot");
+		} catch (IOException e){
+			// expected
+		}
+	}
+
+	@Test
+	public void testRPSKeepsFadeDistance() throws Exception{
+		CellGroup cells = new SquareCellGroup(Configs.counts(CellGroup.RPS, 2, 0, 12, 12, new int[] {120, 8, 8, 8}, 6));
+		for (int k = 0; k < 5; k++)
+			cells.step();
+		SimulationData saved = cells.getSimData(0);
+		assertEquals(RPSCell.FIELD_COUNT, saved.getFieldCount());
+		boolean faded = false;
+		for (int fade: saved.getFields())
+			faded |= fade != 6;
+		assertTrue("some cells have spread or been eaten", faded);
+
+		SimulationData loaded = SnapshotFile.read(saveAndLoad(saved));
+		assertTrue(Arrays.equals(saved.getFields(), loaded.getFields()));
+		SimulationData resumed = new SquareCellGroup(loaded, CellGroup.AUTO_ENGINE).getSimData(0);
+		assertTrue(Arrays.equals(saved.getStates(), resumed.getStates()));
+		assertTrue(Arrays.equals(saved.getFields(), resumed.getFields()));
+	}
+
+	@Test
+	public void testRefusesSegregation() throws Exception{
+		SimulationData data = new SquareCellGroup(config(CellGroup.SEG, 10, 0.4, 5)).getSimData(0);
+		File file = Files.createTempFile("segregation", SnapshotFile.EXTENSION).toFile();
+		file.deleteOnExit();
+		try {
+			SnapshotFile.write(data, file);
+			fail("Segregation cells keep memory a snapshot cannot hold");
+		} catch (IOException e){
+			// expected
+		}
+	}
+}
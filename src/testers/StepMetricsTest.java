@@ -0,0 +1,49 @@
+package testers;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.SquareCellGroup;
+import CellGroup.StepMetrics;
+import junit.framework.TestCase;
+
+public class StepMetricsTest extends TestCase{
+	
+	public static final int SIZE = 10;
+	
+	private static CellGroup rpsCells() throws Exception{
+		return new SquareCellGroup(Configs.counts(CellGroup.RPS, 2, 0, SIZE, SIZE, new int[] {25, 25, 25, 25}, 1));
+	}
+	
+	@Test
+	public void testCountsEveryStep() throws Exception{
+		CellGroup cells = rpsCells();
+		for (int k = 0; k < 5; k++)
+			cells.update();
+		
+		StepMetrics metrics = cells.getMetrics();
+		assertEquals(5, metrics.getGenerations());
+		assertEquals(5 * SIZE * SIZE, metrics.getCellsProcessed());
+		assertTrue(metrics.getUpdateNanos() > 0);
+		assertTrue(metrics.getResetNanos() > 0);
+		assertEquals(0, metrics.getPlotNanos());
+		assertTrue(metrics.getGenerationsPerSecond() > 0);
+	}
+	
+	@Test
+	public void testRegisterReplacesOldMetrics() throws Exception{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(StepMetrics.OBJECT_NAME);
+		
+		rpsCells().getMetrics().register();
+		CellGroup cells = rpsCells();
+		cells.getMetrics().register();
+		cells.update();
+		assertEquals(1L, server.getAttribute(name, "Generations"));
+	}
+}
@@ -0,0 +1,71 @@
+package testers;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import CellGroup.CellGroup;
+import CellGroup.RasterRenderer;
+import CellGroup.Viewport;
+import javafx.scene.paint.Color;
+import junit.framework.TestCase;
+
+public class ViewportTest extends TestCase{
+	private static final int SIZE = 100;
+	
+	private static int color(int state){
+		return RasterRenderer.argb((Color) CellGroup.STATE_COLORS[state]);
+	}
+	
+	@Test
+	public void testZoomedInShowsCells(){
+		byte[] states = new byte[40*40];
+		states[5*40 + 7] = 2;
+		Viewport viewport = new Viewport(40, 40, CellGroup.STATE_COLORS, 0, 0, SIZE);
+		viewport.zoom(4, 0, 0);
+		viewport.render(states);
+		
+		assertEquals(10.0, viewport.getScale());
+		assertEquals(5*40 + 7, viewport.cellAt(75, 55));
+		assertEquals(Viewport.NO_CELL, viewport.cellAt(100, 55));
+		assertEquals(color(2), viewport.getPixels()[55*SIZE + 75]);
+		assertEquals(color(0), viewport.getPixels()[45*SIZE + 75]);
+	}
+	
+	@Test
+	public void testZoomedOutShowsMajority(){
+		byte[] states = new byte[1000*1000];
+		for (int row = 0; row < 16; row++)
+			for (int column = 0; column < 9; column++)
+				states[row*1000 + column] = 1;
+		Viewport viewport = new Viewport(1000, 1000, CellGroup.STATE_COLORS, 0, 0, SIZE);
+		viewport.render(states);
+		
+		assertEquals(color(1), viewport.getPixels()[0]);
+		assertEquals(color(0), viewport.getPixels()[2*SIZE + 2]);
+		assertTrue(viewport.getTileCount() > 0);
+	}
+	
+	@Test
+	public void testChangesRebuildOnlyTheirTiles(){
+		byte[] states = new byte[1000*1000];
+		Viewport viewport = new Viewport(1000, 1000, CellGroup.STATE_COLORS, 0, 0, SIZE);
+		viewport.render(states);
+		int tiles = viewport.getTileCount();
+		
+		int[] changed = new int[8*8];
+		int count = 0;
+		for (int row = 992; row < 1000; row++)
+			for (int column = 992; column < 1000; column++){
+				states[row*1000 + column] = 2;
+				changed[count++] = row*1000 + column;
+			}
+		viewport.render(states, changed, count);
+		
+		Viewport fresh = new Viewport(1000, 1000, CellGroup.STATE_COLORS, 0, 0, SIZE);
+		fresh.render(states);
+		assertTrue(Arrays.equals(fresh.getPixels(), viewport.getPixels()));
+		assertEquals(color(2), viewport.getPixels()[SIZE*SIZE - 1]);
+		assertEquals(tiles, viewport.getTileCount());
+	}
+}